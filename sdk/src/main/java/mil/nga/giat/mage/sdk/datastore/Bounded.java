@@ -0,0 +1,43 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+/**
+ * Base of the entities with a geometry.  Each row stores the bounding box of
+ * its geometry in envelope columns, which the {@link SpatialIndex} of its
+ * table indexes.
+ */
+public abstract class Bounded {
+
+	@DatabaseField(columnName = SpatialIndex.COLUMN_NAME_MIN_X)
+	private Double minX;
+
+	@DatabaseField(columnName = SpatialIndex.COLUMN_NAME_MAX_X)
+	private Double maxX;
+
+	@DatabaseField(columnName = SpatialIndex.COLUMN_NAME_MIN_Y)
+	private Double minY;
+
+	@DatabaseField(columnName = SpatialIndex.COLUMN_NAME_MAX_Y)
+	private Double maxY;
+
+	/**
+	 * Sets the envelope columns to the bounding box of a geometry, or clears
+	 * them for a null or empty geometry.
+	 *
+	 * @param geometry geometry of the entity
+	 */
+	protected void setEnvelope(Geometry geometry) {
+		Envelope envelope = geometry != null ? geometry.getEnvelopeInternal() : null;
+		if (envelope != null && !envelope.isNull()) {
+			minX = envelope.getMinX();
+			maxX = envelope.getMaxX();
+			minY = envelope.getMinY();
+			maxY = envelope.getMaxY();
+		} else {
+			minX = maxX = minY = maxY = null;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Query that is built and prepared once, then run many times with different
+ * arguments.  Hot helper queries use this instead of building a new
+ * {@link QueryBuilder} and SQL string on each call.
+ *
+ * The query is prepared on first use in each thread, with its own
+ * {@link SelectArg}s, so threads bind arguments and read rows without waiting
+ * on each other.  Arguments are bound to the {@link SelectArg}s handed to the
+ * {@link Builder}, in order.
+ */
+public class CompiledQuery<T, ID> {
+
+	public static final String COLUMN_NAME_REMOTE_ID = "remote_id";
+
+	/**
+	 * Builds the query.  Use the given args in place of values that change
+	 * between runs.
+	 */
+	public interface Builder<T, ID> {
+		void build(QueryBuilder<T, ID> queryBuilder, SelectArg... args) throws SQLException;
+	}
+
+	private final Dao<T, ID> dao;
+	private final Builder<T, ID> builder;
+	private final int argCount;
+
+	private final ThreadLocal<Prepared> prepared = new ThreadLocal<>();
+
+	/**
+	 * @param dao dao to query
+	 * @param argCount number of arguments the query takes
+	 * @param builder builds the query
+	 */
+	public CompiledQuery(Dao<T, ID> dao, int argCount, Builder<T, ID> builder) {
+		this.dao = dao;
+		this.builder = builder;
+		this.argCount = argCount;
+	}
+
+	/**
+	 * @param dao dao to query
+	 * @return query for the rows with the remote id passed as its argument
+	 */
+	public static <T, ID> CompiledQuery<T, ID> byRemoteId(Dao<T, ID> dao) {
+		return new CompiledQuery<>(dao, 1, new Builder<T, ID>() {
+			@Override
+			public void build(QueryBuilder<T, ID> queryBuilder, SelectArg... args) throws SQLException {
+				queryBuilder.where().eq(COLUMN_NAME_REMOTE_ID, args[0]);
+			}
+		});
+	}
+
+	public List<T> query(Object... values) throws SQLException {
+		return dao.query(bind(values));
+	}
+
+	/**
+	 * @return the first row, or null if there are none
+	 */
+	public T queryForFirst(Object... values) throws SQLException {
+		return dao.queryForFirst(bind(values));
+	}
+
+	private PreparedQuery<T> bind(Object... values) throws SQLException {
+		if (values.length != argCount) {
+			throw new SQLException("Query takes " + argCount + " arguments, got " + values.length);
+		}
+
+		Prepared prepared = this.prepared.get();
+		if (prepared == null) {
+			prepared = new Prepared();
+			this.prepared.set(prepared);
+		}
+
+		for (int i = 0; i < values.length; i++) {
+			prepared.args[i].setValue(values[i]);
+		}
+		return prepared.query;
+	}
+
+	/**
+	 * The query as prepared for one thread.
+	 */
+	private class Prepared {
+		private final SelectArg[] args = new SelectArg[argCount];
+		private final PreparedQuery<T> query;
+
+		private Prepared() throws SQLException {
+			for (int i = 0; i < argCount; i++) {
+				args[i] = new SelectArg();
+			}
+
+			QueryBuilder<T, ID> queryBuilder = dao.queryBuilder();
+			builder.build(queryBuilder, args);
+			query = queryBuilder.prepare();
+		}
+	}
+}
@@ -1,15 +1,27 @@
 package mil.nga.giat.mage.sdk.datastore;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
 import android.util.Log;
 
 import com.j256.ormlite.android.apptools.OrmLiteSqliteOpenHelper;
 import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
 import com.j256.ormlite.support.ConnectionSource;
 import com.j256.ormlite.table.TableUtils;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
 
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import mil.nga.giat.mage.sdk.datastore.layer.Layer;
 import mil.nga.giat.mage.sdk.datastore.location.Location;
@@ -19,10 +31,18 @@ import mil.nga.giat.mage.sdk.datastore.observation.Observation;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationFavorite;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationImportant;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationProperty;
+import mil.nga.giat.mage.sdk.datastore.observation.ObservationSearchIndex;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxEntry;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeature;
+import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureGeometry;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureProperty;
+import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureTile;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpoint;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.Role;
+import mil.nga.giat.mage.sdk.datastore.user.SessionContext;
 import mil.nga.giat.mage.sdk.datastore.user.Team;
 import mil.nga.giat.mage.sdk.datastore.user.TeamEvent;
 import mil.nga.giat.mage.sdk.datastore.user.User;
@@ -33,6 +53,11 @@ import mil.nga.giat.mage.sdk.datastore.user.UserTeam;
  * This is an implementation of OrmLite android database Helper. Go here to get
  * daos that you may need. Manage your table creation and update strategies here
  * as well.
+ *
+ * The database is opened in write-ahead logging mode.  Writes are serialized on
+ * one connection while reads use any of the pooled reader connections.  Keep
+ * reads out of {@link com.j256.ormlite.misc.TransactionManager} calls unless they
+ * need to see the uncommitted writes, as reads in a transaction use the writer.
  * 
  * @author travis, wiedemanns
  * 
@@ -44,7 +69,32 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 	private static final String DATABASE_NAME = "mage.db";
 	private static final String LOG_NAME = DaoStore.class.getName();
 	// Making this public so we can check if it has been upgraded and log the user out
-	public static final int DATABASE_VERSION = 11;
+	public static final int DATABASE_VERSION = 23;
+	// Oldest database version that can be migrated, older databases are reset
+	private static final int MINIMUM_MIGRATION_VERSION = 11;
+	private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+	// Composite indexes for keyset pagination, declared here as ORMLite orders index columns by field declaration
+	static final String[] PAGE_INDEXES = {
+		"CREATE INDEX IF NOT EXISTS observations_event_timestamp_idx ON observations (event_id, timestamp)",
+		"CREATE INDEX IF NOT EXISTS locations_event_timestamp_idx ON locations (event_id, timestamp)"
+	};
+
+	// Indexes for the filters, joins and sorts the helpers run, one per query shape:
+	// dirty scans, last modified reads and pruning per event, property key/value lookups,
+	// child collections by observation, per user location reads and static features by layer
+	static final String[] QUERY_INDEXES = {
+		"CREATE INDEX IF NOT EXISTS observations_dirty_idx ON observations (dirty)",
+		"CREATE INDEX IF NOT EXISTS observation_important_dirty_idx ON observation_important (dirty)",
+		"CREATE INDEX IF NOT EXISTS observation_favorites_dirty_idx ON observation_favorites (dirty)",
+		"CREATE INDEX IF NOT EXISTS attachments_dirty_idx ON attachments (dirty)",
+		"CREATE INDEX IF NOT EXISTS observations_event_last_modified_idx ON observations (event_id, last_modified)",
+		"CREATE INDEX IF NOT EXISTS observation_properties_key_value_idx ON observation_properties (" + Property.COLUMN_NAME_KEY + ", " + Property.COLUMN_NAME_STRING_VALUE + ")",
+		"CREATE INDEX IF NOT EXISTS observation_favorites_observation_user_idx ON observation_favorites (observation_id, user_id)",
+		"CREATE INDEX IF NOT EXISTS attachments_observation_idx ON attachments (observation_id)",
+		"CREATE INDEX IF NOT EXISTS locations_user_event_timestamp_idx ON locations (user_id, event_id, timestamp)",
+		"CREATE INDEX IF NOT EXISTS staticfeatures_layer_idx ON staticfeatures (" + StaticFeature.STATIC_FEATURE_LAYER_ID + ")"
+	};
 
 	// Observation DAOS
 	private Dao<Observation, Long> observationDao;
@@ -68,6 +118,20 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 	private Dao<Layer, Long> layerDao;
 	private Dao<StaticFeature, Long> staticFeatureDao;
 	private Dao<StaticFeatureProperty, Long> staticFeaturePropertyDao;
+	private Dao<StaticFeatureGeometry, Long> staticFeatureGeometryDao;
+	private Dao<StaticFeatureTile, Long> staticFeatureTileDao;
+
+	// Outbox DAO
+	private Dao<OutboxEntry, Long> outboxDao;
+
+	// Sync checkpoint DAO
+	private Dao<SyncCheckpoint, Long> syncCheckpointDao;
+
+	// HTTP validator DAO
+	private Dao<HttpValidator, Long> httpValidatorDao;
+
+	// current user and event, loaded by the UserHelper
+	private volatile SessionContext sessionContext;
 	
 	/**
 	 * Singleton implementation.
@@ -75,7 +139,7 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 	 * @param context context
 	 * @return the dao store
 	 */
-	public static DaoStore getInstance(Context context) {
+	public static synchronized DaoStore getInstance(Context context) {
 		if (helperInstance == null) {
 			helperInstance = new DaoStore(context);
 		}
@@ -91,6 +155,11 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 	private DaoStore(Context context) {
 		super(context, DATABASE_NAME, null, DATABASE_VERSION);
 
+		// With write-ahead logging the connection source keeps one primary connection for writes
+		// and a pool of read-only connections, so queries outside of a transaction run
+		// concurrently with each other and with a long write transaction such as a layer import.
+		setWriteAheadLoggingEnabled(true);
+
 		// initialize DAOs
 		try {
 			getObservationDao();
@@ -110,11 +179,15 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 			getLayerDao();
 			getStaticFeatureDao();
 			getStaticFeaturePropertyDao();
+			getStaticFeatureGeometryDao();
+			getStaticFeatureTileDao();
+			getOutboxDao();
+			getSyncCheckpointDao();
+			getHttpValidatorDao();
 		} catch (SQLException sqle) {
 			// TODO: handle this...
 			sqle.printStackTrace();
 		}
-
 	}
 
 	public boolean isDatabaseEmpty() {
@@ -137,6 +210,8 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 			countOfAllRecords += getLayerDao().countOf();
 			countOfAllRecords += getStaticFeatureDao().countOf();
 			countOfAllRecords += getStaticFeaturePropertyDao().countOf();
+			countOfAllRecords += getStaticFeatureGeometryDao().countOf();
+			countOfAllRecords += getStaticFeatureTileDao().countOf();
 		} catch (SQLException sqle) {
 			sqle.printStackTrace();
 			return false;
@@ -144,7 +219,13 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 		return countOfAllRecords == 0;
 	}
 
-	private void createTables() throws SQLException {
+	/**
+	 * Creates the tables, indexes, search index and R*Trees of an empty
+	 * database.  Static so tests can create the same schema over JDBC.
+	 *
+	 * @param connectionSource connection source of the database
+	 */
+	static void createTables(ConnectionSource connectionSource) throws SQLException {
 		TableUtils.createTable(connectionSource, Observation.class);
 		TableUtils.createTable(connectionSource, ObservationProperty.class);
 		TableUtils.createTable(connectionSource, ObservationImportant.class);
@@ -164,12 +245,64 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 		TableUtils.createTable(connectionSource, Layer.class);
 		TableUtils.createTable(connectionSource, StaticFeature.class);
 		TableUtils.createTable(connectionSource, StaticFeatureProperty.class);
+		TableUtils.createTable(connectionSource, StaticFeatureGeometry.class);
+		TableUtils.createTable(connectionSource, StaticFeatureTile.class);
+
+		TableUtils.createTable(connectionSource, OutboxEntry.class);
+		TableUtils.createTable(connectionSource, SyncCheckpoint.class);
+		TableUtils.createTable(connectionSource, HttpValidator.class);
+
+		Dao<Observation, Long> dao = DaoManager.createDao(connectionSource, Observation.class);
+		for (String index : PAGE_INDEXES) {
+			dao.executeRawNoArgs(index);
+		}
+
+		for (String index : QUERY_INDEXES) {
+			dao.executeRawNoArgs(index);
+		}
+
+		dao.executeRawNoArgs(ObservationSearchIndex.CREATE_TABLE);
+
+		createSpatialIndex(dao, "observations", "_id");
+		createSpatialIndex(dao, "locations", "_id");
+		createSpatialIndex(dao, "staticfeatures", StaticFeature.STATIC_FEATURE_ID);
+	}
+
+	/**
+	 * Create the R*Tree of a table with envelope columns, or a plain table of
+	 * the same shape if SQLite was built without the R*Tree module.
+	 *
+	 * @param dao any dao of the database, to run the statements
+	 * @param table table with envelope columns
+	 * @param idColumn integer primary key column of the table
+	 */
+	private static void createSpatialIndex(Dao<?, ?> dao, String table, String idColumn) throws SQLException {
+		List<String> statements = SpatialIndex.getCreateStatements(table, idColumn, true);
+		try {
+			dao.executeRawNoArgs(statements.get(0));
+		} catch (SQLException sqle) {
+			Log.w(LOG_NAME, "Could not create R*Tree of " + table + ", envelopes will be scanned.", sqle);
+			statements = SpatialIndex.getCreateStatements(table, idColumn, false);
+			dao.executeRawNoArgs(statements.get(0));
+		}
+
+		for (String statement : statements.subList(1, statements.size())) {
+			dao.executeRawNoArgs(statement);
+		}
+	}
+
+	@Override
+	public void onConfigure(SQLiteDatabase database) {
+		super.onConfigure(database);
+
+		// only applies to a database without tables, existing databases are converted by vacuum()
+		database.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
 	}
 
 	@Override
 	public void onCreate(SQLiteDatabase sqliteDatabase, ConnectionSource connectionSource) {
 		try {
-			createTables();
+			createTables(connectionSource);
 		} catch (SQLException se) {
 			Log.e(LOG_NAME, "Could not create tables.", se);
 		}
@@ -197,11 +330,359 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 		TableUtils.dropTable(connectionSource, Layer.class, Boolean.TRUE);
 		TableUtils.dropTable(connectionSource, StaticFeature.class, Boolean.TRUE);
 		TableUtils.dropTable(connectionSource, StaticFeatureProperty.class, Boolean.TRUE);
+		TableUtils.dropTable(connectionSource, StaticFeatureGeometry.class, Boolean.TRUE);
+		TableUtils.dropTable(connectionSource, StaticFeatureTile.class, Boolean.TRUE);
+
+		TableUtils.dropTable(connectionSource, OutboxEntry.class, Boolean.TRUE);
+		TableUtils.dropTable(connectionSource, SyncCheckpoint.class, Boolean.TRUE);
+		TableUtils.dropTable(connectionSource, HttpValidator.class, Boolean.TRUE);
+
+		getObservationDao().executeRawNoArgs(ObservationSearchIndex.DROP_TABLE);
+
+		getObservationDao().executeRawNoArgs(SpatialIndex.getDropStatement("observations"));
+		getObservationDao().executeRawNoArgs(SpatialIndex.getDropStatement("locations"));
+		getObservationDao().executeRawNoArgs(SpatialIndex.getDropStatement("staticfeatures"));
+	}
+
+	/**
+	 * Upgrade steps, in version order.  When bumping DATABASE_VERSION add a
+	 * migration for the new version here instead of resetting the database.
+	 *
+	 * @return migrations from MINIMUM_MIGRATION_VERSION to DATABASE_VERSION
+	 */
+	private List<DatabaseMigration> getMigrations() {
+		List<DatabaseMigration> migrations = new ArrayList<>();
+
+		migrations.add(new DatabaseMigration(12, "store geometries as WKB instead of Java serialized objects") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				upgradeGeometries(database, "observations", "_id");
+				upgradeGeometries(database, "locations", "_id");
+				upgradeGeometries(database, "staticfeatures", StaticFeature.STATIC_FEATURE_ID);
+			}
+		});
+
+		migrations.add(new DatabaseMigration(13, "store geometry envelopes indexed with R*Trees for spatial queries") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				upgradeEnvelopes(database, "observations", "_id");
+				upgradeEnvelopes(database, "locations", "_id");
+				upgradeEnvelopes(database, "staticfeatures", StaticFeature.STATIC_FEATURE_ID);
+			}
+		});
+
+		migrations.add(new DatabaseMigration(14, "store property values in typed columns instead of Java serialized objects") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				upgradeProperties(database, "observation_properties", "observation_id");
+				upgradeProperties(database, "location_properties", "location_id");
+				upgradeProperties(database, "staticfeature_properties", StaticFeatureProperty.STATIC_FEATURE_ID);
+			}
+		});
+
+		migrations.add(new DatabaseMigration(15, "index observations and locations for keyset pagination") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				for (String index : PAGE_INDEXES) {
+					database.execSQL(index);
+				}
+			}
+		});
+
+		migrations.add(new DatabaseMigration(16, "journal local changes in an outbox") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				upgradeOutbox(database);
+			}
+		});
+
+		migrations.add(new DatabaseMigration(17, "full text search over observation properties") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				database.execSQL(ObservationSearchIndex.CREATE_TABLE);
+				ObservationSearchIndex.populate(database);
+			}
+		});
+
+		migrations.add(new DatabaseMigration(18, "index the helper query shapes") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				for (String index : QUERY_INDEXES) {
+					database.execSQL(index);
+				}
+			}
+		});
+
+		migrations.add(new DatabaseMigration(19, "store simplified static feature geometries per zoom band") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				database.execSQL("CREATE TABLE staticfeature_geometries ("
+						+ "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+						+ StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID + " BIGINT NOT NULL, "
+						+ StaticFeatureGeometry.COLUMN_NAME_MAX_ZOOM + " INTEGER NOT NULL, "
+						+ StaticFeatureGeometry.COLUMN_NAME_GEOMETRY + " BLOB NOT NULL, "
+						+ "UNIQUE (" + StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID + ", " + StaticFeatureGeometry.COLUMN_NAME_MAX_ZOOM + "))");
+			}
+		});
+
+		migrations.add(new DatabaseMigration(20, "cache vector tiles of static feature layers") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				database.execSQL("CREATE TABLE staticfeature_tiles ("
+						+ "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+						+ StaticFeatureTile.COLUMN_NAME_LAYER_ID + " BIGINT NOT NULL, "
+						+ StaticFeatureTile.COLUMN_NAME_ZOOM + " INTEGER NOT NULL, "
+						+ StaticFeatureTile.COLUMN_NAME_X + " INTEGER NOT NULL, "
+						+ StaticFeatureTile.COLUMN_NAME_Y + " INTEGER NOT NULL, "
+						+ StaticFeatureTile.COLUMN_NAME_DATA + " BLOB NOT NULL, "
+						+ "UNIQUE (" + StaticFeatureTile.COLUMN_NAME_LAYER_ID + ", " + StaticFeatureTile.COLUMN_NAME_ZOOM + ", "
+						+ StaticFeatureTile.COLUMN_NAME_X + ", " + StaticFeatureTile.COLUMN_NAME_Y + "))");
+			}
+		});
+
+		migrations.add(new DatabaseMigration(21, "checkpoint paged observation syncs") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				database.execSQL("CREATE TABLE sync_checkpoints ("
+						+ "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+						+ SyncCheckpoint.COLUMN_NAME_NAME + " VARCHAR NOT NULL UNIQUE, "
+						+ SyncCheckpoint.COLUMN_NAME_LAST_MODIFIED + " BIGINT NOT NULL, "
+						+ SyncCheckpoint.COLUMN_NAME_REMOTE_ID + " VARCHAR NOT NULL)");
+			}
+		});
+
+		migrations.add(new DatabaseMigration(22, "store HTTP validators for conditional fetches") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				database.execSQL("CREATE TABLE http_validators ("
+						+ "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+						+ HttpValidator.COLUMN_NAME_NAME + " VARCHAR NOT NULL UNIQUE, "
+						+ HttpValidator.COLUMN_NAME_ETAG + " VARCHAR, "
+						+ HttpValidator.COLUMN_NAME_LAST_MODIFIED + " VARCHAR)");
+			}
+		});
+
+		migrations.add(new DatabaseMigration(23, "index the dirty flags of observation children for pruning") {
+			@Override
+			public void migrate(SQLiteDatabase database) throws Exception {
+				for (String index : QUERY_INDEXES) {
+					database.execSQL(index);
+				}
+			}
+		});
+
+		return migrations;
 	}
 
 	@Override
 	public void onUpgrade(SQLiteDatabase database, ConnectionSource connectionSource, int oldVersion, int newVersion) {
-		resetDatabase();
+		if (oldVersion < MINIMUM_MIGRATION_VERSION) {
+			Log.i(LOG_NAME, "No migrations from database version " + oldVersion + ", resetting database.");
+			resetDatabase();
+			return;
+		}
+
+		try {
+			int version = oldVersion;
+			for (DatabaseMigration migration : getMigrations()) {
+				if (migration.getVersion() <= version || migration.getVersion() > newVersion) {
+					continue;
+				}
+
+				if (migration.getVersion() != version + 1) {
+					throw new IllegalStateException("No migration to database version " + (version + 1));
+				}
+
+				Log.i(LOG_NAME, "Migrating database to " + migration);
+				migration.migrate(database);
+				version = migration.getVersion();
+			}
+
+			if (version != newVersion) {
+				throw new IllegalStateException("No migration to database version " + newVersion);
+			}
+		} catch (Exception e) {
+			// SQLiteOpenHelper rolls the whole upgrade back, the database stays at the old version with its unsynced data
+			Log.e(LOG_NAME, "Could not upgrade database from version " + oldVersion + " to " + newVersion + ".", e);
+			throw new IllegalStateException("Could not upgrade database from version " + oldVersion + " to " + newVersion, e);
+		}
+	}
+
+	/**
+	 * Rewrite Java serialized geometries in a table as WKB.
+	 *
+	 * @param database database
+	 * @param table table with a geometry column
+	 * @param idColumn primary key column of the table
+	 */
+	private void upgradeGeometries(SQLiteDatabase database, String table, String idColumn) throws Exception {
+		Log.i(LOG_NAME, "Upgrading " + table + " geometries to WKB.");
+
+		SQLiteStatement statement = database.compileStatement("UPDATE " + table + " SET geometry = ? WHERE " + idColumn + " = ?");
+		Cursor cursor = database.query(table, new String[] {idColumn, "geometry"}, null, null, null, null, null);
+		try {
+			while (cursor.moveToNext()) {
+				byte[] bytes = cursor.getBlob(1);
+				if (bytes == null || !GeometryPersister.isSerialized(bytes)) {
+					continue;
+				}
+
+				statement.bindBlob(1, GeometryPersister.toBytes(GeometryPersister.toGeometry(bytes)));
+				statement.bindLong(2, cursor.getLong(0));
+				statement.executeUpdateDelete();
+			}
+		} finally {
+			cursor.close();
+			statement.close();
+		}
+	}
+
+	/**
+	 * Add and populate the envelope columns of a table with a geometry, then
+	 * create its R*Tree from them.
+	 *
+	 * @param database database
+	 * @param table table with a geometry column
+	 * @param idColumn primary key column of the table
+	 */
+	private void upgradeEnvelopes(SQLiteDatabase database, String table, String idColumn) throws Exception {
+		Log.i(LOG_NAME, "Adding " + table + " geometry envelopes.");
+
+		String[] columns = {SpatialIndex.COLUMN_NAME_MIN_X, SpatialIndex.COLUMN_NAME_MAX_X, SpatialIndex.COLUMN_NAME_MIN_Y, SpatialIndex.COLUMN_NAME_MAX_Y};
+		for (String column : columns) {
+			database.execSQL("ALTER TABLE " + table + " ADD COLUMN " + column + " DOUBLE PRECISION");
+		}
+
+		SQLiteStatement statement = database.compileStatement("UPDATE " + table + " SET " + TextUtils.join(" = ?, ", columns) + " = ? WHERE " + idColumn + " = ?");
+		Cursor cursor = database.query(table, new String[] {idColumn, "geometry"}, null, null, null, null, null);
+		try {
+			while (cursor.moveToNext()) {
+				byte[] bytes = cursor.getBlob(1);
+				Geometry geometry = bytes == null ? null : GeometryPersister.toGeometry(bytes);
+				if (geometry == null || geometry.isEmpty()) {
+					continue;
+				}
+
+				Envelope envelope = geometry.getEnvelopeInternal();
+				statement.bindDouble(1, envelope.getMinX());
+				statement.bindDouble(2, envelope.getMaxX());
+				statement.bindDouble(3, envelope.getMinY());
+				statement.bindDouble(4, envelope.getMaxY());
+				statement.bindLong(5, cursor.getLong(0));
+				statement.executeUpdateDelete();
+			}
+		} finally {
+			cursor.close();
+			statement.close();
+		}
+
+		createSpatialIndex(getObservationDao(), table, idColumn);
+	}
+
+	/**
+	 * Rebuild a property table with typed value columns.  The old value column
+	 * cannot be null, so the table is recreated and its rows copied over.
+	 *
+	 * @param database database
+	 * @param table property table
+	 * @param foreignColumn column referencing the owner of the property
+	 */
+	private void upgradeProperties(SQLiteDatabase database, String table, String foreignColumn) throws Exception {
+		Log.i(LOG_NAME, "Upgrading " + table + " to typed values.");
+
+		String oldTable = table + "_old";
+		database.execSQL("DROP TABLE IF EXISTS " + oldTable);
+		database.execSQL("ALTER TABLE " + table + " RENAME TO " + oldTable);
+		database.execSQL("CREATE TABLE " + table + " ("
+				+ foreignColumn + " BIGINT, "
+				+ "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+				+ Property.COLUMN_NAME_KEY + " VARCHAR NOT NULL, "
+				+ Property.COLUMN_NAME_TYPE + " VARCHAR NOT NULL, "
+				+ Property.COLUMN_NAME_STRING_VALUE + " VARCHAR, "
+				+ Property.COLUMN_NAME_LONG_VALUE + " BIGINT, "
+				+ Property.COLUMN_NAME_DOUBLE_VALUE + " DOUBLE PRECISION, "
+				+ Property.COLUMN_NAME_VALUE + " BLOB, "
+				+ "UNIQUE (" + foreignColumn + ", " + Property.COLUMN_NAME_KEY + "))");
+
+		SQLiteStatement statement = database.compileStatement("INSERT INTO " + table + " (_id, " + foreignColumn + ", "
+				+ Property.COLUMN_NAME_KEY + ", " + Property.COLUMN_NAME_TYPE + ", " + Property.COLUMN_NAME_STRING_VALUE + ", "
+				+ Property.COLUMN_NAME_LONG_VALUE + ", " + Property.COLUMN_NAME_DOUBLE_VALUE + ", " + Property.COLUMN_NAME_VALUE
+				+ ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+		Cursor cursor = database.query(oldTable, new String[] {"_id", foreignColumn, Property.COLUMN_NAME_KEY, Property.COLUMN_NAME_VALUE}, null, null, null, null, null);
+		try {
+			while (cursor.moveToNext()) {
+				// any property subclass will do, setValue picks the typed columns ORMLite would write
+				Property property = new StaticFeatureProperty(cursor.getString(2), null);
+				byte[] bytes = cursor.getBlob(3);
+				if (bytes != null) {
+					ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes));
+					try {
+						property.setValue((Serializable) objectInputStream.readObject());
+					} finally {
+						objectInputStream.close();
+					}
+				}
+
+				statement.clearBindings();
+				statement.bindLong(1, cursor.getLong(0));
+				if (!cursor.isNull(1)) {
+					statement.bindLong(2, cursor.getLong(1));
+				}
+				statement.bindString(3, property.getKey());
+				statement.bindString(4, property.getType().name());
+				if (property.getStringValue() != null) {
+					statement.bindString(5, property.getStringValue());
+				}
+				if (property.getLongValue() != null) {
+					statement.bindLong(6, property.getLongValue());
+				}
+				if (property.getDoubleValue() != null) {
+					statement.bindDouble(7, property.getDoubleValue());
+				}
+				if (property.getType() == PropertyType.SERIALIZABLE) {
+					statement.bindBlob(8, bytes);
+				}
+				statement.executeInsert();
+			}
+		} finally {
+			cursor.close();
+			statement.close();
+		}
+
+		database.execSQL("DROP TABLE " + oldTable);
+	}
+
+	/**
+	 * Create the outbox and add an entry for every dirty row.
+	 *
+	 * @param database database
+	 */
+	private void upgradeOutbox(SQLiteDatabase database) throws Exception {
+		Log.i(LOG_NAME, "Creating outbox.");
+
+		database.execSQL("CREATE TABLE outbox ("
+				+ "_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+				+ OutboxEntry.COLUMN_NAME_TYPE + " VARCHAR NOT NULL, "
+				+ OutboxEntry.COLUMN_NAME_ENTITY_ID + " BIGINT NOT NULL, "
+				+ OutboxEntry.COLUMN_NAME_PRIORITY + " INTEGER NOT NULL, "
+				+ OutboxEntry.COLUMN_NAME_VERSION + " BIGINT NOT NULL, "
+				+ OutboxEntry.COLUMN_NAME_ATTEMPTS + " INTEGER NOT NULL, "
+				+ OutboxEntry.COLUMN_NAME_CREATED + " BIGINT NOT NULL, "
+				+ "UNIQUE (" + OutboxEntry.COLUMN_NAME_TYPE + ", " + OutboxEntry.COLUMN_NAME_ENTITY_ID + "))");
+		database.execSQL("CREATE INDEX outbox_priority_idx ON outbox (" + OutboxEntry.COLUMN_NAME_PRIORITY + ")");
+
+		upgradeOutbox(database, OutboxType.OBSERVATION, "SELECT _id FROM observations WHERE dirty = 1 ORDER BY _id");
+		upgradeOutbox(database, OutboxType.ATTACHMENT, "SELECT pk_id FROM attachments WHERE dirty = 1 ORDER BY pk_id");
+		upgradeOutbox(database, OutboxType.IMPORTANT, "SELECT o._id FROM observations o JOIN observation_important i ON i.pk_id = o.important_id WHERE i.dirty = 1 ORDER BY o._id");
+		upgradeOutbox(database, OutboxType.FAVORITE, "SELECT pk_id FROM observation_favorites WHERE dirty = 1 ORDER BY pk_id");
+		upgradeOutbox(database, OutboxType.LOCATION, "SELECT _id FROM locations WHERE remote_id IS NULL ORDER BY timestamp");
+	}
+
+	private void upgradeOutbox(SQLiteDatabase database, OutboxType type, String entityIds) {
+		database.execSQL("INSERT INTO outbox (" + OutboxEntry.COLUMN_NAME_TYPE + ", " + OutboxEntry.COLUMN_NAME_ENTITY_ID + ", "
+				+ OutboxEntry.COLUMN_NAME_PRIORITY + ", " + OutboxEntry.COLUMN_NAME_VERSION + ", " + OutboxEntry.COLUMN_NAME_ATTEMPTS + ", "
+				+ OutboxEntry.COLUMN_NAME_CREATED + ") SELECT ?, ids.*, ?, 0, 0, ? FROM (" + entityIds + ") ids",
+				new Object[] {type.name(), type.getPriority(), System.currentTimeMillis()});
 	}
 
 	/**
@@ -211,19 +692,111 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 		try {
 			Log.d(LOG_NAME, "Reseting Database.");
 			dropTables();
-			createTables();
+			createTables(connectionSource);
+			sessionContext = null;
 			Log.d(LOG_NAME, "Reset Database.");
 		} catch (SQLException se) {
 			Log.e(LOG_NAME, "Could not reset Database.", se);
 		}
 	}
 
+	/**
+	 * Size of the pages holding data, free pages left by deletes are not counted.
+	 *
+	 * @return bytes used by the database
+	 */
+	public long getDatabaseSize() {
+		SQLiteDatabase database = getWritableDatabase();
+		long pageSize = DatabaseUtils.longForQuery(database, "PRAGMA page_size", null);
+		long pageCount = DatabaseUtils.longForQuery(database, "PRAGMA page_count", null);
+		long freePageCount = DatabaseUtils.longForQuery(database, "PRAGMA freelist_count", null);
+		return (pageCount - freePageCount) * pageSize;
+	}
+
+	/**
+	 * Returns free pages to the file system.  Databases created before incremental
+	 * vacuum was enabled are rebuilt once with a full vacuum.
+	 *
+	 * Must not be called in a transaction.
+	 */
+	public void vacuum() {
+		SQLiteDatabase database = getWritableDatabase();
+		if (DatabaseUtils.longForQuery(database, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+			Log.i(LOG_NAME, "Enabling incremental vacuum.");
+			database.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+			database.execSQL("VACUUM");
+			return;
+		}
+
+		// each step of the pragma frees one page
+		Cursor cursor = database.rawQuery("PRAGMA incremental_vacuum", null);
+		try {
+			while (cursor.moveToNext()) {
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Getter for the cached session context.  It is dropped when the database
+	 * is reset.
+	 *
+	 * @return the session context, or null if it has to be loaded
+	 */
+	public SessionContext getSessionContext() {
+		return sessionContext;
+	}
+
+	public void setSessionContext(SessionContext sessionContext) {
+		this.sessionContext = sessionContext;
+	}
+
 	@Override
 	public void close() {
 		helperInstance = null;
 		super.close();
 	}
 
+	/**
+	 * Getter for the OutboxDao.
+	 *
+	 * @return This instance's OutboxDao
+	 * @throws SQLException
+	 */
+	public Dao<OutboxEntry, Long> getOutboxDao() throws SQLException {
+		if (outboxDao == null) {
+			outboxDao = getDao(OutboxEntry.class);
+		}
+		return outboxDao;
+	}
+
+	/**
+	 * Getter for the SyncCheckpointDao.
+	 *
+	 * @return This instance's SyncCheckpointDao
+	 * @throws SQLException
+	 */
+	public Dao<SyncCheckpoint, Long> getSyncCheckpointDao() throws SQLException {
+		if (syncCheckpointDao == null) {
+			syncCheckpointDao = getDao(SyncCheckpoint.class);
+		}
+		return syncCheckpointDao;
+	}
+
+	/**
+	 * Getter for the HttpValidatorDao.
+	 *
+	 * @return This instance's HttpValidatorDao
+	 * @throws SQLException
+	 */
+	public Dao<HttpValidator, Long> getHttpValidatorDao() throws SQLException {
+		if (httpValidatorDao == null) {
+			httpValidatorDao = getDao(HttpValidator.class);
+		}
+		return httpValidatorDao;
+	}
+
 	/**
 	 * Getter for the ObservationDao.
 	 * 
@@ -445,4 +1018,30 @@ public class DaoStore extends OrmLiteSqliteOpenHelper {
 		}
 		return staticFeaturePropertyDao;
 	}
+
+	/**
+	 * Getter for the StaticFeatureGeometryDao
+	 *
+	 * @return This instance's StaticFeatureGeometryDao
+	 * @throws SQLException
+	 */
+	public Dao<StaticFeatureGeometry, Long> getStaticFeatureGeometryDao() throws SQLException {
+		if (staticFeatureGeometryDao == null) {
+			staticFeatureGeometryDao = getDao(StaticFeatureGeometry.class);
+		}
+		return staticFeatureGeometryDao;
+	}
+
+	/**
+	 * Getter for the StaticFeatureTileDao
+	 *
+	 * @return This instance's StaticFeatureTileDao
+	 * @throws SQLException
+	 */
+	public Dao<StaticFeatureTile, Long> getStaticFeatureTileDao() throws SQLException {
+		if (staticFeatureTileDao == null) {
+			staticFeatureTileDao = getDao(StaticFeatureTile.class);
+		}
+		return staticFeatureTileDao;
+	}
 }
@@ -0,0 +1,48 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * One step of a database upgrade.  A migration moves the schema and data of
+ * the previous version to {@link #getVersion()} in place, so existing rows,
+ * including unsynced ones, survive the upgrade.
+ *
+ * Migrations run inside the one upgrade transaction opened by SQLiteOpenHelper,
+ * so an upgrade is all or nothing.  If any migration fails, the whole upgrade
+ * is rolled back and the database is left at its old version, data intact,
+ * and opening it fails.
+ */
+public abstract class DatabaseMigration {
+
+	private final int version;
+	private final String description;
+
+	public DatabaseMigration(int version, String description) {
+		this.version = version;
+		this.description = description;
+	}
+
+	/**
+	 * @return database version this migration upgrades to
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	/**
+	 * Upgrade the database from version - 1 to version.
+	 *
+	 * @param database database
+	 * @throws Exception if the migration fails, the upgrade is rolled back
+	 */
+	public abstract void migrate(SQLiteDatabase database) throws Exception;
+
+	@Override
+	public String toString() {
+		return "version " + version + ", " + description;
+	}
+}
@@ -0,0 +1,121 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.field.FieldType;
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.field.types.BaseDataType;
+import com.j256.ormlite.misc.SqlExceptionUtil;
+import com.j256.ormlite.support.DatabaseResults;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.sql.SQLException;
+
+/**
+ * Persists JTS geometries as WKB blobs.
+ *
+ * Rows written before geometries were stored as WKB hold a Java serialized
+ * geometry.  Those are still read, and are rewritten as WKB when the database
+ * is upgraded.
+ *
+ * Usage: @DatabaseField(persisterClass = GeometryPersister.class)
+ */
+public class GeometryPersister extends BaseDataType {
+
+	private static final GeometryPersister singleton = new GeometryPersister();
+
+	public static GeometryPersister getSingleton() {
+		return singleton;
+	}
+
+	private GeometryPersister() {
+		super(SqlType.BYTE_ARRAY, new Class<?>[] { Geometry.class });
+	}
+
+	@Override
+	public Object parseDefaultString(FieldType fieldType, String defaultStr) throws SQLException {
+		throw new SQLException("Default values for geometry types are not supported");
+	}
+
+	@Override
+	public Object resultToSqlArg(FieldType fieldType, DatabaseResults results, int columnPos) throws SQLException {
+		return results.getBytes(columnPos);
+	}
+
+	@Override
+	public Object resultStringToJava(FieldType fieldType, String stringValue, int columnPos) throws SQLException {
+		throw new SQLException("Parsing string value for geometry types is not supported");
+	}
+
+	@Override
+	public Object sqlArgToJava(FieldType fieldType, Object sqlArg, int columnPos) throws SQLException {
+		try {
+			return toGeometry((byte[]) sqlArg);
+		} catch (Exception e) {
+			throw SqlExceptionUtil.create("Could not read geometry from byte array", e);
+		}
+	}
+
+	@Override
+	public Object javaToSqlArg(FieldType fieldType, Object javaObject) throws SQLException {
+		return toBytes((Geometry) javaObject);
+	}
+
+	@Override
+	public boolean isComparable() {
+		return false;
+	}
+
+	@Override
+	public boolean isAppropriateId() {
+		return false;
+	}
+
+	@Override
+	public boolean isArgumentHolderRequired() {
+		return true;
+	}
+
+	/**
+	 * @param geometry geometry
+	 * @return WKB bytes for the geometry
+	 */
+	public static byte[] toBytes(Geometry geometry) {
+		return geometry == null ? null : new WKBWriter().write(geometry);
+	}
+
+	/**
+	 * @param bytes WKB or Java serialized bytes
+	 * @return the geometry
+	 */
+	public static Geometry toGeometry(byte[] bytes) throws IOException, ParseException, ClassNotFoundException {
+		if (bytes == null) {
+			return null;
+		}
+
+		if (isSerialized(bytes)) {
+			ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes));
+			try {
+				return (Geometry) objectInputStream.readObject();
+			} finally {
+				objectInputStream.close();
+			}
+		}
+
+		return new WKBReader().read(bytes);
+	}
+
+	/**
+	 * WKB starts with a byte order marker of 0 or 1, Java serialization starts with 0xACED.
+	 *
+	 * @param bytes stored geometry bytes
+	 * @return true if the bytes are a Java serialized geometry
+	 */
+	public static boolean isSerialized(byte[] bytes) {
+		return bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+	}
+}
@@ -0,0 +1,142 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.Where;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One page of a keyset paginated query, newest first, on (timestamp, _id).
+ *
+ * The token of a page marks the last row returned.  Pass it back to read the
+ * next page, which starts right after that row no matter how many rows were
+ * added or removed in the meantime.  The (event_id, timestamp) indexes cover
+ * these queries, _id is part of every SQLite index as the rowid.
+ */
+public class Page<T> {
+
+	public static final String COLUMN_NAME_TIMESTAMP = "timestamp";
+	public static final String COLUMN_NAME_ID = "_id";
+
+	private static final String TOKEN_SEPARATOR = ":";
+
+	private final List<T> items;
+	private final String nextToken;
+
+	public Page(List<T> items, String nextToken) {
+		this.items = Collections.unmodifiableList(items);
+		this.nextToken = nextToken;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return token to read the next page with, or null if this is the last page
+	 */
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	public boolean hasNext() {
+		return nextToken != null;
+	}
+
+	/**
+	 * Orders a query newest first and limits it to one more row than the page
+	 * size, the extra row tells {@link #of} if there is another page.
+	 *
+	 * @param queryBuilder query
+	 * @param pageSize page size
+	 * @return the query builder
+	 */
+	public static <T, ID> QueryBuilder<T, ID> orderAndLimit(QueryBuilder<T, ID> queryBuilder, int pageSize) {
+		return queryBuilder
+				.orderBy(COLUMN_NAME_TIMESTAMP, false)
+				.orderBy(COLUMN_NAME_ID, false)
+				.limit((long) pageSize + 1);
+	}
+
+	/**
+	 * Adds a single clause for rows after the row a token was made for.  The
+	 * clause is left on the where stack, combine it with the clauses before it
+	 * using {@link Where#and(int)}.
+	 *
+	 * @param where where to add the clause to
+	 * @param token token of the previous page
+	 * @return the where
+	 * @throws SQLException if the token is not valid
+	 */
+	public static <T, ID> Where<T, ID> after(Where<T, ID> where, String token) throws SQLException {
+		String[] keys = token.split(TOKEN_SEPARATOR);
+		if (keys.length != 2) {
+			throw new SQLException("Invalid page token " + token);
+		}
+
+		long timestamp;
+		long id;
+		try {
+			timestamp = Long.parseLong(keys[0]);
+			id = Long.parseLong(keys[1]);
+		} catch (NumberFormatException e) {
+			throw new SQLException("Invalid page token " + token, e);
+		}
+
+		// the timestamp columns are DATE_LONG, which only take dates as arguments
+		Date date = new Date(timestamp);
+		where.lt(COLUMN_NAME_TIMESTAMP, date);
+		where.eq(COLUMN_NAME_TIMESTAMP, date);
+		where.lt(COLUMN_NAME_ID, id);
+		where.and(2);
+		return where.or(2);
+	}
+
+	/**
+	 * @param token token, null for the first page
+	 * @return true if the token is for the first page
+	 */
+	public static boolean isFirst(String token) {
+		return token == null || token.isEmpty();
+	}
+
+	/**
+	 * @param timestamp timestamp of the last row of a page
+	 * @param id id of the last row of a page
+	 * @return token for the next page
+	 */
+	public static String token(Date timestamp, Long id) {
+		return timestamp.getTime() + TOKEN_SEPARATOR + id;
+	}
+
+	/**
+	 * Builds a page from the rows of a query limited with {@link #orderAndLimit}.
+	 *
+	 * @param rows query rows
+	 * @param pageSize page size
+	 * @param keys reads the timestamp and id of the last row
+	 * @return the page
+	 */
+	public static <T> Page<T> of(List<T> rows, int pageSize, Keys<T> keys) {
+		if (rows.size() <= pageSize) {
+			return new Page<>(rows, null);
+		}
+
+		List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+		T last = items.get(pageSize - 1);
+		return new Page<>(items, token(keys.getTimestamp(last), keys.getId(last)));
+	}
+
+	/**
+	 * Reads the keyset of a row.
+	 */
+	public interface Keys<T> {
+		Date getTimestamp(T row);
+
+		Long getId(T row);
+	}
+}
@@ -1,34 +1,68 @@
 package mil.nga.giat.mage.sdk.datastore;
 
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
 import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.stmt.Where;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.sql.SQLException;
+import java.util.ArrayList;
 
 /**
  * Common stuff across observations, locations, static features, etc.
  *
+ * Values are stored in a typed column picked by {@link PropertyType}, so they
+ * can be queried in SQL without deserializing them.
+ *
  * @author wiedemanns
  */
 public abstract class Property {
 
+	public static final String COLUMN_NAME_KEY = "key";
+	public static final String COLUMN_NAME_TYPE = "type";
+	public static final String COLUMN_NAME_STRING_VALUE = "string_value";
+	public static final String COLUMN_NAME_LONG_VALUE = "long_value";
+	public static final String COLUMN_NAME_DOUBLE_VALUE = "double_value";
+	public static final String COLUMN_NAME_VALUE = "value";
+
+	private static final Gson gson = new Gson();
+	private static final Type LIST_TYPE = new TypeToken<ArrayList<String>>(){}.getType();
+
 	@DatabaseField(generatedId = true)
 	private Long _id;
 
-	@DatabaseField(canBeNull = false, uniqueCombo = true)
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_KEY)
 	private String key;
 
-	@DatabaseField(canBeNull = false, dataType = DataType.SERIALIZABLE)
-	private Serializable value;
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_TYPE)
+	private PropertyType type = PropertyType.STRING;
+
+	@DatabaseField(columnName = COLUMN_NAME_STRING_VALUE)
+	private String stringValue;
+
+	@DatabaseField(columnName = COLUMN_NAME_LONG_VALUE)
+	private Long longValue;
+
+	@DatabaseField(columnName = COLUMN_NAME_DOUBLE_VALUE)
+	private Double doubleValue;
+
+	/**
+	 * Only set for {@link PropertyType#SERIALIZABLE} values.
+	 */
+	@DatabaseField(columnName = COLUMN_NAME_VALUE, dataType = DataType.SERIALIZABLE)
+	private Serializable serializableValue;
 
 	public Property() {
 	}
 
 	public Property(String pKey, Serializable pValue) {
 		this.key = pKey;
-		this.value = pValue;
+		setValue(pValue);
 	}
 
 	public Long getId() {
@@ -47,12 +81,115 @@ public abstract class Property {
 		this.key = key;
 	}
 
+	public PropertyType getType() {
+		return type;
+	}
+
+	public String getStringValue() {
+		return stringValue;
+	}
+
+	public Long getLongValue() {
+		return longValue;
+	}
+
+	public Double getDoubleValue() {
+		return doubleValue;
+	}
+
+	/**
+	 * @return the value if its type is {@link PropertyType#SERIALIZABLE}, otherwise null
+	 */
+	public Serializable getSerializableValue() {
+		return serializableValue;
+	}
+
 	public Serializable getValue() {
-		return value;
+		switch (type) {
+			case STRING:
+				return stringValue;
+			case BOOLEAN:
+				return longValue == null ? null : longValue != 0;
+			case INTEGER:
+				return longValue == null ? null : longValue.intValue();
+			case LONG:
+				return longValue;
+			case FLOAT:
+				return doubleValue == null ? null : doubleValue.floatValue();
+			case DOUBLE:
+				return doubleValue;
+			case LIST:
+				return stringValue == null ? null : toList(stringValue);
+			default:
+				return serializableValue;
+		}
+	}
+
+	private static ArrayList<String> toList(String json) {
+		return gson.fromJson(json, LIST_TYPE);
 	}
 
 	public void setValue(Serializable value) {
-		this.value = value;
+		type = PropertyType.of(value);
+		stringValue = null;
+		longValue = null;
+		doubleValue = null;
+		serializableValue = null;
+
+		switch (type) {
+			case STRING:
+				stringValue = (String) value;
+				break;
+			case BOOLEAN:
+				longValue = ((Boolean) value) ? 1L : 0L;
+				break;
+			case INTEGER:
+			case LONG:
+				longValue = ((Number) value).longValue();
+				break;
+			case FLOAT:
+			case DOUBLE:
+				doubleValue = ((Number) value).doubleValue();
+				break;
+			case LIST:
+				stringValue = gson.toJson(value, LIST_TYPE);
+				break;
+			default:
+				serializableValue = value;
+				break;
+		}
+	}
+
+	/**
+	 * Adds a key and value clause to a where on a property table.  Integral and
+	 * boolean values are compared in the long column, decimal values in the
+	 * double column and strings and lists in the string column.
+	 *
+	 * @param where where to add the clause to
+	 * @param key property key
+	 * @param value property value
+	 * @return the where
+	 * @throws SQLException if the value type cannot be compared in SQL
+	 */
+	public static <T, ID> Where<T, ID> keyValueEq(Where<T, ID> where, String key, Serializable value) throws SQLException {
+		where.eq(COLUMN_NAME_KEY, key).and();
+
+		switch (PropertyType.of(value)) {
+			case STRING:
+				return value == null ? where.isNull(COLUMN_NAME_STRING_VALUE) : where.eq(COLUMN_NAME_STRING_VALUE, value);
+			case BOOLEAN:
+				return where.eq(COLUMN_NAME_LONG_VALUE, ((Boolean) value) ? 1L : 0L);
+			case INTEGER:
+			case LONG:
+				return where.eq(COLUMN_NAME_LONG_VALUE, ((Number) value).longValue());
+			case FLOAT:
+			case DOUBLE:
+				return where.eq(COLUMN_NAME_DOUBLE_VALUE, ((Number) value).doubleValue());
+			case LIST:
+				return where.eq(COLUMN_NAME_STRING_VALUE, gson.toJson(value, LIST_TYPE));
+			default:
+				throw new SQLException("Cannot query property values of type " + value.getClass().getName());
+		}
 	}
 
 	@Override
@@ -0,0 +1,65 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * How a {@link Property} value is stored.  Each type maps to one typed column
+ * so property values can be filtered and sorted in SQL.
+ */
+public enum PropertyType {
+
+	/** Stored in the string value column. */
+	STRING,
+
+	/** Stored in the long value column as 0 or 1. */
+	BOOLEAN,
+
+	/** Stored in the long value column. */
+	INTEGER,
+
+	/** Stored in the long value column. */
+	LONG,
+
+	/** Stored in the double value column. */
+	FLOAT,
+
+	/** Stored in the double value column. */
+	DOUBLE,
+
+	/** List of strings, stored in the string value column as a JSON array. */
+	LIST,
+
+	/** Anything else, Java serialized in the value column. */
+	SERIALIZABLE;
+
+	public static PropertyType of(Serializable value) {
+		if (value == null || value instanceof String) {
+			return STRING;
+		} else if (value instanceof Boolean) {
+			return BOOLEAN;
+		} else if (value instanceof Integer) {
+			return INTEGER;
+		} else if (value instanceof Long) {
+			return LONG;
+		} else if (value instanceof Float) {
+			return FLOAT;
+		} else if (value instanceof Double) {
+			return DOUBLE;
+		} else if (value instanceof List && isStringList((List<?>) value)) {
+			return LIST;
+		}
+
+		return SERIALIZABLE;
+	}
+
+	private static boolean isStringList(List<?> list) {
+		for (Object item : list) {
+			if (item != null && !(item instanceof String)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
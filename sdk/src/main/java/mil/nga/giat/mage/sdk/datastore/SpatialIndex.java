@@ -0,0 +1,139 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.field.SqlType;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SQL of the spatial index of the tables whose entities extend {@link Bounded}.
+ * An SQLite R*Tree named after the table, keyed by the row id, indexes the
+ * envelope columns so a viewport query only visits rows whose envelope
+ * intersects the viewport.  Triggers keep the R*Tree in step with the
+ * envelope columns, whether a row is written through ORMLite or raw SQL.
+ *
+ * SQLite builds without the R*Tree module get a plain table of the same shape
+ * instead, so queries are unchanged and fall back to a scan.
+ */
+public final class SpatialIndex {
+
+	public static final String COLUMN_NAME_MIN_X = "min_x";
+	public static final String COLUMN_NAME_MAX_X = "max_x";
+	public static final String COLUMN_NAME_MIN_Y = "min_y";
+	public static final String COLUMN_NAME_MAX_Y = "max_y";
+
+	private static final String COLUMNS = COLUMN_NAME_MIN_X + ", " + COLUMN_NAME_MAX_X + ", " + COLUMN_NAME_MIN_Y + ", " + COLUMN_NAME_MAX_Y;
+
+	private SpatialIndex() {
+	}
+
+	/**
+	 * @param table table with envelope columns
+	 * @return name of the R*Tree of the table
+	 */
+	public static String getTableName(String table) {
+		return table + "_rtree";
+	}
+
+	/**
+	 * Statements that create the R*Tree of a table and the triggers that keep
+	 * it in step, then fill it from the envelopes already in the table.
+	 *
+	 * @param table table with envelope columns
+	 * @param idColumn integer primary key column of the table
+	 * @param virtual false to create a plain table for SQLite builds without the R*Tree module
+	 * @return statements to execute in order
+	 */
+	public static List<String> getCreateStatements(String table, String idColumn, boolean virtual) {
+		String rtree = getTableName(table);
+		String row = "new." + idColumn + ", new." + COLUMN_NAME_MIN_X + ", new." + COLUMN_NAME_MAX_X + ", new." + COLUMN_NAME_MIN_Y + ", new." + COLUMN_NAME_MAX_Y;
+
+		return Arrays.asList(
+				virtual ?
+						"CREATE VIRTUAL TABLE " + rtree + " USING rtree(id, " + COLUMNS + ")" :
+						"CREATE TABLE " + rtree + " (id INTEGER PRIMARY KEY, " + COLUMN_NAME_MIN_X + " REAL, " + COLUMN_NAME_MAX_X + " REAL, " + COLUMN_NAME_MIN_Y + " REAL, " + COLUMN_NAME_MAX_Y + " REAL)",
+				"CREATE TRIGGER " + rtree + "_insert AFTER INSERT ON " + table + " WHEN new." + COLUMN_NAME_MIN_X + " IS NOT NULL BEGIN "
+						+ "INSERT OR REPLACE INTO " + rtree + " VALUES (" + row + "); END",
+				"CREATE TRIGGER " + rtree + "_update AFTER UPDATE OF " + COLUMNS + " ON " + table + " BEGIN "
+						+ "DELETE FROM " + rtree + " WHERE id = old." + idColumn + "; "
+						+ "INSERT INTO " + rtree + " SELECT " + row + " WHERE new." + COLUMN_NAME_MIN_X + " IS NOT NULL; END",
+				"CREATE TRIGGER " + rtree + "_delete AFTER DELETE ON " + table + " BEGIN "
+						+ "DELETE FROM " + rtree + " WHERE id = old." + idColumn + "; END",
+				"INSERT INTO " + rtree + " SELECT " + idColumn + ", " + COLUMNS + " FROM " + table + " WHERE " + COLUMN_NAME_MIN_X + " IS NOT NULL");
+	}
+
+	/**
+	 * Statement that drops the R*Tree of a table.  Its triggers are dropped
+	 * with the table they are on.
+	 *
+	 * @param table table with envelope columns
+	 * @return statement to execute
+	 */
+	public static String getDropStatement(String table) {
+		return "DROP TABLE IF EXISTS " + getTableName(table);
+	}
+
+	/**
+	 * Adds an envelope intersection clause to a where, matching rows through
+	 * the R*Tree of the table.  The R*Tree stores boxes in single precision
+	 * rounded outwards, so the envelope columns of the matches are compared
+	 * as well.
+	 *
+	 * @param where where to add the clause to
+	 * @param table table queried by the where
+	 * @param idColumn integer primary key column of the table
+	 * @param envelope envelope to intersect
+	 * @return the where
+	 * @throws SQLException
+	 */
+	public static <T, ID> Where<T, ID> intersects(Where<T, ID> where, String table, String idColumn, Envelope envelope) throws SQLException {
+		where.raw("`" + idColumn + "` IN (SELECT id FROM " + getTableName(table) + " WHERE "
+						+ COLUMN_NAME_MIN_X + " <= ? AND " + COLUMN_NAME_MAX_X + " >= ? AND " + COLUMN_NAME_MIN_Y + " <= ? AND " + COLUMN_NAME_MAX_Y + " >= ?)",
+				new SelectArg(SqlType.DOUBLE, envelope.getMaxX()),
+				new SelectArg(SqlType.DOUBLE, envelope.getMinX()),
+				new SelectArg(SqlType.DOUBLE, envelope.getMaxY()),
+				new SelectArg(SqlType.DOUBLE, envelope.getMinY()));
+		where.le(COLUMN_NAME_MIN_X, envelope.getMaxX());
+		where.ge(COLUMN_NAME_MAX_X, envelope.getMinX());
+		where.le(COLUMN_NAME_MIN_Y, envelope.getMaxY());
+		where.ge(COLUMN_NAME_MAX_Y, envelope.getMinY());
+		return where.and(5);
+	}
+
+	/**
+	 * Raw SQL form of {@link #intersects(Where, String, String, Envelope)} for
+	 * queries ORMLite cannot build, bound with {@link #getIntersectsArguments(Envelope)}.
+	 *
+	 * @param table table queried
+	 * @param alias alias of the table in the query
+	 * @param idColumn integer primary key column of the table
+	 * @return envelope intersection clause
+	 */
+	public static String getIntersectsClause(String table, String alias, String idColumn) {
+		return alias + "." + idColumn + " IN (SELECT id FROM " + getTableName(table) + " WHERE " + getBoundsClause("") + ")"
+				+ " AND " + getBoundsClause(alias + ".");
+	}
+
+	private static String getBoundsClause(String prefix) {
+		return prefix + COLUMN_NAME_MIN_X + " <= CAST(? AS REAL) AND " + prefix + COLUMN_NAME_MAX_X + " >= CAST(? AS REAL) AND "
+				+ prefix + COLUMN_NAME_MIN_Y + " <= CAST(? AS REAL) AND " + prefix + COLUMN_NAME_MAX_Y + " >= CAST(? AS REAL)";
+	}
+
+	/**
+	 * @param envelope envelope to intersect
+	 * @return arguments of {@link #getIntersectsClause(String, String, String)}
+	 */
+	public static String[] getIntersectsArguments(Envelope envelope) {
+		String[] bounds = {
+				String.valueOf(envelope.getMaxX()), String.valueOf(envelope.getMinX()),
+				String.valueOf(envelope.getMaxY()), String.valueOf(envelope.getMinY())
+		};
+		String[] arguments = Arrays.copyOf(bounds, bounds.length * 2);
+		System.arraycopy(bounds, 0, arguments, bounds.length, bounds.length);
+		return arguments;
+	}
+}
@@ -11,8 +11,10 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureHelper;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidatorHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.event.ILayerEventListener;
@@ -30,7 +32,13 @@ public class LayerHelper extends DaoHelper<Layer> implements IEventDispatcher<IL
 
     private static final String LOG_NAME = LayerHelper.class.getName();
 
+    /**
+     * Prefix of the HTTP validator names of the layers of each event.
+     */
+    public static final String HTTP_VALIDATOR_PREFIX = "layers/";
+
     private final Dao<Layer, Long> layerDao;
+    private final CompiledQuery<Layer, Long> readByRemoteId;
 
     private Collection<ILayerEventListener> listeners = new CopyOnWriteArrayList<ILayerEventListener>();
     
@@ -67,6 +75,7 @@ public class LayerHelper extends DaoHelper<Layer> implements IEventDispatcher<IL
 
         try {
             layerDao = daoStore.getLayerDao();
+            readByRemoteId = CompiledQuery.byRemoteId(layerDao);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to communicate with Layers database.", sqle);
 
@@ -114,7 +123,7 @@ public class LayerHelper extends DaoHelper<Layer> implements IEventDispatcher<IL
 	public Layer read(String pRemoteId) throws LayerException {
 		Layer layer = null;
 		try {
-			List<Layer> results = layerDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
+			List<Layer> results = readByRemoteId.query(pRemoteId);
 			if (results != null && results.size() > 0) {
 				layer = results.get(0);
 			}
@@ -175,6 +184,9 @@ public class LayerHelper extends DaoHelper<Layer> implements IEventDispatcher<IL
 		for(Layer layer : readAll()) {
 			delete(layer.getId());
 		}
+
+		// the layers of every event have to be fetched again, not only the current one
+		HttpValidatorHelper.getInstance(mApplicationContext).deleteByPrefix(HTTP_VALIDATOR_PREFIX);
     }
 
     @Override
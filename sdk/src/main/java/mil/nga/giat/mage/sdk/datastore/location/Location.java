@@ -19,11 +19,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 import mil.nga.giat.mage.sdk.Temporal;
+import mil.nga.giat.mage.sdk.datastore.Bounded;
+import mil.nga.giat.mage.sdk.datastore.GeometryPersister;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 
 @DatabaseTable(tableName = "locations")
-public class Location implements Comparable<Location>, Temporal {
+public class Location extends Bounded implements Comparable<Location>, Temporal {
 
 	// name _id needed for cursor adapters
 	@DatabaseField(generatedId = true)
@@ -53,7 +55,7 @@ public class Location implements Comparable<Location>, Temporal {
 	@ForeignCollectionField(eager = true)
 	private Collection<LocationProperty> properties  = new ArrayList<LocationProperty>();
 
-	@DatabaseField(canBeNull = false, dataType = DataType.SERIALIZABLE)
+	@DatabaseField(canBeNull = false, persisterClass = GeometryPersister.class)
 	private Geometry geometry;
 
 	@DatabaseField(canBeNull = false, foreign = true, foreignAutoRefresh = true)
@@ -74,7 +76,7 @@ public class Location implements Comparable<Location>, Temporal {
 		this.lastModified = lastModified;
 		this.type = type;
 		this.properties = properties;
-		this.geometry = geometry;
+		setGeometry(geometry);
 		this.timestamp = timestamp;
 		this.event = event;
 	}
@@ -142,6 +144,8 @@ public class Location implements Comparable<Location>, Temporal {
 
 	public void setGeometry(Geometry geometry) {
 		this.geometry = geometry;
+
+		setEnvelope(geometry);
 	}
 	
 	/**
@@ -7,24 +7,33 @@ import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.misc.TransactionManager;
 import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
-import com.j256.ormlite.stmt.Where;
+import com.vividsolutions.jts.geom.Envelope;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
+import mil.nga.giat.mage.sdk.datastore.Page;
 import mil.nga.giat.mage.sdk.datastore.DaoStore;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxEntry;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.event.ILocationEventListener;
+import mil.nga.giat.mage.sdk.event.ILocationPurgeListener;
 import mil.nga.giat.mage.sdk.exceptions.LocationException;
 import mil.nga.giat.mage.sdk.exceptions.UserException;
 
@@ -40,8 +49,27 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 
 	private static final String LOG_NAME = LocationHelper.class.getName();
 
+	// locations deleted per statement, ORMLite inlines the ids so this only keeps the statements short
+	private static final int DELETE_BATCH_SIZE = 500;
+
+	private static final Page.Keys<Location> PAGE_KEYS = new Page.Keys<Location>() {
+		@Override
+		public Date getTimestamp(Location location) {
+			return location.getTimestamp();
+		}
+
+		@Override
+		public Long getId(Location location) {
+			return location.getId();
+		}
+	};
+
 	private final Dao<Location, Long> locationDao;
+	private final CompiledQuery<Location, Long> readByRemoteId;
+	private final ConcurrentMap<String, CompiledQuery<Location, Long>> userLocationQueries = new ConcurrentHashMap<>();
 	private final Dao<LocationProperty, Long> locationPropertyDao;
+	private final OutboxHelper outboxHelper;
+	private final LocationQueries queries;
 	
 	private Collection<ILocationEventListener> listeners = new CopyOnWriteArrayList<ILocationEventListener>();
 
@@ -78,7 +106,10 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 				
 		try {
 			locationDao = daoStore.getLocationDao();
+			readByRemoteId = CompiledQuery.byRemoteId(locationDao);
 			locationPropertyDao = daoStore.getLocationPropertyDao();
+			queries = new LocationQueries(locationDao);
+			outboxHelper = OutboxHelper.getInstance(context);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with Location database.", sqle);
 
@@ -105,6 +136,9 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 							locationPropertyDao.create(locationProperty);
 						}
 					}
+					if (createdLocation.getRemoteId() == null) {
+						outboxHelper.add(OutboxType.LOCATION, createdLocation.getId());
+					}
 					for (ILocationEventListener listener : listeners) {
 						listener.onLocationCreated(Collections.singletonList(createdLocation));
 					}
@@ -133,10 +167,7 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
     public Location read(String pRemoteId) throws LocationException {
         Location location = null;
         try {
-            List<Location> results = locationDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
-            if (results != null && results.size() > 0) {
-                location = results.get(0);
-            }
+            location = readByRemoteId.queryForFirst(pRemoteId);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
             throw new LocationException("Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
@@ -236,24 +267,102 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 	
 	public List<Location> getUserLocations(Long userId, Context context, long limit, boolean includeRemote) {
 		List<Location> locations = new ArrayList<Location>();
-		QueryBuilder<Location, Long> queryBuilder = locationDao.queryBuilder();
 		try {
-			if (limit > 0) {
-				queryBuilder.limit(limit);
-				// most recent first!
-				queryBuilder.orderBy("timestamp", false);
+			locations = readUserLocations(limit, includeRemote).query(userId);
+		} catch (SQLException e) {
+			Log.e(LOG_NAME, "Could not get current users Locations.");
+		}
+		return locations;
+	}
+
+	/**
+	 * The limit is part of the SQL, so a query is compiled per limit and
+	 * includeRemote pair.  Callers use a handful of constant limits.
+	 */
+	private CompiledQuery<Location, Long> readUserLocations(final long limit, final boolean includeRemote) {
+		String key = limit + ":" + includeRemote;
+		CompiledQuery<Location, Long> query = userLocationQueries.get(key);
+		if (query == null) {
+			query = new CompiledQuery<>(locationDao, 1, LocationQueries.userLocations(limit, includeRemote));
+			CompiledQuery<Location, Long> existing = userLocationQueries.putIfAbsent(key, query);
+			if (existing != null) {
+				query = existing;
 			}
-			Where<Location, Long> where = queryBuilder.where().eq("user_id", userId);
-			if(!includeRemote) {
-				where.and().isNull("remote_id");
+		}
+		return query;
+	}
+
+	/**
+	 * Locations of the current user waiting in the outbox to be pushed, oldest
+	 * first.
+	 *
+	 * @param limit maximum number of locations
+	 * @return locations to push
+	 */
+	public List<Location> getOutboxLocations(long limit) {
+		List<Location> locations = new ArrayList<Location>();
+
+		User currentUser = null;
+		try {
+			currentUser = UserHelper.getInstance(context.getApplicationContext()).readCurrentUser();
+		} catch (UserException e) {
+			e.printStackTrace();
+		}
+		if (currentUser == null) {
+			return locations;
+		}
+
+		try {
+			for (OutboxEntry entry : outboxHelper.read(limit, OutboxType.LOCATION, queries.userLocationIds(currentUser.getId()))) {
+				Location location = locationDao.queryForId(entry.getEntityId());
+				if (location == null || location.getRemoteId() != null) {
+					// deleted or pushed by other means
+					outboxHelper.remove(entry);
+				} else {
+					locations.add(location);
+				}
 			}
-			locations = locationDao.query(queryBuilder.prepare());
 		} catch (SQLException e) {
-			Log.e(LOG_NAME, "Could not get current users Locations.");
+			Log.e(LOG_NAME, "Could not get outbox Locations.", e);
 		}
 		return locations;
 	}
 	
+	/**
+	 * Reads the locations in an event whose geometry envelope intersects the given envelope.
+	 *
+	 * @param envelope envelope to query, i.e. the map viewport
+	 * @param event event to query
+	 * @return locations that intersect the envelope
+	 * @throws LocationException
+	 */
+	public List<Location> queryByEnvelope(Envelope envelope, Event event) throws LocationException {
+		try {
+			return queries.byEnvelope(envelope, event).query();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to query locations in envelope " + envelope, sqle);
+			throw new LocationException("Unable to query locations in envelope " + envelope, sqle);
+		}
+	}
+
+	/**
+	 * Read a page of the locations in an event, newest first.
+	 *
+	 * @param event event
+	 * @param token next token of the previous page, or null for the first page
+	 * @param pageSize maximum number of locations in the page
+	 * @return the page
+	 * @throws LocationException
+	 */
+	public Page<Location> readPage(Event event, String token, int pageSize) throws LocationException {
+		try {
+			return Page.of(queries.page(event, token, pageSize).query(), pageSize, PAGE_KEYS);
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to read page of locations for event " + event.getName(), sqle);
+			throw new LocationException("Unable to read page of locations for event " + event.getName(), sqle);
+		}
+	}
+
 	/**
 	 * This will delete the user's location(s) that have remote_ids. Locations
 	 * that do NOT have remote_ids have not been sync'ed w/ the server.
@@ -293,18 +402,136 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 	 *            The event to remove locations for
 	 * @throws LocationException
 	 */
-	public void deleteLocations(Event event) throws LocationException {
+	public void deleteLocations(final Event event) throws LocationException {
 		Log.e(LOG_NAME, "Deleting locations for event "  + event.getName());
 
 		try {
-			QueryBuilder<Location, Long> qb = locationDao.queryBuilder();
-			qb.where().eq("event_id", event.getId());
-			List<Location> locations = qb.query();
-			delete(locations);
+			QueryBuilder<Location, Long> locationIds = locationDao.queryBuilder().selectColumns("_id");
+			locationIds.where().eq("event_id", event.getId());
+			purge(locationIds);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to delete locations for an event", sqle);
 			throw new LocationException("Unable to delete locations for an event", sqle);
 		}
+
+		fireLocationsDeleted(event);
+	}
+
+	/**
+	 * Deletes pushed locations in an event older than a date.
+	 *
+	 * @param event event
+	 * @param date delete locations before this date
+	 * @return number of locations deleted
+	 * @throws LocationException
+	 */
+	public int deleteOlderThan(Event event, Date date) throws LocationException {
+		try {
+			return purge(event, queries.olderThanIds(event, date));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete locations older than " + date, sqle);
+			throw new LocationException("Unable to delete locations older than " + date, sqle);
+		}
+	}
+
+	/**
+	 * Deletes the oldest pushed locations in an event.
+	 *
+	 * @param event event
+	 * @param count maximum number of locations to delete
+	 * @return number of locations deleted
+	 * @throws LocationException
+	 */
+	public int deleteOldest(Event event, long count) throws LocationException {
+		try {
+			return purge(event, queries.oldestIds(event, count));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete oldest locations", sqle);
+			throw new LocationException("Unable to delete oldest locations", sqle);
+		}
+	}
+
+	/**
+	 * Deletes all but the newest pushed locations of each user in an event.
+	 *
+	 * @param event event
+	 * @param count number of locations to keep per user
+	 * @return number of locations deleted
+	 * @throws LocationException
+	 */
+	public int trimUserLocations(Event event, long count) throws LocationException {
+		if (count <= 0) {
+			return 0;
+		}
+
+		int deleted = 0;
+		try {
+			for (String[] user : queries.usersOver(event, count).queryRaw().getResults()) {
+				Long userId = Long.valueOf(user[0]);
+
+				// the oldest location to keep
+				Location last = queries.oldestKept(userId, event, count).queryForFirst();
+				if (last == null) {
+					continue;
+				}
+
+				deleted += purge(queries.olderThanIds(userId, event, last));
+			}
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to trim user locations", sqle);
+			throw new LocationException("Unable to trim user locations", sqle);
+		}
+
+		if (deleted > 0) {
+			fireLocationsDeleted(event);
+		}
+
+		return deleted;
+	}
+
+	/**
+	 * Tells the listeners that track set based deletes that locations in an event were deleted.
+	 */
+	private void fireLocationsDeleted(Event event) {
+		for (ILocationEventListener listener : listeners) {
+			if (listener instanceof ILocationPurgeListener) {
+				((ILocationPurgeListener) listener).onLocationsDeleted(event);
+			}
+		}
+	}
+
+	private int purge(Event event, QueryBuilder<Location, Long> locationIds) throws SQLException {
+		int deleted = purge(locationIds);
+		if (deleted > 0) {
+			fireLocationsDeleted(event);
+		}
+
+		return deleted;
+	}
+
+	/**
+	 * Deletes locations, their properties and their pending pushes in one
+	 * transaction.
+	 *
+	 * @param locationIds query selecting the _id of the locations to delete
+	 * @return number of locations deleted
+	 * @throws SQLException
+	 */
+	private int purge(final QueryBuilder<Location, Long> locationIds) throws SQLException {
+		return TransactionManager.callInTransaction(DaoStore.getInstance(context).getConnectionSource(), new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				DeleteBuilder<LocationProperty, Long> propertyDeleteBuilder = locationPropertyDao.deleteBuilder();
+				propertyDeleteBuilder.where().in("location_id", locationIds);
+				propertyDeleteBuilder.delete();
+
+				outboxHelper.remove(OutboxType.LOCATION, locationIds);
+
+				DeleteBuilder<Location, Long> locationDeleteBuilder = locationDao.deleteBuilder();
+				locationDeleteBuilder.where().in("_id", locationIds);
+				return locationDeleteBuilder.delete();
+			}
+		});
 	}
 
 	/**
@@ -320,21 +547,22 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 			deletedLocations = TransactionManager.callInTransaction(DaoStore.getInstance(context).getConnectionSource(), new Callable<List<Location>>() {
 				@Override
 				public List<Location> call() throws Exception {
-					// read the full Location in
 					List<Location> deletedLocations = new ArrayList<Location>();
-					for(Location location : locations) {
-						// delete Location properties.
-						Collection<LocationProperty> properties = location.getProperties();
-						if (properties != null) {
-							for (LocationProperty property : properties) {
-								locationPropertyDao.deleteById(property.getId());
-							}
+					List<Location> chunk = new ArrayList<Location>(DELETE_BATCH_SIZE);
+					for (Location location : locations) {
+						chunk.add(location);
+						if (chunk.size() == DELETE_BATCH_SIZE) {
+							deleteChunk(chunk);
+							deletedLocations.addAll(chunk);
+							chunk.clear();
 						}
+					}
 
-						// finally, delete the Location.
-						locationDao.deleteById(location.getId());
-						deletedLocations.add(location);
+					if (!chunk.isEmpty()) {
+						deleteChunk(chunk);
+						deletedLocations.addAll(chunk);
 					}
+
 					return deletedLocations;
 				}
 			});
@@ -348,11 +576,36 @@ public class LocationHelper extends DaoHelper<Location> implements IEventDispatc
 		}
 	}
 	
+	/**
+	 * Deletes locations, their properties and their pending pushes with one
+	 * statement per table.
+	 *
+	 * @param locations at most DELETE_BATCH_SIZE locations
+	 * @throws SQLException
+	 */
+	private void deleteChunk(Collection<Location> locations) throws SQLException {
+		List<Long> ids = new ArrayList<Long>(locations.size());
+		for (Location location : locations) {
+			ids.add(location.getId());
+		}
+
+		DeleteBuilder<LocationProperty, Long> propertyDeleteBuilder = locationPropertyDao.deleteBuilder();
+		propertyDeleteBuilder.where().in("location_id", ids);
+		propertyDeleteBuilder.delete();
+
+		outboxHelper.remove(OutboxType.LOCATION, ids);
+
+		DeleteBuilder<Location, Long> locationDeleteBuilder = locationDao.deleteBuilder();
+		locationDeleteBuilder.where().in("_id", ids);
+		locationDeleteBuilder.delete();
+	}
+
 	public void deleteAll() throws UserException {
 
 		try {
 			DeleteBuilder<Location, Long> db = locationDao.deleteBuilder();
 			db.delete();
+			outboxHelper.removeAll(OutboxType.LOCATION);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem deleting locations.", sqle);
 			throw new UserException("There was a problem deleting locations.", sqle);
@@ -0,0 +1,135 @@
+package mil.nga.giat.mage.sdk.datastore.location;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.sql.SQLException;
+import java.util.Date;
+
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
+import mil.nga.giat.mage.sdk.datastore.Page;
+import mil.nga.giat.mage.sdk.datastore.SpatialIndex;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * Builds the queries of the {@link LocationHelper}.  The helper runs them,
+ * the query plan tests explain them against the schema DaoStore creates.
+ */
+class LocationQueries {
+
+	private final Dao<Location, Long> locationDao;
+
+	LocationQueries(Dao<Location, Long> locationDao) {
+		this.locationDao = locationDao;
+	}
+
+	/**
+	 * @param limit maximum number of locations, most recent first, or 0 for all
+	 * @param includeRemote false for the locations that have not been pushed only
+	 * @return builder of the query for the locations of the user id passed as its argument
+	 */
+	static CompiledQuery.Builder<Location, Long> userLocations(final long limit, final boolean includeRemote) {
+		return new CompiledQuery.Builder<Location, Long>() {
+			@Override
+			public void build(QueryBuilder<Location, Long> queryBuilder, SelectArg... args) throws SQLException {
+				if (limit > 0) {
+					queryBuilder.limit(limit);
+					// most recent first!
+					queryBuilder.orderBy("timestamp", false);
+				}
+				Where<Location, Long> where = queryBuilder.where().eq("user_id", args[0]);
+				if (!includeRemote) {
+					where.and().isNull("remote_id");
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return _id of the locations of the user
+	 */
+	QueryBuilder<Location, Long> userLocationIds(Long userId) throws SQLException {
+		QueryBuilder<Location, Long> userLocationIds = locationDao.queryBuilder().selectColumns("_id");
+		userLocationIds.where().eq("user_id", userId);
+		return userLocationIds;
+	}
+
+	/**
+	 * @return locations in the event whose geometry envelope intersects the envelope
+	 */
+	QueryBuilder<Location, Long> byEnvelope(Envelope envelope, Event event) throws SQLException {
+		QueryBuilder<Location, Long> queryBuilder = locationDao.queryBuilder();
+		SpatialIndex.intersects(queryBuilder.where(), "locations", "_id", envelope).and().eq("event_id", event.getId());
+		return queryBuilder;
+	}
+
+	/**
+	 * @param token next token of the previous page, or null for the first page
+	 * @return page of the locations in the event, newest first
+	 */
+	QueryBuilder<Location, Long> page(Event event, String token, int pageSize) throws SQLException {
+		QueryBuilder<Location, Long> queryBuilder = Page.orderAndLimit(locationDao.queryBuilder(), pageSize);
+		Where<Location, Long> where = queryBuilder.where();
+		where.eq("event_id", event.getId());
+		if (!Page.isFirst(token)) {
+			Page.after(where, token);
+			where.and(2);
+		}
+		return queryBuilder;
+	}
+
+	/**
+	 * @return _id of the pushed locations in the event older than the date
+	 */
+	QueryBuilder<Location, Long> olderThanIds(Event event, Date date) throws SQLException {
+		QueryBuilder<Location, Long> locationIds = locationDao.queryBuilder().selectColumns("_id");
+		locationIds.where().eq("event_id", event.getId()).and().lt("timestamp", date).and().isNotNull("remote_id");
+		return locationIds;
+	}
+
+	/**
+	 * @return _id of the oldest pushed locations in the event
+	 */
+	QueryBuilder<Location, Long> oldestIds(Event event, long count) throws SQLException {
+		QueryBuilder<Location, Long> locationIds = locationDao.queryBuilder().selectColumns("_id");
+		locationIds.orderBy("timestamp", true).orderBy("_id", true).limit(count);
+		locationIds.where().eq("event_id", event.getId()).and().isNotNull("remote_id");
+		return locationIds;
+	}
+
+	/**
+	 * @return user_id of the users with more than count pushed locations in the event
+	 */
+	QueryBuilder<Location, Long> usersOver(Event event, long count) throws SQLException {
+		QueryBuilder<Location, Long> users = locationDao.queryBuilder().selectColumns("user_id").groupBy("user_id").having("COUNT(*) > " + count);
+		users.where().eq("event_id", event.getId()).and().isNotNull("remote_id");
+		return users;
+	}
+
+	/**
+	 * @return _id and timestamp of the oldest of the newest count pushed locations of the user in the event
+	 */
+	QueryBuilder<Location, Long> oldestKept(Long userId, Event event, long count) throws SQLException {
+		QueryBuilder<Location, Long> queryBuilder = locationDao.queryBuilder().selectColumns("_id", "timestamp");
+		queryBuilder.orderBy("timestamp", false).orderBy("_id", false).offset(count - 1).limit(1L);
+		queryBuilder.where().eq("user_id", userId).and().eq("event_id", event.getId()).and().isNotNull("remote_id");
+		return queryBuilder;
+	}
+
+	/**
+	 * @return _id of the pushed locations of the user in the event older than the location
+	 */
+	QueryBuilder<Location, Long> olderThanIds(Long userId, Event event, Location location) throws SQLException {
+		QueryBuilder<Location, Long> locationIds = locationDao.queryBuilder().selectColumns("_id");
+		Where<Location, Long> where = locationIds.where();
+		where.eq("user_id", userId);
+		where.eq("event_id", event.getId());
+		where.isNotNull("remote_id");
+		Page.after(where, Page.token(location.getTimestamp(), location.getId()));
+		where.and(4);
+		return locationIds;
+	}
+}
@@ -24,7 +24,11 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxEntry;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.event.IAttachmentEventListener;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.exceptions.ObservationException;
@@ -37,6 +41,7 @@ public class AttachmentHelper extends DaoHelper<Attachment> implements IEventDis
 	private static final SecureRandom random = new SecureRandom();
 
 	private final Dao<Attachment, Long> attachmentDao;
+	private final CompiledQuery<Attachment, Long> readByRemoteId;
 
 	private Collection<IAttachmentEventListener> listeners = new CopyOnWriteArrayList<IAttachmentEventListener>();
 
@@ -71,6 +76,7 @@ public class AttachmentHelper extends DaoHelper<Attachment> implements IEventDis
 		try {
 			// Set up DAOs
 			attachmentDao = daoStore.getAttachmentDao();
+			readByRemoteId = CompiledQuery.byRemoteId(attachmentDao);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with Attachment database.", sqle);
 
@@ -95,7 +101,7 @@ public class AttachmentHelper extends DaoHelper<Attachment> implements IEventDis
 	public Attachment read(String remoteId) throws Exception {
 		Attachment attachment = null;
 		try {
-			List<Attachment> results = attachmentDao.queryBuilder().where().eq("remote_id", remoteId).query();
+			List<Attachment> results = readByRemoteId.query(remoteId);
 			if (results != null && results.size() > 0) {
 				attachment = results.get(0);
 			}
@@ -118,6 +124,9 @@ public class AttachmentHelper extends DaoHelper<Attachment> implements IEventDis
 		}
 
 		attachmentDao.createOrUpdate(attachment);
+		if (attachment.isDirty()) {
+			OutboxHelper.getInstance(mApplicationContext).add(OutboxType.ATTACHMENT, attachment.getId());
+		}
 
 		for (IAttachmentEventListener listener : listeners) {
 			listener.onAttachmentCreated(attachment);
@@ -189,6 +198,32 @@ public class AttachmentHelper extends DaoHelper<Attachment> implements IEventDis
 		}
 	}
 
+	/**
+	 * Attachments waiting in the outbox to be uploaded, in upload order.
+	 *
+	 * @param limit maximum number of attachments
+	 * @return attachments to upload
+	 */
+	public List<Attachment> getOutboxAttachments(long limit) {
+		List<Attachment> attachments = new ArrayList<Attachment>();
+
+		try {
+			OutboxHelper outboxHelper = OutboxHelper.getInstance(mApplicationContext);
+			for (OutboxEntry entry : outboxHelper.read(limit, OutboxType.ATTACHMENT)) {
+				Attachment attachment = attachmentDao.queryForId(entry.getEntityId());
+				if (attachment == null || !attachment.isDirty()) {
+					// deleted or uploaded by other means
+					outboxHelper.remove(entry);
+				} else {
+					attachments.add(attachment);
+				}
+			}
+		} catch (SQLException e) {
+			Log.e(LOG_NAME, "Could not get outbox Attachments.", e);
+		}
+		return attachments;
+	}
+
 	/**
 	 * A List of {@link Attachment} from the datastore that are dirty (i.e.
 	 * should be synced with the server).
@@ -22,10 +22,12 @@ import java.util.HashMap;
 import java.util.Map;
 
 import mil.nga.giat.mage.sdk.Temporal;
+import mil.nga.giat.mage.sdk.datastore.Bounded;
+import mil.nga.giat.mage.sdk.datastore.GeometryPersister;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 
 @DatabaseTable(tableName = "observations")
-public class Observation implements Comparable<Observation>, Temporal {
+public class Observation extends Bounded implements Comparable<Observation>, Temporal {
     
     // name _id needed for cursor adapters
     @DatabaseField(generatedId = true)
@@ -64,7 +66,7 @@ public class Observation implements Comparable<Observation>, Temporal {
     @DatabaseField(canBeNull = false)
     private State state = State.ACTIVE;
 
-	@DatabaseField(canBeNull = false, dataType = DataType.SERIALIZABLE)
+	@DatabaseField(canBeNull = false, persisterClass = GeometryPersister.class)
     private Geometry geometry;
 
     @DatabaseField(canBeNull = false, foreign = true, foreignAutoRefresh = true)
@@ -95,7 +97,7 @@ public class Observation implements Comparable<Observation>, Temporal {
         super();
         this.remoteId = remoteId;
         this.lastModified = lastModified;
-        this.geometry = geometry;
+        setGeometry(geometry);
         this.properties = pProperties;
         this.attachments = pAttachments;
         this.dirty = false;
@@ -157,6 +159,8 @@ public class Observation implements Comparable<Observation>, Temporal {
 
 	public void setGeometry(Geometry geometry) {
 		this.geometry = geometry;
+
+		setEnvelope(geometry);
 	}
 
     public Event getEvent() {
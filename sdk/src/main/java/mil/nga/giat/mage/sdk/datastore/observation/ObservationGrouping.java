@@ -0,0 +1,10 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+/**
+ * What {@link ObservationHelper#count} groups observations by.  Hours and
+ * days are those of the time zone passed to the count, keyed by their start
+ * in milliseconds.
+ */
+public enum ObservationGrouping {
+	TYPE, VARIANT, USER, HOUR, DAY
+}
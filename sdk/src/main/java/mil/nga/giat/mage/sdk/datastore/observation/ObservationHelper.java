@@ -1,28 +1,48 @@
 package mil.nga.giat.mage.sdk.datastore.observation;
 
 import android.content.Context;
+import android.text.TextUtils;
 import android.util.Log;
 
 import com.google.common.collect.Sets;
 import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.dao.RawRowMapper;
+import com.j256.ormlite.dao.RawRowObjectMapper;
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.vividsolutions.jts.geom.Envelope;
 
+import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
+import mil.nga.giat.mage.sdk.datastore.Page;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpointHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.event.IObservationEventListener;
+import mil.nga.giat.mage.sdk.event.IObservationPurgeListener;
 import mil.nga.giat.mage.sdk.exceptions.ObservationException;
 import mil.nga.giat.mage.sdk.exceptions.UserException;
 
@@ -38,10 +58,34 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 
 	private static final String LOG_NAME = ObservationHelper.class.getName();
 
+	private static final Page.Keys<Observation> PAGE_KEYS = new Page.Keys<Observation>() {
+		@Override
+		public Date getTimestamp(Observation observation) {
+			return observation.getTimestamp();
+		}
+
+		@Override
+		public Long getId(Observation observation) {
+			return observation.getId();
+		}
+	};
+
+	/**
+	 * Number of observations written per transaction when ingesting.  Also keeps the
+	 * remote_id IN clause under the SQLite host parameter limit.
+	 */
+	private static final int INGEST_BATCH_SIZE = 500;
+
 	private final Dao<Observation, Long> observationDao;
+	private final CompiledQuery<Observation, Long> readByRemoteId;
+	private final CompiledQuery<Observation, Long> readDirty;
+	private final CompiledQuery<Observation, Long> readLatestClean;
 	private final Dao<ObservationProperty, Long> observationPropertyDao;
 	private final Dao<ObservationImportant, Long> observationImportantDao;
 	private final Dao<ObservationFavorite, Long> observationFavoriteDao;
+	private final OutboxHelper outboxHelper;
+	private final ObservationSearchIndex searchIndex;
+	private final ObservationQueries queries;
 
 	private Collection<IObservationEventListener> listeners = new CopyOnWriteArrayList<>();
 	
@@ -75,9 +119,16 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 		try {
 			// Set up DAOs
 			observationDao = daoStore.getObservationDao();
+			readByRemoteId = CompiledQuery.byRemoteId(observationDao);
+			readDirty = new CompiledQuery<>(observationDao, 0, ObservationQueries.DIRTY);
+			// args: user remote id to exclude, event id
+			readLatestClean = new CompiledQuery<>(observationDao, 2, ObservationQueries.LATEST_CLEAN);
 			observationPropertyDao = daoStore.getObservationPropertyDao();
 			observationImportantDao = daoStore.getObservationImportantDao();
 			observationFavoriteDao = daoStore.getObservationFavoriteDao();
+			queries = new ObservationQueries(observationDao, observationPropertyDao, observationImportantDao, observationFavoriteDao, daoStore.getAttachmentDao());
+			outboxHelper = OutboxHelper.getInstance(pContext);
+			searchIndex = new ObservationSearchIndex(observationDao);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with Observation database.", sqle);
 
@@ -92,48 +143,8 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 	}
 
 	public Observation create(Observation observation, Boolean sendUserNotifcations) throws ObservationException {
-
-		Observation createdObservation;
-
-		// Now we try and create the Observation structure.
 		try {
-			// set last Modified
-			if (observation.getLastModified() == null) {
-				observation.setLastModified(new Date());
-			}
-
-			// create the Observation.
-			observationDao.create(observation);
-
-			// create Observation properties.
-			Collection<ObservationProperty> properties = observation.getProperties();
-			if (properties != null) {
-				for (ObservationProperty property : properties) {
-					property.setObservation(observation);
-					observationPropertyDao.create(property);
-				}
-			}
-
-			// create Observation favorites.
-			Collection<ObservationFavorite> favorites = observation.getFavorites();
-			if (favorites != null) {
-				for (ObservationFavorite favorite : favorites) {
-					favorite.setObservation(observation);
-					observationFavoriteDao.create(favorite);
-				}
-			}
-
-			// create Observation attachments.
-			Collection<Attachment> attachments = observation.getAttachments();
-			for (Attachment attachment : attachments) {
-				try {
-					attachment.setObservation(observation);
-					AttachmentHelper.getInstance(mApplicationContext).create(attachment);
-				} catch (Exception e) {
-					throw new ObservationException("There was a problem creating the observations attachment: " + attachment + ".", e);
-				}
-			}
-
+			createObservation(observation);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem creating the observation: " + observation + ".", sqle);
 			throw new ObservationException("There was a problem creating the observation: " + observation + ".", sqle);
@@ -147,6 +158,57 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 		return observation;
 	}
 
+	/**
+	 * Persists an observation and its children without notifying listeners.
+	 *
+	 * @param observation
+	 * @throws SQLException
+	 * @throws ObservationException
+	 */
+	private void createObservation(Observation observation) throws SQLException, ObservationException {
+		// set last Modified
+		if (observation.getLastModified() == null) {
+			observation.setLastModified(new Date());
+		}
+
+		// create the Observation.
+		observationDao.create(observation);
+		if (observation.isDirty()) {
+			outboxHelper.add(OutboxType.OBSERVATION, observation.getId());
+		}
+
+		// create Observation properties.
+		Collection<ObservationProperty> properties = observation.getProperties();
+		if (properties != null) {
+			for (ObservationProperty property : properties) {
+				property.setObservation(observation);
+				observationPropertyDao.create(property);
+			}
+		}
+
+		searchIndex.index(observation);
+
+		// create Observation favorites.
+		Collection<ObservationFavorite> favorites = observation.getFavorites();
+		if (favorites != null) {
+			for (ObservationFavorite favorite : favorites) {
+				favorite.setObservation(observation);
+				observationFavoriteDao.create(favorite);
+			}
+		}
+
+		// create Observation attachments.
+		Collection<Attachment> attachments = observation.getAttachments();
+		for (Attachment attachment : attachments) {
+			try {
+				attachment.setObservation(observation);
+				AttachmentHelper.getInstance(mApplicationContext).create(attachment);
+			} catch (Exception e) {
+				throw new ObservationException("There was a problem creating the observations attachment: " + attachment + ".", e);
+			}
+		}
+	}
+
 	@Override
 	public Observation read(Long id) throws ObservationException {
 		try {
@@ -161,10 +223,7 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
     public Observation read(String pRemoteId) throws ObservationException {
         Observation observation = null;
         try {
-            List<Observation> results = observationDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
-            if (results != null && results.size() > 0) {
-                observation = results.get(0);
-            }
+            observation = readByRemoteId.queryForFirst(pRemoteId);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
             throw new ObservationException("Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
@@ -197,6 +256,32 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 
 		Log.i(LOG_NAME, "Old Observation attachments " + oldObservation.getAttachments().size());
 
+		// do the update
+		try {
+			updateObservation(observation, oldObservation, true);
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "There was a problem updating the observation: " + observation + ".", sqle);
+			throw new ObservationException("There was a problem updating the observation: " + observation + ".", sqle);
+		}
+		
+		// fire the event
+		for (IObservationEventListener listener : listeners) {
+			listener.onObservationUpdated(observation);
+		}
+		
+		return observation;
+	}
+
+	/**
+	 * Updates an observation against its currently persisted version without notifying listeners.
+	 *
+	 * @param observation
+	 * @param oldObservation
+	 * @param refresh reload the observation from the database after writing it
+	 * @throws SQLException
+	 * @throws ObservationException
+	 */
+	private void updateObservation(Observation observation, Observation oldObservation, boolean refresh) throws SQLException, ObservationException {
 		// if the observation is dirty, set the last_modified date!
 		// FIXME this is a server property and should not be set by the client,
 		// investigate why we are setting this
@@ -204,109 +289,285 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 			observation.setLastModified(new Date());
 		}
 
-		// do the update
-		try {
-
-			ObservationImportant important = observation.getImportant();
-			ObservationImportant oldImportant = oldObservation.getImportant();
-			if (important != null) {
-				if (oldImportant != null) {
-					important.setId(oldImportant.getId());
-				}
+		ObservationImportant important = observation.getImportant();
+		ObservationImportant oldImportant = oldObservation.getImportant();
+		if (important != null) {
+			if (oldImportant != null) {
+				important.setId(oldImportant.getId());
+			}
 
-				observationImportantDao.createOrUpdate(important);
-			} else {
-				if (oldImportant != null) {
-					observationImportantDao.deleteById(oldImportant.getId());
-				}
+			observationImportantDao.createOrUpdate(important);
+		} else {
+			if (oldImportant != null) {
+				observationImportantDao.deleteById(oldImportant.getId());
 			}
+		}
 
-			observationDao.update(observation);
+		observationDao.update(observation);
+		if (observation.isDirty()) {
+			outboxHelper.add(OutboxType.OBSERVATION, observation.getId());
+		}
 
-			Map<String, ObservationProperty> properties = observation.getPropertiesMap();
-			Map<String, ObservationProperty> oldProperties = oldObservation.getPropertiesMap();
-			Collection<String> commonProperties = Sets.intersection(properties.keySet(), oldProperties.keySet());
+		Map<String, ObservationProperty> properties = observation.getPropertiesMap();
+		Map<String, ObservationProperty> oldProperties = oldObservation.getPropertiesMap();
+		Collection<String> commonProperties = Sets.intersection(properties.keySet(), oldProperties.keySet());
 
-			// Map database ids from old properties to new properties
-			for (String propertyKey : commonProperties) {
-				properties.get(propertyKey).setId(oldProperties.get(propertyKey).getId());
-			}
+		// Map database ids from old properties to new properties
+		for (String propertyKey : commonProperties) {
+			properties.get(propertyKey).setId(oldProperties.get(propertyKey).getId());
+		}
 
-			for (ObservationProperty property : properties.values()) {
-				property.setObservation(observation);
-				observationPropertyDao.createOrUpdate(property);
+		for (ObservationProperty property : properties.values()) {
+			property.setObservation(observation);
+			observationPropertyDao.createOrUpdate(property);
+		}
+
+		// Remove any properties that existed in the old observation but do not exist
+		// in the new observation.
+		for (String property : Sets.difference(oldProperties.keySet(), properties.keySet())) {
+			observationPropertyDao.deleteById(oldProperties.get(property).getId());
+		}
+
+		searchIndex.index(observation);
+
+		Map<String, ObservationFavorite> favorites = observation.getFavoritesMap();
+		Map<String, ObservationFavorite> oldFavorites = oldObservation.getFavoritesMap();
+		Collection<String> commonFavorites = Sets.intersection(favorites.keySet(), oldFavorites.keySet());
+
+		// Map database ids from old properties to new properties
+		for (String favoriteKey : commonFavorites) {
+			favorites.get(favoriteKey).setId(oldFavorites.get(favoriteKey).getId());
+		}
+
+		for (ObservationFavorite favorite : favorites.values()) {
+			favorite.setObservation(observation);
+			observationFavoriteDao.createOrUpdate(favorite);
+		}
+
+		// Remove any favorites that existed in the old observation but do not exist
+		// in the new observation.
+		for (String favorite : Sets.difference(oldFavorites.keySet(), favorites.keySet())) {
+			observationFavoriteDao.deleteById(oldFavorites.get(favorite).getId());
+		}
+
+		Log.i(LOG_NAME, "Observation attachments " + observation.getAttachments().size());
+
+		// FIXME : make this run faster?
+		for (Attachment a : observation.getAttachments()) {
+			for (Attachment oa : oldObservation.getAttachments()) {
+				if (a.getRemoteId() != null && a.getRemoteId().equalsIgnoreCase(oa.getRemoteId())) {
+					a.setId(oa.getId());
+					break;
+				}
 			}
+		}
 
-			// Remove any properties that existed in the old observation but do not exist
-			// in the new observation.
-			for (String property : Sets.difference(oldProperties.keySet(), properties.keySet())) {
-				observationPropertyDao.deleteById(oldProperties.get(property).getId());
+		for (Attachment attachment : observation.getAttachments()) {
+			try {
+				attachment.setObservation(observation);
+				AttachmentHelper.getInstance(mApplicationContext).create(attachment);
+			} catch (Exception e) {
+				throw new ObservationException("There was a problem creating/updating the observations attachment: " + attachment + ".", e);
 			}
+		}
 
-			Map<String, ObservationFavorite> favorites = observation.getFavoritesMap();
-			Map<String, ObservationFavorite> oldFavorites = oldObservation.getFavoritesMap();
-			Collection<String> commonFavorites = Sets.intersection(favorites.keySet(), oldFavorites.keySet());
+		if (refresh) {
+			observationDao.refresh(observation);
+		}
 
-			// Map database ids from old properties to new properties
-			for (String favoriteKey : commonFavorites) {
-				favorites.get(favoriteKey).setId(oldFavorites.get(favoriteKey).getId());
+		if (observation.getRemoteId() != null) {
+			for (Attachment attachment : observation.getAttachments()) {
+				if (attachment.isDirty()) {
+					AttachmentHelper.getInstance(mApplicationContext).uploadableAttachment(attachment);
+				}
 			}
+		}
+	}
 
-			for (ObservationFavorite favorite : favorites.values()) {
-				favorite.setObservation(observation);
-				observationFavoriteDao.createOrUpdate(favorite);
-			}
 
-			// Remove any favorites that existed in the old observation but do not exist
-			// in the new observation.
-			for (String favorite : Sets.difference(oldFavorites.keySet(), favorites.keySet())) {
-				observationFavoriteDao.deleteById(oldFavorites.get(favorite).getId());
+	/**
+	 * Persists a page of observations fetched from the server.  Existing rows for each chunk
+	 * are resolved with one query per table and every chunk is written in one transaction.
+	 * An observation that fails to persist rolls its chunk back and fails the ingest.
+	 * Archived observations are deleted, new observations are created and clean local
+	 * observations are updated.  Dirty local observations are left alone.
+	 *
+	 * @param observations observations fetched from the server
+	 * @param event the event the observations belong to
+	 * @param sendUserNotifcations passed along to listeners for created observations
+	 * @return the observations that were created or updated
+	 * @throws ObservationException
+	 */
+	public Collection<Observation> ingest(Collection<Observation> observations, Event event, Boolean sendUserNotifcations) throws ObservationException {
+		Collection<Observation> ingested = new ArrayList<>(observations.size());
+
+		List<Observation> chunk = new ArrayList<>(INGEST_BATCH_SIZE);
+		for (Observation observation : observations) {
+			chunk.add(observation);
+			if (chunk.size() == INGEST_BATCH_SIZE) {
+				ingested.addAll(ingestChunk(chunk, event, sendUserNotifcations));
+				chunk.clear();
 			}
+		}
+
+		if (!chunk.isEmpty()) {
+			ingested.addAll(ingestChunk(chunk, event, sendUserNotifcations));
+		}
 
-			Log.i(LOG_NAME, "Observation attachments " + observation.getAttachments().size());
+		return ingested;
+	}
+
+	private Collection<Observation> ingestChunk(final List<Observation> observations, final Event event, Boolean sendUserNotifcations) throws ObservationException {
+		final List<Observation> created = new ArrayList<>();
+		final List<Observation> updated = new ArrayList<>();
+		final List<Observation> deleted = new ArrayList<>();
 
-			// FIXME : make this run faster?
-			for (Attachment a : observation.getAttachments()) {
-				for (Attachment oa : oldObservation.getAttachments()) {
-					if (a.getRemoteId() != null && a.getRemoteId().equalsIgnoreCase(oa.getRemoteId())) {
-						a.setId(oa.getId());
-						break;
+		try {
+			final Map<String, Observation> existing = readExisting(observations);
+
+			TransactionManager.callInTransaction(daoStore.getConnectionSource(), new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					for (Observation observation : observations) {
+						if (observation.getEvent() == null) {
+							observation.setEvent(event);
+						}
+
+						try {
+							Observation oldObservation = existing.get(observation.getRemoteId());
+							if (observation.getState().equals(State.ARCHIVE)) {
+								if (oldObservation != null) {
+									// listeners get the whole observation
+									oldObservation = observationDao.queryForId(oldObservation.getId());
+									deleteObservation(oldObservation);
+									deleted.add(oldObservation);
+								}
+							} else if (oldObservation == null) {
+								createObservation(observation);
+								created.add(observation);
+							} else if (!oldObservation.isDirty()) { // TODO : conflict resolution
+								observation.setId(oldObservation.getId());
+								// the fetched observation already holds what was written, skip the refresh
+								updateObservation(observation, oldObservation, false);
+								updated.add(observation);
+							}
+						} catch (Exception e) {
+							// roll back the chunk, committing it without this observation would skip it for good
+							throw new ObservationException("There was a problem ingesting the observation with remote_id " + observation.getRemoteId() + ".", e);
+						}
 					}
+
+					return null;
 				}
+			});
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "There was a problem ingesting observations.", sqle);
+			throw new ObservationException("There was a problem ingesting observations.", sqle);
+		}
+
+		Log.d(LOG_NAME, "Ingested observations, created: " + created.size() + ", updated: " + updated.size() + ", deleted: " + deleted.size());
+
+		// fire the events once the chunk has been committed
+		if (!created.isEmpty()) {
+			for (IObservationEventListener listener : listeners) {
+				listener.onObservationCreated(created, sendUserNotifcations);
 			}
+		}
 
-			for (Attachment attachment : observation.getAttachments()) {
-				try {
-					attachment.setObservation(observation);
-					AttachmentHelper.getInstance(mApplicationContext).create(attachment);
-				} catch (Exception e) {
-					throw new ObservationException("There was a problem creating/updating the observations attachment: " + attachment + ".", e);
-				}
+		for (Observation observation : updated) {
+			for (IObservationEventListener listener : listeners) {
+				listener.onObservationUpdated(observation);
+			}
+		}
+
+		for (Observation observation : deleted) {
+			for (IObservationEventListener listener : listeners) {
+				listener.onObservationDeleted(observation);
 			}
+		}
 
-			observationDao.refresh(observation);
+		Collection<Observation> ingested = new ArrayList<>(created.size() + updated.size());
+		ingested.addAll(created);
+		ingested.addAll(updated);
+		return ingested;
+	}
 
+	/**
+	 * Reads the persisted versions of the given observations with one query
+	 * per table, rather than one per observation for each child collection
+	 * and foreign field.  Observations carry their id, remote id, dirty flag
+	 * and important id, and their properties, favorites and attachments the
+	 * ids and keys that updating them needs.
+	 *
+	 * @param observations
+	 * @return map of remote id to persisted observation
+	 * @throws SQLException
+	 */
+	private Map<String, Observation> readExisting(Collection<Observation> observations) throws SQLException {
+		List<String> remoteIds = new ArrayList<>(observations.size());
+		for (Observation observation : observations) {
 			if (observation.getRemoteId() != null) {
-				for (Attachment attachment : observation.getAttachments()) {
-					if (attachment.isDirty()) {
-						AttachmentHelper.getInstance(mApplicationContext).uploadableAttachment(attachment);
-					}
-				}
+				remoteIds.add(observation.getRemoteId());
 			}
+		}
 
-		} catch (SQLException sqle) {
-			Log.e(LOG_NAME, "There was a problem updating the observation: " + observation + ".", sqle);
-			throw new ObservationException("There was a problem updating the observation: " + observation + ".", sqle);
+		Map<String, Observation> existing = new HashMap<>(remoteIds.size());
+		if (remoteIds.isEmpty()) {
+			return existing;
 		}
-		
-		// fire the event
-		for (IObservationEventListener listener : listeners) {
-			listener.onObservationUpdated(observation);
+
+		final Map<Long, Observation> byId = new HashMap<>(remoteIds.size());
+		GenericRawResults<Observation> results = observationDao.queryRaw(
+				"SELECT _id, remote_id, dirty, important_id FROM observations WHERE remote_id IN (" + TextUtils.join(", ", Collections.nCopies(remoteIds.size(), "?")) + ")",
+				new DataType[] { DataType.LONG_OBJ, DataType.STRING, DataType.BOOLEAN, DataType.LONG_OBJ },
+				new RawRowObjectMapper<Observation>() {
+					@Override
+					public Observation mapRow(String[] columnNames, DataType[] dataTypes, Object[] columns) {
+						Observation observation = new Observation();
+						observation.setId((Long) columns[0]);
+						observation.setRemoteId((String) columns[1]);
+						observation.setDirty((Boolean) columns[2]);
+						if (columns[3] != null) {
+							ObservationImportant important = new ObservationImportant();
+							important.setId((Long) columns[3]);
+							observation.setImportant(important);
+						}
+						byId.put(observation.getId(), observation);
+						return observation;
+					}
+				}, remoteIds.toArray(new String[remoteIds.size()]));
+		for (Observation observation : results) {
+			existing.put(observation.getRemoteId(), observation);
 		}
-		
-		return observation;
-	}
 
+		if (byId.isEmpty()) {
+			return existing;
+		}
+
+		String ids = TextUtils.join(", ", byId.keySet());
+		for (ObservationProperty property : observationPropertyDao.queryBuilder().where().in("observation_id", byId.keySet()).query()) {
+			byId.get(property.getObservation().getId()).getProperties().add(property);
+		}
+
+		// favorites and attachments refresh their observation when queried through their dao
+		for (Object[] columns : observationFavoriteDao.queryRaw("SELECT pk_id, user_id, observation_id FROM observation_favorites WHERE observation_id IN (" + ids + ")",
+				new DataType[] { DataType.LONG_OBJ, DataType.STRING, DataType.LONG_OBJ })) {
+			ObservationFavorite favorite = new ObservationFavorite();
+			favorite.setId((Long) columns[0]);
+			favorite.setUserId((String) columns[1]);
+			byId.get(columns[2]).getFavorites().add(favorite);
+		}
+
+		for (Object[] columns : daoStore.getAttachmentDao().queryRaw("SELECT pk_id, remote_id, observation_id FROM attachments WHERE observation_id IN (" + ids + ")",
+				new DataType[] { DataType.LONG_OBJ, DataType.STRING, DataType.LONG_OBJ })) {
+			Attachment attachment = new Attachment();
+			attachment.setId((Long) columns[0]);
+			attachment.setRemoteId((String) columns[1]);
+			byId.get(columns[2]).getAttachments().add(attachment);
+		}
+
+		return existing;
+	}
 
 	public Collection<Observation> readAll() throws ObservationException {
 		ConcurrentSkipListSet<Observation> observations = new ConcurrentSkipListSet<Observation>();
@@ -319,6 +580,223 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 		return observations;
 	}
 
+	/**
+	 * Reads the observations in an event whose geometry envelope intersects the given envelope.
+	 *
+	 * @param envelope envelope to query, i.e. the map viewport
+	 * @param event event to query
+	 * @return observations that intersect the envelope
+	 * @throws ObservationException
+	 */
+	public List<Observation> queryByEnvelope(Envelope envelope, Event event) throws ObservationException {
+		try {
+			return queries.byEnvelope(envelope, event).query();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to query observations in envelope " + envelope, sqle);
+			throw new ObservationException("Unable to query observations in envelope " + envelope, sqle);
+		}
+	}
+
+	/**
+	 * Query observations in an event by a property value.  The property is
+	 * matched in SQL on its typed value column, so observations and their
+	 * properties are only loaded for matching rows.
+	 *
+	 * @param event event
+	 * @param key property key
+	 * @param value property value
+	 * @return observations with the property value
+	 * @throws ObservationException
+	 */
+	public List<Observation> queryByProperty(Event event, String key, Serializable value) throws ObservationException {
+		try {
+			return queries.byProperty(event, key, value).query();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to query observations by property " + key, sqle);
+			throw new ObservationException("Unable to query observations by property " + key, sqle);
+		}
+	}
+
+	/**
+	 * Read a page of the observations in an event, newest first.
+	 *
+	 * @param event event
+	 * @param token next token of the previous page, or null for the first page
+	 * @param pageSize maximum number of observations in the page
+	 * @return the page
+	 * @throws ObservationException
+	 */
+	public Page<Observation> readPage(Event event, String token, int pageSize) throws ObservationException {
+		try {
+			return Page.of(queries.page(event, token, pageSize).query(), pageSize, PAGE_KEYS);
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to read page of observations for event " + event.getName(), sqle);
+			throw new ObservationException("Unable to read page of observations for event " + event.getName(), sqle);
+		}
+	}
+
+	/**
+	 * Full text search over the text property values of the observations in an
+	 * event.
+	 *
+	 * @param event event to search
+	 * @param text keywords, every keyword has to match the start of a word
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @param limit maximum number of results
+	 * @return ids of the matching observations, best match first
+	 * @throws ObservationException
+	 */
+	public List<Long> search(Event event, String text, Date start, Date end, int limit) throws ObservationException {
+		try {
+			return searchIndex.search(event, text, start, end, limit);
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to search observations for '" + text + "'", sqle);
+			throw new ObservationException("Unable to search observations for '" + text + "'", sqle);
+		}
+	}
+
+	/**
+	 * Read summaries of the observations in an event, newest first, in a single
+	 * query.  Unlike reading observations this does not load properties,
+	 * attachments, favorites or the event of each observation.
+	 *
+	 * @param event event
+	 * @param user user to read favorites for
+	 * @return observation summaries
+	 * @throws ObservationException
+	 */
+	public List<ObservationSummary> readSummaries(Event event, User user) throws ObservationException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.summaries(event, user, arguments);
+
+		try {
+			return observationDao.queryRaw(sql, new RawRowMapper<ObservationSummary>() {
+				@Override
+				public ObservationSummary mapRow(String[] columnNames, String[] columns) throws SQLException {
+					Envelope envelope = null;
+					if (columns[6] != null) {
+						envelope = new Envelope(Double.parseDouble(columns[6]), Double.parseDouble(columns[7]), Double.parseDouble(columns[8]), Double.parseDouble(columns[9]));
+					}
+
+					return new ObservationSummary(
+							Long.valueOf(columns[0]),
+							columns[1],
+							new Date(Long.parseLong(columns[2])),
+							columns[3],
+							State.valueOf(columns[4]),
+							"1".equals(columns[5]),
+							envelope,
+							columns[10],
+							columns[11],
+							"1".equals(columns[12]),
+							"1".equals(columns[13]));
+				}
+			}, arguments.toArray(new String[arguments.size()])).getResults();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to read observation summaries for event " + event.getName(), sqle);
+			throw new ObservationException("Unable to read observation summaries for event " + event.getName(), sqle);
+		}
+	}
+
+	/**
+	 * Counts the observations in an event, grouped in a single query.
+	 * Observations without a value to group by are counted under a null key.
+	 * Hours and days are those of the time zone, keyed by their start in
+	 * milliseconds.
+	 *
+	 * @param event event
+	 * @param grouping what to group by
+	 * @param timeZone time zone of the hour and day groups
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @return count per group, in group order
+	 * @throws ObservationException
+	 */
+	public Map<String, Long> count(Event event, ObservationGrouping grouping, TimeZone timeZone, Date start, Date end) throws ObservationException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.count(event, grouping, timeZone, start, end, arguments);
+
+		Map<String, Long> counts = new LinkedHashMap<>();
+		try {
+			GenericRawResults<String[]> results = observationDao.queryRaw(sql, arguments.toArray(new String[arguments.size()]));
+			try {
+				for (String[] row : results) {
+					counts.put(row[0], Long.valueOf(row[1]));
+				}
+			} finally {
+				results.close();
+			}
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to count observations by " + grouping + " for event " + event.getName(), sqle);
+			throw new ObservationException("Unable to count observations by " + grouping + " for event " + event.getName(), sqle);
+		}
+
+		return grouping == ObservationGrouping.DAY ? countByDay(counts, timeZone) : counts;
+	}
+
+	/**
+	 * @param hourCounts count per hour of the time zone, in hour order
+	 * @param timeZone time zone of the days
+	 * @return count per day of the time zone, in day order
+	 */
+	private static Map<String, Long> countByDay(Map<String, Long> hourCounts, TimeZone timeZone) {
+		Map<String, Long> counts = new LinkedHashMap<>();
+		Calendar calendar = Calendar.getInstance(timeZone);
+		for (Map.Entry<String, Long> hourCount : hourCounts.entrySet()) {
+			calendar.setTimeInMillis(Long.parseLong(hourCount.getKey()));
+			calendar.set(Calendar.HOUR_OF_DAY, 0);
+			calendar.set(Calendar.MINUTE, 0);
+			calendar.set(Calendar.SECOND, 0);
+			calendar.set(Calendar.MILLISECOND, 0);
+
+			String day = String.valueOf(calendar.getTimeInMillis());
+			Long count = counts.get(day);
+			counts.put(day, count != null ? count + hourCount.getValue() : hourCount.getValue());
+		}
+
+		return counts;
+	}
+
+	/**
+	 * @param event event
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @return number of observations in the event flagged as important
+	 * @throws ObservationException
+	 */
+	public long countImportant(Event event, Date start, Date end) throws ObservationException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.countImportant(event, start, end, arguments);
+
+		try {
+			return observationDao.queryRawValue(sql, arguments.toArray(new String[arguments.size()]));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to count important observations for event " + event.getName(), sqle);
+			throw new ObservationException("Unable to count important observations for event " + event.getName(), sqle);
+		}
+	}
+
+	/**
+	 * @param event event
+	 * @param user user
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @return number of observations in the event favorited by the user
+	 * @throws ObservationException
+	 */
+	public long countFavorites(Event event, User user, Date start, Date end) throws ObservationException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.countFavorites(event, user, start, end, arguments);
+
+		try {
+			return observationDao.queryRawValue(sql, arguments.toArray(new String[arguments.size()]));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to count favorite observations for event " + event.getName(), sqle);
+			throw new ObservationException("Unable to count favorite observations for event " + event.getName(), sqle);
+		}
+	}
+
 	/**
 	 * Gets the latest last modified date.  Used when fetching.
 	 * 
@@ -326,16 +804,12 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 	 */
 	public Date getLatestCleanLastModified(Context context, Event currentEvent) {
 		Date lastModifiedDate = new Date(0);
-		QueryBuilder<Observation, Long> queryBuilder = observationDao.queryBuilder();
 
 		try {
 			User currentUser = UserHelper.getInstance(context.getApplicationContext()).readCurrentUser();
 			if (currentUser != null) {
 				// TODO ask Scott about this???  Why do we check if user is not us
-				queryBuilder.where().eq("dirty", Boolean.FALSE).and().ne("user_id", String.valueOf(currentUser.getRemoteId())).and().eq("event_id", currentEvent.getId());
-				queryBuilder.orderBy("last_modified", false);
-				queryBuilder.limit(1L);
-				Observation o = observationDao.queryForFirst(queryBuilder.prepare());
+				Observation o = readLatestClean.queryForFirst(String.valueOf(currentUser.getRemoteId()), currentEvent.getId());
 				if (o != null) {
 					lastModifiedDate = o.getLastModified();
 				}
@@ -356,12 +830,10 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 	 * @return
 	 */
 	public List<Observation> getDirty() {
-		QueryBuilder<Observation, Long> queryBuilder = observationDao.queryBuilder();
 		List<Observation> observations = new ArrayList<Observation>();
 
 		try {
-			queryBuilder.where().eq("dirty", true);
-			observations = observationDao.query(queryBuilder.prepare());
+			observations = readDirty.query();
 		} catch (SQLException e) {
 			// TODO Auto-generated catch block
 			Log.e(LOG_NAME, "Could not get dirty Observations.");
@@ -378,69 +850,196 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 	 */
 	public void delete(Observation observation) throws ObservationException {
 		try {
-			// delete Observation properties.
-			Collection<ObservationProperty> properties = observation.getProperties();
-			if (properties != null) {
-				for (ObservationProperty property : properties) {
-					observationPropertyDao.deleteById(property.getId());
-				}
+			deleteObservation(observation);
+			
+			for (IObservationEventListener listener : listeners) {
+				listener.onObservationDeleted(observation);
 			}
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete Observation: " + observation.getId(), sqle);
+			throw new ObservationException("Unable to delete Observation: " + observation.getId(), sqle);
+		}
+	}
 
-			// delete Observation favorites.
-			Collection<ObservationFavorite> favorites = observation.getFavorites();
-			if (favorites != null) {
-				for (ObservationFavorite favorite : favorites) {
-					observationFavoriteDao.deleteById(favorite.getId());
-				}
+	/**
+	 * Deletes an observation and its children without notifying listeners.
+	 *
+	 * @param observation
+	 * @throws SQLException
+	 */
+	private void deleteObservation(Observation observation) throws SQLException {
+		// delete Observation properties.
+		Collection<ObservationProperty> properties = observation.getProperties();
+		if (properties != null) {
+			for (ObservationProperty property : properties) {
+				observationPropertyDao.deleteById(property.getId());
 			}
+		}
 
-			// delete Observation attachments.
-			Collection<Attachment> attachments = observation.getAttachments();
-			if (attachments != null) {
-				AttachmentHelper attachmentHelper = AttachmentHelper.getInstance(mApplicationContext);
-				for (Attachment attachment : attachments) {
-					attachmentHelper.delete(attachment);
-				}
+		// delete Observation favorites.
+		Collection<ObservationFavorite> favorites = observation.getFavorites();
+		if (favorites != null) {
+			for (ObservationFavorite favorite : favorites) {
+				observationFavoriteDao.deleteById(favorite.getId());
 			}
+		}
 
-			// delete important
-			ObservationImportant important = observation.getImportant();
-			if (important != null) {
-				observationImportantDao.deleteById(important.getId());
+		// delete Observation attachments.
+		Collection<Attachment> attachments = observation.getAttachments();
+		if (attachments != null) {
+			AttachmentHelper attachmentHelper = AttachmentHelper.getInstance(mApplicationContext);
+			for (Attachment attachment : attachments) {
+				attachmentHelper.delete(attachment);
 			}
+		}
 
-			// finally, delete the Observation.
-			observationDao.deleteById(observation.getId());
-			
-			for (IObservationEventListener listener : listeners) {
-				listener.onObservationDeleted(observation);
-			}
-		} catch (SQLException sqle) {
-			Log.e(LOG_NAME, "Unable to delete Observation: " + observation.getId(), sqle);
-			throw new ObservationException("Unable to delete Observation: " + observation.getId(), sqle);
+		// delete important
+		ObservationImportant important = observation.getImportant();
+		if (important != null) {
+			observationImportantDao.deleteById(important.getId());
 		}
+
+		searchIndex.remove(observation.getId());
+
+		// finally, delete the Observation.
+		observationDao.deleteById(observation.getId());
 	}
 
 	/**
-	 * This will delete all observations for an event.
+	 * This will delete all observations for an event, and the checkpoint of
+	 * its observation fetch.
 	 *
 	 * @param event
 	 *            The event to remove locations for
 	 * @throws ObservationException
 	 */
-	public void deleteObservations(Event event) throws ObservationException {
+	public void deleteObservations(final Event event) throws ObservationException {
 		Log.e(LOG_NAME, "Deleting observations for event "  + event.getName());
 
 		try {
-			QueryBuilder<Observation, Long> qb = observationDao.queryBuilder();
-			qb.where().eq("event_id", event.getId());
-			for (Observation observation : qb.query()) {
-				delete(observation);
-			}
+			final QueryBuilder<Observation, Long> observationIds = observationDao.queryBuilder().selectColumns("_id");
+			observationIds.where().eq("event_id", event.getId());
+			TransactionManager.callInTransaction(daoStore.getConnectionSource(), new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					purge(observationIds);
+					// a later fetch of the event starts over instead of resuming past the purged observations
+					SyncCheckpointHelper.getInstance(mApplicationContext).delete(SyncCheckpointHelper.getObservationsName(event));
+					return null;
+				}
+			});
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to delete observations for an event", sqle);
 			throw new ObservationException("Unable to delete observations for an event", sqle);
 		}
+
+		fireObservationsDeleted(event);
+	}
+
+	/**
+	 * Deletes observations in an event that were last modified before a date.
+	 * Observations with changes that have not been pushed are kept.
+	 *
+	 * @param event event
+	 * @param date delete observations last modified before this date
+	 * @return number of observations deleted
+	 * @throws ObservationException
+	 */
+	public int deleteOlderThan(Event event, Date date) throws ObservationException {
+		try {
+			return purge(event, queries.olderThanIds(event, date));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete observations older than " + date, sqle);
+			throw new ObservationException("Unable to delete observations older than " + date, sqle);
+		}
+	}
+
+	/**
+	 * Deletes the least recently modified observations in an event.  Observations
+	 * with changes that have not been pushed are kept.
+	 *
+	 * @param event event
+	 * @param count maximum number of observations to delete
+	 * @return number of observations deleted
+	 * @throws ObservationException
+	 */
+	public int deleteOldest(Event event, long count) throws ObservationException {
+		try {
+			return purge(event, queries.oldestIds(event, count));
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete oldest observations", sqle);
+			throw new ObservationException("Unable to delete oldest observations", sqle);
+		}
+	}
+
+	/**
+	 * Tells the listeners that track set based deletes that observations in an event were deleted.
+	 */
+	private void fireObservationsDeleted(Event event) {
+		for (IObservationEventListener listener : listeners) {
+			if (listener instanceof IObservationPurgeListener) {
+				((IObservationPurgeListener) listener).onObservationsDeleted(event);
+			}
+		}
+	}
+
+	private int purge(Event event, QueryBuilder<Observation, Long> observationIds) throws SQLException {
+		int deleted = purge(observationIds);
+		if (deleted > 0) {
+			fireObservationsDeleted(event);
+		}
+
+		return deleted;
+	}
+
+	/**
+	 * Deletes observations, their children and their pending pushes in one
+	 * transaction.  Children are deleted with a subquery instead of reading
+	 * every observation in.
+	 *
+	 * @param observationIds query selecting the _id of the observations to delete
+	 * @return number of observations deleted
+	 * @throws SQLException
+	 */
+	private int purge(final QueryBuilder<Observation, Long> observationIds) throws SQLException {
+		return TransactionManager.callInTransaction(daoStore.getConnectionSource(), new Callable<Integer>() {
+			@Override
+			public Integer call() throws Exception {
+				DeleteBuilder<ObservationProperty, Long> propertyDeleteBuilder = observationPropertyDao.deleteBuilder();
+				propertyDeleteBuilder.where().in("observation_id", observationIds);
+				propertyDeleteBuilder.delete();
+
+				QueryBuilder<ObservationFavorite, Long> favoriteIds = observationFavoriteDao.queryBuilder().selectColumns("pk_id");
+				favoriteIds.where().in("observation_id", observationIds);
+				outboxHelper.remove(OutboxType.FAVORITE, favoriteIds);
+
+				DeleteBuilder<ObservationFavorite, Long> favoriteDeleteBuilder = observationFavoriteDao.deleteBuilder();
+				favoriteDeleteBuilder.where().in("observation_id", observationIds);
+				favoriteDeleteBuilder.delete();
+
+				QueryBuilder<Attachment, Long> attachmentIds = daoStore.getAttachmentDao().queryBuilder().selectColumns("pk_id");
+				attachmentIds.where().in("observation_id", observationIds);
+				outboxHelper.remove(OutboxType.ATTACHMENT, attachmentIds);
+
+				DeleteBuilder<Attachment, Long> attachmentDeleteBuilder = daoStore.getAttachmentDao().deleteBuilder();
+				attachmentDeleteBuilder.where().in("observation_id", observationIds);
+				attachmentDeleteBuilder.delete();
+
+				QueryBuilder<Observation, Long> importantIds = observationDao.queryBuilder().selectColumns("important_id");
+				importantIds.where().in("_id", observationIds);
+				DeleteBuilder<ObservationImportant, Long> importantDeleteBuilder = observationImportantDao.deleteBuilder();
+				importantDeleteBuilder.where().in("pk_id", importantIds);
+				importantDeleteBuilder.delete();
+
+				searchIndex.remove(observationIds);
+				outboxHelper.remove(OutboxType.OBSERVATION, observationIds);
+				outboxHelper.remove(OutboxType.IMPORTANT, observationIds);
+
+				DeleteBuilder<Observation, Long> observationDeleteBuilder = observationDao.deleteBuilder();
+				observationDeleteBuilder.where().in("_id", observationIds);
+				return observationDeleteBuilder.delete();
+			}
+		});
 	}
 
 	/**
@@ -457,6 +1056,7 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 		try {
 			observationImportantDao.createOrUpdate(important);
 			observationDao.update(observation);
+			outboxHelper.add(OutboxType.IMPORTANT, observation.getId());
 
 			// fire the event
 			for (IObservationEventListener listener : listeners) {
@@ -490,6 +1090,7 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 			try {
 				observationImportantDao.update(important);
 				observationDao.refresh(observation);
+				outboxHelper.add(OutboxType.IMPORTANT, observation.getId());
 
 				// fire the event
 				for (IObservationEventListener listener : listeners) {
@@ -523,6 +1124,7 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 		try {
 			observationFavoriteDao.createOrUpdate(favorite);
 			observationDao.refresh(observation);
+			outboxHelper.add(OutboxType.FAVORITE, favorite.getId());
 
 			// fire the event
 			for (IObservationEventListener listener : listeners) {
@@ -551,6 +1153,7 @@ public class ObservationHelper extends DaoHelper<Observation> implements IEventD
 			try {
 				observationFavoriteDao.update(favorite);
 				observationDao.refresh(observation);
+				outboxHelper.add(OutboxType.FAVORITE, favorite.getId());
 
 				// fire the event
 				for (IObservationEventListener listener : listeners) {
@@ -0,0 +1,271 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+import android.text.format.DateUtils;
+
+import com.google.gson.JsonElement;
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
+import mil.nga.giat.mage.sdk.datastore.Page;
+import mil.nga.giat.mage.sdk.datastore.Property;
+import mil.nga.giat.mage.sdk.datastore.SpatialIndex;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+import mil.nga.giat.mage.sdk.datastore.user.User;
+
+/**
+ * Builds the queries of the {@link ObservationHelper}.  The helper runs them,
+ * the query plan tests explain them against the schema DaoStore creates.
+ * Raw SQL builders add their arguments to the list they are given.
+ */
+class ObservationQueries {
+
+	static final CompiledQuery.Builder<Observation, Long> DIRTY = new CompiledQuery.Builder<Observation, Long>() {
+		@Override
+		public void build(QueryBuilder<Observation, Long> queryBuilder, SelectArg... args) throws SQLException {
+			queryBuilder.where().eq("dirty", true);
+		}
+	};
+
+	// args: user remote id to exclude, event id
+	static final CompiledQuery.Builder<Observation, Long> LATEST_CLEAN = new CompiledQuery.Builder<Observation, Long>() {
+		@Override
+		public void build(QueryBuilder<Observation, Long> queryBuilder, SelectArg... args) throws SQLException {
+			queryBuilder.where().eq("dirty", Boolean.FALSE).and().ne("user_id", args[0]).and().eq("event_id", args[1]);
+			queryBuilder.orderBy("last_modified", false);
+			queryBuilder.limit(1L);
+		}
+	};
+
+	private final Dao<Observation, Long> observationDao;
+	private final Dao<ObservationProperty, Long> observationPropertyDao;
+	private final Dao<ObservationImportant, Long> observationImportantDao;
+	private final Dao<ObservationFavorite, Long> observationFavoriteDao;
+	private final Dao<Attachment, Long> attachmentDao;
+
+	ObservationQueries(Dao<Observation, Long> observationDao, Dao<ObservationProperty, Long> observationPropertyDao, Dao<ObservationImportant, Long> observationImportantDao,
+			Dao<ObservationFavorite, Long> observationFavoriteDao, Dao<Attachment, Long> attachmentDao) {
+		this.observationDao = observationDao;
+		this.observationPropertyDao = observationPropertyDao;
+		this.observationImportantDao = observationImportantDao;
+		this.observationFavoriteDao = observationFavoriteDao;
+		this.attachmentDao = attachmentDao;
+	}
+
+	/**
+	 * @return observations in the event whose geometry envelope intersects the envelope
+	 */
+	QueryBuilder<Observation, Long> byEnvelope(Envelope envelope, Event event) throws SQLException {
+		QueryBuilder<Observation, Long> queryBuilder = observationDao.queryBuilder();
+		SpatialIndex.intersects(queryBuilder.where(), "observations", "_id", envelope).and().eq("event_id", event.getId());
+		return queryBuilder;
+	}
+
+	/**
+	 * @return observations in the event with the property value
+	 */
+	QueryBuilder<Observation, Long> byProperty(Event event, String key, Serializable value) throws SQLException {
+		QueryBuilder<ObservationProperty, Long> propertyQuery = observationPropertyDao.queryBuilder();
+		propertyQuery.selectColumns("observation_id");
+		Property.keyValueEq(propertyQuery.where(), key, value);
+
+		QueryBuilder<Observation, Long> queryBuilder = observationDao.queryBuilder();
+		queryBuilder.where().in("_id", propertyQuery).and().eq("event_id", event.getId());
+		return queryBuilder;
+	}
+
+	/**
+	 * @param token next token of the previous page, or null for the first page
+	 * @return page of the observations in the event, newest first
+	 */
+	QueryBuilder<Observation, Long> page(Event event, String token, int pageSize) throws SQLException {
+		QueryBuilder<Observation, Long> queryBuilder = Page.orderAndLimit(observationDao.queryBuilder(), pageSize);
+		Where<Observation, Long> where = queryBuilder.where();
+		where.eq("event_id", event.getId());
+		if (!Page.isFirst(token)) {
+			Page.after(where, token);
+			where.and(2);
+		}
+		return queryBuilder;
+	}
+
+	/**
+	 * @return _id of the pushed observations in the event last modified before the date
+	 */
+	QueryBuilder<Observation, Long> olderThanIds(Event event, Date date) throws SQLException {
+		QueryBuilder<Observation, Long> observationIds = observationDao.queryBuilder().selectColumns("_id");
+		Where<Observation, Long> where = observationIds.where();
+		where.eq("event_id", event.getId());
+		where.lt("last_modified", date);
+		clean(where);
+		where.and(3);
+		return observationIds;
+	}
+
+	/**
+	 * @return _id of the least recently modified pushed observations in the event
+	 */
+	QueryBuilder<Observation, Long> oldestIds(Event event, long count) throws SQLException {
+		QueryBuilder<Observation, Long> observationIds = observationDao.queryBuilder().selectColumns("_id");
+		observationIds.orderBy("last_modified", true).orderBy("_id", true).limit(count);
+		Where<Observation, Long> where = observationIds.where();
+		where.eq("event_id", event.getId());
+		clean(where);
+		where.and(2);
+		return observationIds;
+	}
+
+	/**
+	 * Adds a single clause for observations, and their important, favorites and
+	 * attachments, that have been pushed.  The clause is left on the where stack.
+	 */
+	private Where<Observation, Long> clean(Where<Observation, Long> where) throws SQLException {
+		QueryBuilder<ObservationImportant, Long> dirtyImportant = observationImportantDao.queryBuilder().selectColumns("pk_id");
+		dirtyImportant.where().eq("dirty", Boolean.TRUE);
+
+		QueryBuilder<ObservationFavorite, Long> dirtyFavorites = observationFavoriteDao.queryBuilder().selectColumns("observation_id");
+		dirtyFavorites.where().eq("dirty", Boolean.TRUE);
+
+		QueryBuilder<Attachment, Long> dirtyAttachments = attachmentDao.queryBuilder().selectColumns("observation_id");
+		dirtyAttachments.where().eq("dirty", Boolean.TRUE);
+
+		where.eq("dirty", Boolean.FALSE);
+		where.isNull("important_id");
+		where.notIn("important_id", dirtyImportant);
+		where.or(2);
+		where.notIn("_id", dirtyFavorites);
+		where.notIn("_id", dirtyAttachments);
+		return where.and(4);
+	}
+
+	/**
+	 * @return summaries of the observations in the event, newest first, with the favorites of the user
+	 */
+	static String summaries(Event event, User user, List<String> arguments) {
+		String variantField = variantField(event);
+
+		StringBuilder sql = new StringBuilder()
+				.append("SELECT o._id, o.remote_id, o.timestamp, o.user_id, o.state, o.dirty, ")
+				.append("o.").append(SpatialIndex.COLUMN_NAME_MIN_X).append(", o.").append(SpatialIndex.COLUMN_NAME_MAX_X).append(", ")
+				.append("o.").append(SpatialIndex.COLUMN_NAME_MIN_Y).append(", o.").append(SpatialIndex.COLUMN_NAME_MAX_Y).append(", ")
+				.append(propertyValueSubquery()).append(", ");
+		arguments.add("type");
+
+		if (variantField != null) {
+			sql.append(propertyValueSubquery()).append(", ");
+			arguments.add(variantField);
+		} else {
+			sql.append("NULL, ");
+		}
+
+		sql.append("i.is_important, ")
+				.append("EXISTS (SELECT 1 FROM observation_favorites f WHERE f.observation_id = o._id AND f.user_id = ? AND f.is_favorite = 1) ")
+				.append("FROM observations o LEFT JOIN observation_important i ON i.pk_id = o.important_id ")
+				.append("WHERE o.event_id = ? ORDER BY o.timestamp DESC");
+		arguments.add(user.getRemoteId());
+		arguments.add(String.valueOf(event.getId()));
+
+		return sql.toString();
+	}
+
+	/**
+	 * Groups by the hours of the time zone for both hours and days, SQLite
+	 * only knows UTC so the caller folds hours into days.
+	 *
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @return count per group of the observations in the event, in group order
+	 */
+	static String count(Event event, ObservationGrouping grouping, TimeZone timeZone, Date start, Date end, List<String> arguments) {
+		String group;
+		switch (grouping) {
+			case TYPE:
+				group = propertyValueSubquery();
+				arguments.add("type");
+				break;
+			case VARIANT:
+				String variantField = variantField(event);
+				if (variantField == null) {
+					group = "NULL";
+				} else {
+					group = propertyValueSubquery();
+					arguments.add(variantField);
+				}
+				break;
+			case USER:
+				group = "o.user_id";
+				break;
+			case HOUR:
+			case DAY:
+				// daylight saving moves whole hours, so the part of the offset within the hour is fixed
+				long offset = timeZone.getRawOffset() % DateUtils.HOUR_IN_MILLIS;
+				group = "o.timestamp - (o.timestamp + " + offset + ") % " + DateUtils.HOUR_IN_MILLIS;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown grouping " + grouping);
+		}
+
+		return "SELECT " + group + " AS grp, COUNT(*) FROM observations o WHERE " + eventAndTimeClause(event, start, end, arguments) + " GROUP BY grp ORDER BY grp";
+	}
+
+	/**
+	 * @return number of observations in the event flagged as important
+	 */
+	static String countImportant(Event event, Date start, Date end, List<String> arguments) {
+		return "SELECT COUNT(*) FROM observations o JOIN observation_important i ON i.pk_id = o.important_id"
+				+ " WHERE i.is_important = 1 AND " + eventAndTimeClause(event, start, end, arguments);
+	}
+
+	/**
+	 * @return number of observations in the event favorited by the user
+	 */
+	static String countFavorites(Event event, User user, Date start, Date end, List<String> arguments) {
+		arguments.add(user.getRemoteId());
+		return "SELECT COUNT(*) FROM observations o"
+				+ " WHERE EXISTS (SELECT 1 FROM observation_favorites f WHERE f.observation_id = o._id AND f.user_id = ? AND f.is_favorite = 1)"
+				+ " AND " + eventAndTimeClause(event, start, end, arguments);
+	}
+
+	private static String propertyValueSubquery() {
+		return "(SELECT p." + Property.COLUMN_NAME_STRING_VALUE + " FROM observation_properties p WHERE p.observation_id = o._id AND p." + Property.COLUMN_NAME_KEY + " = ?)";
+	}
+
+	/**
+	 * @return key of the event form variant field, or null
+	 */
+	private static String variantField(Event event) {
+		JsonElement variantFieldElement = event.getForm().get("variantField");
+		if (variantFieldElement != null && !variantFieldElement.isJsonNull()) {
+			return variantFieldElement.getAsString();
+		}
+		return null;
+	}
+
+	/**
+	 * Clause on observations aliased o.
+	 */
+	private static String eventAndTimeClause(Event event, Date start, Date end, List<String> arguments) {
+		StringBuilder clause = new StringBuilder("o.event_id = ?");
+		arguments.add(String.valueOf(event.getId()));
+
+		if (start != null) {
+			clause.append(" AND o.timestamp >= ?");
+			arguments.add(String.valueOf(start.getTime()));
+		}
+		if (end != null) {
+			clause.append(" AND o.timestamp < ?");
+			arguments.add(String.valueOf(end.getTime()));
+		}
+
+		return clause.toString();
+	}
+}
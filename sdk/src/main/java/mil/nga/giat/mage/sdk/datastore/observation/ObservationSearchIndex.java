@@ -0,0 +1,180 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.stmt.QueryBuilder;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import mil.nga.giat.mage.sdk.datastore.Property;
+import mil.nga.giat.mage.sdk.datastore.PropertyType;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * FTS4 shadow table over the text property values of observations.  The docid
+ * of each row is the _id of its observation.  The {@link ObservationHelper}
+ * keeps it in sync when it creates, updates and deletes observations.
+ *
+ * FTS4 and the simple tokenizer are what every supported Android release
+ * ships.  The simple tokenizer only folds ASCII case, so text is lower cased
+ * in Java before it is indexed or matched.
+ */
+public class ObservationSearchIndex {
+
+	public static final String TABLE_NAME = "observation_search";
+	public static final String COLUMN_NAME_TEXT = "property_text";
+
+	public static final String CREATE_TABLE = "CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_NAME + " USING fts4(" + COLUMN_NAME_TEXT + ")";
+	public static final String DROP_TABLE = "DROP TABLE IF EXISTS " + TABLE_NAME;
+
+	private static final String PROPERTY_TEXT = "SELECT observation_id, group_concat(" + Property.COLUMN_NAME_STRING_VALUE + ", ' ') FROM observation_properties"
+			+ " WHERE " + Property.COLUMN_NAME_TYPE + " IN ('" + PropertyType.STRING.name() + "', '" + PropertyType.LIST.name() + "')"
+			+ " AND " + Property.COLUMN_NAME_STRING_VALUE + " IS NOT NULL GROUP BY observation_id";
+
+	// offsets() returns four integers per matched term
+	static final String SEARCH = "SELECT " + TABLE_NAME + ".docid,"
+			+ " (length(offsets(" + TABLE_NAME + ")) - length(replace(offsets(" + TABLE_NAME + "), ' ', '')) + 1) / 4 AS matches"
+			+ " FROM " + TABLE_NAME + " JOIN observations o ON o._id = " + TABLE_NAME + ".docid"
+			+ " WHERE " + TABLE_NAME + " MATCH ? AND o.event_id = ? AND o.timestamp >= ? AND o.timestamp < ?"
+			+ " ORDER BY matches DESC, o.timestamp DESC LIMIT ?";
+
+	private final Dao<Observation, Long> observationDao;
+
+	ObservationSearchIndex(Dao<Observation, Long> observationDao) {
+		this.observationDao = observationDao;
+	}
+
+	/**
+	 * Replace the indexed text of an observation with its current properties.
+	 */
+	void index(Observation observation) throws SQLException {
+		remove(observation.getId());
+
+		String text = text(observation.getProperties());
+		if (!text.isEmpty()) {
+			observationDao.executeRaw("INSERT INTO " + TABLE_NAME + " (docid, " + COLUMN_NAME_TEXT + ") VALUES (?, ?)", observation.getId().toString(), text);
+		}
+	}
+
+	void remove(Long observationId) throws SQLException {
+		observationDao.executeRaw("DELETE FROM " + TABLE_NAME + " WHERE docid = ?", observationId.toString());
+	}
+
+	/**
+	 * Remove the rows of observations about to be deleted by a set based delete.
+	 *
+	 * @param observationIds query selecting the _id of the observations
+	 */
+	void remove(QueryBuilder<Observation, Long> observationIds) throws SQLException {
+		observationDao.executeRawNoArgs("DELETE FROM " + TABLE_NAME + " WHERE docid IN (" + observationIds.prepareStatementString() + ")");
+	}
+
+	/**
+	 * Index the persisted observations, replacing what the table held.
+	 *
+	 * @param database database to index
+	 */
+	public static void populate(SQLiteDatabase database) {
+		database.execSQL("DELETE FROM " + TABLE_NAME);
+
+		SQLiteStatement statement = database.compileStatement("INSERT INTO " + TABLE_NAME + " (docid, " + COLUMN_NAME_TEXT + ") VALUES (?, ?)");
+		Cursor cursor = database.rawQuery(PROPERTY_TEXT, null);
+		try {
+			while (cursor.moveToNext()) {
+				statement.bindLong(1, cursor.getLong(0));
+				statement.bindString(2, fold(cursor.getString(1)));
+				statement.executeInsert();
+			}
+		} finally {
+			cursor.close();
+			statement.close();
+		}
+	}
+
+	/**
+	 * @param event event to search
+	 * @param text keywords, every keyword has to match the start of a word
+	 * @param start earliest observation timestamp, inclusive, or null
+	 * @param end latest observation timestamp, exclusive, or null
+	 * @param limit maximum number of ids
+	 * @return observation ids, most matches first, then newest first
+	 */
+	List<Long> search(Event event, String text, Date start, Date end, int limit) throws SQLException {
+		String match = match(text);
+		if (match.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		List<Long> ids = new ArrayList<>();
+		GenericRawResults<String[]> results = observationDao.queryRaw(SEARCH,
+				match,
+				event.getId().toString(),
+				String.valueOf(start != null ? start.getTime() : Long.MIN_VALUE),
+				String.valueOf(end != null ? end.getTime() : Long.MAX_VALUE),
+				String.valueOf(limit));
+		try {
+			for (String[] row : results) {
+				ids.add(Long.valueOf(row[0]));
+			}
+		} finally {
+			results.close();
+		}
+		return ids;
+	}
+
+	/**
+	 * Text and list property values, lists are indexed as their JSON.
+	 */
+	static String text(Collection<ObservationProperty> properties) {
+		StringBuilder text = new StringBuilder();
+		if (properties == null) {
+			return text.toString();
+		}
+
+		for (ObservationProperty property : properties) {
+			PropertyType type = property.getType();
+			if ((type == PropertyType.STRING || type == PropertyType.LIST) && property.getStringValue() != null) {
+				if (text.length() > 0) {
+					text.append(' ');
+				}
+				text.append(property.getStringValue());
+			}
+		}
+		return fold(text.toString());
+	}
+
+	/**
+	 * Turns free text into an FTS query of prefix terms.  Terms are lower case
+	 * to match the indexed text, which also keeps AND, OR and NOT in the text
+	 * from being read as operators.
+	 */
+	static String match(String text) {
+		StringBuilder match = new StringBuilder();
+		for (String term : text.split("[^\\p{L}\\p{N}]+")) {
+			if (!term.isEmpty()) {
+				if (match.length() > 0) {
+					match.append(' ');
+				}
+				match.append(fold(term)).append('*');
+			}
+		}
+		return match.toString();
+	}
+
+	/**
+	 * Lower case, for every script, as the tokenizer would only fold ASCII.
+	 */
+	static String fold(String text) {
+		return text.toLowerCase(Locale.US);
+	}
+}
@@ -0,0 +1,102 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Date;
+
+/**
+ * Read only projection of an observation with what lists and maps need to
+ * render it.  Read with {@link ObservationHelper#readSummaries}, and use
+ * {@link ObservationHelper#read(Long)} with {@link #getId()} to load the full
+ * observation when it is opened.
+ */
+public class ObservationSummary {
+
+	private final Long id;
+	private final String remoteId;
+	private final Date timestamp;
+	private final String userId;
+	private final State state;
+	private final boolean dirty;
+	private final Envelope envelope;
+	private final String type;
+	private final String variant;
+	private final boolean important;
+	private final boolean favorite;
+
+	public ObservationSummary(Long id, String remoteId, Date timestamp, String userId, State state, boolean dirty, Envelope envelope, String type, String variant, boolean important, boolean favorite) {
+		this.id = id;
+		this.remoteId = remoteId;
+		this.timestamp = timestamp;
+		this.userId = userId;
+		this.state = state;
+		this.dirty = dirty;
+		this.envelope = envelope;
+		this.type = type;
+		this.variant = variant;
+		this.important = important;
+		this.favorite = favorite;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getRemoteId() {
+		return remoteId;
+	}
+
+	public Date getTimestamp() {
+		return timestamp;
+	}
+
+	public String getUserId() {
+		return userId;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * For point observations the envelope is the point.
+	 *
+	 * @return envelope of the observation geometry, or null if it has none
+	 */
+	public Envelope getEnvelope() {
+		return envelope;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * @return value of the event form variant field, or null
+	 */
+	public String getVariant() {
+		return variant;
+	}
+
+	public boolean isImportant() {
+		return important;
+	}
+
+	/**
+	 * @return true if favorited by the user the summaries were read for
+	 */
+	public boolean isFavorite() {
+		return favorite;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+}
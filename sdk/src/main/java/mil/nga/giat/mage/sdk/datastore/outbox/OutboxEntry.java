@@ -0,0 +1,97 @@
+package mil.nga.giat.mage.sdk.datastore.outbox;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.Date;
+
+/**
+ * A local change waiting to be pushed.  There is at most one entry per entity,
+ * changing an entity again before it is pushed bumps the version of its entry
+ * instead of adding another one.
+ */
+@DatabaseTable(tableName = "outbox")
+public class OutboxEntry {
+
+	public static final String COLUMN_NAME_TYPE = "type";
+	public static final String COLUMN_NAME_ENTITY_ID = "entity_id";
+	public static final String COLUMN_NAME_PRIORITY = "priority";
+	public static final String COLUMN_NAME_VERSION = "version";
+	public static final String COLUMN_NAME_ATTEMPTS = "attempts";
+	public static final String COLUMN_NAME_CREATED = "created";
+
+	@DatabaseField(generatedId = true)
+	private Long _id;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_TYPE)
+	private OutboxType type;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_ENTITY_ID)
+	private Long entityId;
+
+	@DatabaseField(canBeNull = false, index = true, columnName = COLUMN_NAME_PRIORITY)
+	private int priority;
+
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_VERSION)
+	private long version;
+
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_ATTEMPTS)
+	private int attempts;
+
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_CREATED, dataType = DataType.DATE_LONG)
+	private Date created = new Date();
+
+	public OutboxEntry() {
+		// ORMLite needs a no-arg constructor
+	}
+
+	public OutboxEntry(OutboxType type, Long entityId) {
+		this.type = type;
+		this.entityId = entityId;
+		this.priority = type.getPriority();
+	}
+
+	public Long getId() {
+		return _id;
+	}
+
+	public OutboxType getType() {
+		return type;
+	}
+
+	public Long getEntityId() {
+		return entityId;
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public Date getCreated() {
+		return created;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+}
@@ -0,0 +1,196 @@
+package mil.nga.giat.mage.sdk.datastore.outbox;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
+import com.j256.ormlite.stmt.Where;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import mil.nga.giat.mage.sdk.datastore.DaoStore;
+
+/**
+ * Durable, ordered journal of local changes to push.  Helpers add an entry when
+ * they persist a local change, push services read entries in order, push the
+ * entity and remove the entry.  Push cycles only visit pending changes instead
+ * of scanning the dirty flag of every row.
+ *
+ * Removing an entry only succeeds if the entity was not changed again while it
+ * was being pushed, so those changes are pushed on the next cycle.
+ */
+public class OutboxHelper {
+
+	private static final String LOG_NAME = OutboxHelper.class.getName();
+
+	private static OutboxHelper outboxHelper;
+
+	private final Dao<OutboxEntry, Long> outboxDao;
+
+	public static synchronized OutboxHelper getInstance(Context context) {
+		if (outboxHelper == null) {
+			outboxHelper = new OutboxHelper(context);
+		}
+		return outboxHelper;
+	}
+
+	private OutboxHelper(Context context) {
+		try {
+			outboxDao = DaoStore.getInstance(context).getOutboxDao();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to communicate with Outbox database.", sqle);
+
+			throw new IllegalStateException("Unable to communicate with Outbox database.", sqle);
+		}
+	}
+
+	/**
+	 * Add a change to the outbox, or bump the version of the pending change for
+	 * the same entity.
+	 *
+	 * @param type type of change
+	 * @param entityId local id of the changed entity
+	 * @throws SQLException
+	 */
+	public synchronized void add(OutboxType type, Long entityId) throws SQLException {
+		UpdateBuilder<OutboxEntry, Long> updateBuilder = outboxDao.updateBuilder();
+		updateBuilder.updateColumnExpression(OutboxEntry.COLUMN_NAME_VERSION, OutboxEntry.COLUMN_NAME_VERSION + " + 1");
+		updateBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type).and().eq(OutboxEntry.COLUMN_NAME_ENTITY_ID, entityId);
+		if (updateBuilder.update() == 0) {
+			outboxDao.create(new OutboxEntry(type, entityId));
+		}
+	}
+
+	/**
+	 * @param limit maximum number of entries to read
+	 * @param types types of entries to read
+	 * @return the next entries to push, in priority and then insertion order
+	 * @throws SQLException
+	 */
+	public List<OutboxEntry> read(long limit, OutboxType... types) throws SQLException {
+		return read(limit, Collections.<Long>emptySet(), types);
+	}
+
+	/**
+	 * Read past entries that could not be pushed yet, so they do not hold up
+	 * the rest of a push cycle.  Within a priority, entries that failed less
+	 * often come first.
+	 *
+	 * @param limit maximum number of entries to read
+	 * @param skip ids of entries not to read again
+	 * @param types types of entries to read
+	 * @return the next entries to push, in priority, attempts and then insertion order
+	 * @throws SQLException
+	 */
+	public List<OutboxEntry> read(long limit, Collection<Long> skip, OutboxType... types) throws SQLException {
+		QueryBuilder<OutboxEntry, Long> queryBuilder = outboxDao.queryBuilder();
+		Where<OutboxEntry, Long> where = queryBuilder.where();
+		where.in(OutboxEntry.COLUMN_NAME_TYPE, Arrays.asList((Object[]) types));
+		if (!skip.isEmpty()) {
+			where.notIn("_id", skip);
+			where.and(2);
+		}
+		return order(queryBuilder).limit(limit).query();
+	}
+
+	/**
+	 * @param limit maximum number of entries to read
+	 * @param type type of entries to read
+	 * @param entityIds query selecting the ids of the entities to read entries of
+	 * @return the next entries to push, in attempts and then insertion order
+	 * @throws SQLException
+	 */
+	public List<OutboxEntry> read(long limit, OutboxType type, QueryBuilder<?, ?> entityIds) throws SQLException {
+		QueryBuilder<OutboxEntry, Long> queryBuilder = outboxDao.queryBuilder();
+		queryBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type).and().in(OutboxEntry.COLUMN_NAME_ENTITY_ID, entityIds);
+		return order(queryBuilder).limit(limit).query();
+	}
+
+	private static QueryBuilder<OutboxEntry, Long> order(QueryBuilder<OutboxEntry, Long> queryBuilder) {
+		return queryBuilder.orderBy(OutboxEntry.COLUMN_NAME_PRIORITY, true).orderBy(OutboxEntry.COLUMN_NAME_ATTEMPTS, true).orderBy("_id", true);
+	}
+
+	/**
+	 * Remove a pushed entry.  The entry is kept if its entity was changed
+	 * again after the entry was read.
+	 *
+	 * @param entry entry read from the outbox
+	 * @return true if the entry was removed
+	 * @throws SQLException
+	 */
+	public boolean remove(OutboxEntry entry) throws SQLException {
+		DeleteBuilder<OutboxEntry, Long> deleteBuilder = outboxDao.deleteBuilder();
+		deleteBuilder.where().idEq(entry.getId()).and().eq(OutboxEntry.COLUMN_NAME_VERSION, entry.getVersion());
+		return deleteBuilder.delete() > 0;
+	}
+
+	/**
+	 * Remove any pending change for an entity, i.e. when it has been pushed by
+	 * other means or no longer needs to be pushed.
+	 *
+	 * @param type type of change
+	 * @param entityId local id of the entity
+	 * @throws SQLException
+	 */
+	public void remove(OutboxType type, Long entityId) throws SQLException {
+		DeleteBuilder<OutboxEntry, Long> deleteBuilder = outboxDao.deleteBuilder();
+		deleteBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type).and().eq(OutboxEntry.COLUMN_NAME_ENTITY_ID, entityId);
+		deleteBuilder.delete();
+	}
+
+	/**
+	 * Remove the pending changes of entities that are about to be deleted.
+	 *
+	 * @param type type of change
+	 * @param entityIds query selecting the ids of the entities
+	 * @throws SQLException
+	 */
+	public void remove(OutboxType type, QueryBuilder<?, ?> entityIds) throws SQLException {
+		DeleteBuilder<OutboxEntry, Long> deleteBuilder = outboxDao.deleteBuilder();
+		deleteBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type).and().in(OutboxEntry.COLUMN_NAME_ENTITY_ID, entityIds);
+		deleteBuilder.delete();
+	}
+
+	/**
+	 * @param type type of change
+	 * @param entityIds local ids of the entities
+	 * @throws SQLException
+	 */
+	public void remove(OutboxType type, Collection<Long> entityIds) throws SQLException {
+		DeleteBuilder<OutboxEntry, Long> deleteBuilder = outboxDao.deleteBuilder();
+		deleteBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type).and().in(OutboxEntry.COLUMN_NAME_ENTITY_ID, entityIds);
+		deleteBuilder.delete();
+	}
+
+	/**
+	 * Remove every pending change of a type, i.e. when all its entities are deleted.
+	 *
+	 * @param type type of change
+	 * @throws SQLException
+	 */
+	public void removeAll(OutboxType type) throws SQLException {
+		DeleteBuilder<OutboxEntry, Long> deleteBuilder = outboxDao.deleteBuilder();
+		deleteBuilder.where().eq(OutboxEntry.COLUMN_NAME_TYPE, type);
+		deleteBuilder.delete();
+	}
+
+	/**
+	 * Record a failed push attempt.
+	 *
+	 * @param entry entry read from the outbox
+	 * @throws SQLException
+	 */
+	public void failed(OutboxEntry entry) throws SQLException {
+		UpdateBuilder<OutboxEntry, Long> updateBuilder = outboxDao.updateBuilder();
+		updateBuilder.updateColumnExpression(OutboxEntry.COLUMN_NAME_ATTEMPTS, OutboxEntry.COLUMN_NAME_ATTEMPTS + " + 1");
+		updateBuilder.where().idEq(entry.getId());
+		updateBuilder.update();
+	}
+}
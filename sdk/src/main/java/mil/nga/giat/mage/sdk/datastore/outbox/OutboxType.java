@@ -0,0 +1,33 @@
+package mil.nga.giat.mage.sdk.datastore.outbox;
+
+/**
+ * Kinds of local changes waiting to be pushed.  Entries drain in priority
+ * order, lowest first, then in the order they were added.
+ */
+public enum OutboxType {
+
+	/** Created or edited observation, entity id is the observation id. */
+	OBSERVATION(0),
+
+	/** Attachment to upload, entity id is the attachment id. */
+	ATTACHMENT(1),
+
+	/** Important flag change, entity id is the observation id. */
+	IMPORTANT(2),
+
+	/** Favorite toggle, entity id is the favorite id. */
+	FAVORITE(2),
+
+	/** Location to post, entity id is the location id. */
+	LOCATION(3);
+
+	private final int priority;
+
+	OutboxType(int priority) {
+		this.priority = priority;
+	}
+
+	public int getPriority() {
+		return priority;
+	}
+}
@@ -1,6 +1,5 @@
 package mil.nga.giat.mage.sdk.datastore.staticfeature;
 
-import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.field.DatabaseField;
 import com.j256.ormlite.field.ForeignCollectionField;
 import com.j256.ormlite.table.DatabaseTable;
@@ -15,10 +14,12 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import mil.nga.giat.mage.sdk.datastore.Bounded;
+import mil.nga.giat.mage.sdk.datastore.GeometryPersister;
 import mil.nga.giat.mage.sdk.datastore.layer.Layer;
 
 @DatabaseTable(tableName = "staticfeatures")
-public class StaticFeature implements Comparable<StaticFeature> {
+public class StaticFeature extends Bounded implements Comparable<StaticFeature> {
 
 	public static final String STATIC_FEATURE_ID = "id";
 	public static final String STATIC_FEATURE_REMOTE_ID = "remote_id";
@@ -33,7 +34,7 @@ public class StaticFeature implements Comparable<StaticFeature> {
 	@DatabaseField(canBeNull = false, foreign = true, foreignAutoRefresh = true, columnName = STATIC_FEATURE_LAYER_ID)
 	private Layer layer;
 
-	@DatabaseField(canBeNull = false, dataType = DataType.SERIALIZABLE)
+	@DatabaseField(canBeNull = false, persisterClass = GeometryPersister.class)
 	private Geometry geometry;
 
 	@ForeignCollectionField(eager = true)
@@ -53,7 +54,7 @@ public class StaticFeature implements Comparable<StaticFeature> {
 	public StaticFeature(String remoteId, Geometry geometry, Layer layer) {
 		super();
 		this.remoteId = remoteId;
-		this.geometry = geometry;
+		setGeometry(geometry);
 		this.layer = layer;
 	}
 
@@ -61,6 +62,10 @@ public class StaticFeature implements Comparable<StaticFeature> {
 		return id;
 	}
 
+	public void setId(Long id) {
+		this.id = id;
+	}
+
 	public String getRemoteId() {
 		return remoteId;
 	}
@@ -83,6 +88,8 @@ public class StaticFeature implements Comparable<StaticFeature> {
 
 	public void setGeometry(Geometry geometry) {
 		this.geometry = geometry;
+
+		setEnvelope(geometry);
 	}
 
 	public Collection<StaticFeatureProperty> getProperties() {
@@ -0,0 +1,94 @@
+package mil.nga.giat.mage.sdk.datastore.staticfeature;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.simplify.TopologyPreservingSimplifier;
+
+import mil.nga.giat.mage.sdk.datastore.GeometryPersister;
+
+/**
+ * Simplified geometry of a {@link StaticFeature} for one zoom band.  Bands are
+ * keyed by their highest zoom level.  Above the last band features are drawn
+ * with their full geometry.
+ */
+@DatabaseTable(tableName = "staticfeature_geometries")
+public class StaticFeatureGeometry {
+
+	public static final String COLUMN_NAME_STATIC_FEATURE_ID = "staticFeature_id";
+	public static final String COLUMN_NAME_MAX_ZOOM = "max_zoom";
+	public static final String COLUMN_NAME_GEOMETRY = "geometry";
+
+	/**
+	 * Highest zoom level of each band, in ascending order.
+	 */
+	public static final int[] MAX_ZOOMS = {5, 9, 13};
+
+	private static final int TILE_SIZE = 256;
+
+	@DatabaseField(generatedId = true)
+	private Long id;
+
+	@DatabaseField(canBeNull = false, foreign = true, uniqueCombo = true, columnName = COLUMN_NAME_STATIC_FEATURE_ID)
+	private StaticFeature staticFeature;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_MAX_ZOOM)
+	private int maxZoom;
+
+	@DatabaseField(canBeNull = false, persisterClass = GeometryPersister.class, columnName = COLUMN_NAME_GEOMETRY)
+	private Geometry geometry;
+
+	public StaticFeatureGeometry() {
+		// ORMLite needs a no-arg constructor
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public StaticFeature getStaticFeature() {
+		return staticFeature;
+	}
+
+	public int getMaxZoom() {
+		return maxZoom;
+	}
+
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * @param zoom map zoom level
+	 * @return highest zoom of the band the zoom level falls in, or null to use full geometries
+	 */
+	public static Integer maxZoom(int zoom) {
+		for (int maxZoom : MAX_ZOOMS) {
+			if (zoom <= maxZoom) {
+				return maxZoom;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Simplifies a geometry to about one pixel at the highest zoom of a band.
+	 *
+	 * @param geometry full geometry, in degrees
+	 * @param maxZoom highest zoom of the band
+	 * @return the simplified geometry, or null if simplifying would not drop any vertices
+	 */
+	public static Geometry simplify(Geometry geometry, int maxZoom) {
+		if (geometry instanceof Point) {
+			return null;
+		}
+
+		double tolerance = 360.0 / (TILE_SIZE * Math.pow(2, maxZoom));
+		Geometry simplified = TopologyPreservingSimplifier.simplify(geometry, tolerance);
+		if (simplified.isEmpty() || simplified.getNumPoints() >= geometry.getNumPoints()) {
+			return null;
+		}
+		return simplified;
+	}
+}
@@ -1,34 +1,68 @@
 package mil.nga.giat.mage.sdk.datastore.staticfeature;
 
 import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.j256.ormlite.dao.Dao;
-import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.dao.RawRowObjectMapper;
+import com.j256.ormlite.field.DataType;
 import com.j256.ormlite.stmt.DeleteBuilder;
-
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
-import mil.nga.giat.mage.sdk.datastore.DaoStore;
+import mil.nga.giat.mage.sdk.datastore.GeometryPersister;
+import mil.nga.giat.mage.sdk.datastore.Property;
+import mil.nga.giat.mage.sdk.datastore.SpatialIndex;
 import mil.nga.giat.mage.sdk.datastore.layer.Layer;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.event.IStaticFeatureEventListener;
+import mil.nga.giat.mage.sdk.event.IStaticFeatureLoadingListener;
 import mil.nga.giat.mage.sdk.exceptions.StaticFeatureException;
 
 public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEventDispatcher<IStaticFeatureEventListener> {
 
 	private static final String LOG_NAME = StaticFeatureHelper.class.getName();
+
+	private static final int LOAD_BATCH_SIZE = 1000;
+
+	/**
+	 * Pixels of a 256 pixel tile that tiles overlap their neighbours by, so
+	 * strokes along tile edges are not cut off.
+	 */
+	private static final int TILE_BUFFER_PIXELS = 4;
+
+	/**
+	 * Cached tiles kept by {@link #trimTiles}, the oldest are dropped first.
+	 */
+	public static final int MAX_CACHED_TILES = 10000;
 	
 	private Context context;
 
 	private final Dao<StaticFeature, Long> staticFeatureDao;
+	private final CompiledQuery<StaticFeature, Long> readByRemoteId;
 	private final Dao<StaticFeatureProperty, Long> staticFeaturePropertyDao;
+	private final Dao<StaticFeatureGeometry, Long> staticFeatureGeometryDao;
+	private final Dao<StaticFeatureTile, Long> staticFeatureTileDao;
+	private final StaticFeatureQueries queries;
+	private final GeometryFactory geometryFactory = new GeometryFactory();
 
 	private Collection<IStaticFeatureEventListener> listeners = new CopyOnWriteArrayList<IStaticFeatureEventListener>();
 
@@ -64,7 +98,11 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
 		try {
 			// Set up DAOs
 			staticFeatureDao = daoStore.getStaticFeatureDao();
+			readByRemoteId = CompiledQuery.byRemoteId(staticFeatureDao);
 			staticFeaturePropertyDao = daoStore.getStaticFeaturePropertyDao();
+			staticFeatureGeometryDao = daoStore.getStaticFeatureGeometryDao();
+			staticFeatureTileDao = daoStore.getStaticFeatureTileDao();
+			queries = new StaticFeatureQueries(staticFeatureDao);
 
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with StaticFeature database.", sqle);
@@ -101,52 +139,190 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
 	}
 
 	/**
-	 * Set of layers that features were added to, or already belonged to.
-	 * 
-	 * @param staticFeatures
-	 * @return
+	 * Bulk loads the features of a layer with compiled insert statements, one
+	 * transaction per {@link #LOAD_BATCH_SIZE} features.  Listeners implementing
+	 * {@link IStaticFeatureLoadingListener} are told the progress after each batch.
+	 *
+	 * Simplified geometries for each zoom band in
+	 * {@link StaticFeatureGeometry#MAX_ZOOMS} are stored with every feature.
+	 *
+	 * Features of a layer that has none yet are inserted without checking for
+	 * existing rows.  Otherwise features whose remote id already exists are
+	 * skipped.  Features that fail to insert are logged and skipped, along with
+	 * whatever rows of them were written.  Cached tiles of the layer are dropped.
+	 *
+	 * @param staticFeatures features to load
+	 * @param pLayer layer the features belong to
+	 * @return the layer, marked as loaded
 	 * @throws StaticFeatureException
 	 */
 	public Layer createAll(final Collection<StaticFeature> staticFeatures, final Layer pLayer) throws StaticFeatureException {
+		boolean fresh;
+		try {
+			fresh = staticFeatureDao.queryBuilder().where().eq(StaticFeature.STATIC_FEATURE_LAYER_ID, pLayer.getId()).countOf() == 0;
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to count static features for layer " + pLayer.getName(), sqle);
+			throw new StaticFeatureException("Unable to count static features for layer " + pLayer.getName(), sqle);
+		}
 
+		deleteTiles(pLayer.getId());
+
+		int total = staticFeatures.size();
+		int loaded = 0;
+
+		SQLiteDatabase database = daoStore.getWritableDatabase();
+		SQLiteStatement featureInsert = database.compileStatement((fresh ? "INSERT" : "INSERT OR IGNORE") + " INTO staticfeatures ("
+				+ StaticFeature.STATIC_FEATURE_REMOTE_ID + ", " + StaticFeature.STATIC_FEATURE_LAYER_ID + ", geometry, "
+				+ SpatialIndex.COLUMN_NAME_MIN_X + ", " + SpatialIndex.COLUMN_NAME_MAX_X + ", "
+				+ SpatialIndex.COLUMN_NAME_MIN_Y + ", " + SpatialIndex.COLUMN_NAME_MAX_Y + ", local_path) VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+		SQLiteStatement propertyInsert = database.compileStatement("INSERT INTO staticfeature_properties ("
+				+ StaticFeatureProperty.STATIC_FEATURE_ID + ", " + Property.COLUMN_NAME_KEY + ", " + Property.COLUMN_NAME_TYPE + ", "
+				+ Property.COLUMN_NAME_STRING_VALUE + ", " + Property.COLUMN_NAME_LONG_VALUE + ", "
+				+ Property.COLUMN_NAME_DOUBLE_VALUE + ", " + Property.COLUMN_NAME_VALUE + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+		SQLiteStatement geometryInsert = database.compileStatement("INSERT INTO staticfeature_geometries ("
+				+ StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID + ", " + StaticFeatureGeometry.COLUMN_NAME_MAX_ZOOM + ", "
+				+ StaticFeatureGeometry.COLUMN_NAME_GEOMETRY + ") VALUES (?, ?, ?)");
 		try {
-			TransactionManager.callInTransaction(DaoStore.getInstance(context).getConnectionSource(), new Callable<Void>() {
-				@Override
-				public Void call() throws Exception {
-					for (StaticFeature staticFeature : staticFeatures) {
+			Iterator<StaticFeature> iterator = staticFeatures.iterator();
+			while (iterator.hasNext()) {
+				database.beginTransaction();
+				try {
+					for (int i = 0; i < LOAD_BATCH_SIZE && iterator.hasNext(); i++) {
+						StaticFeature staticFeature = iterator.next();
 						try {
-							Collection<StaticFeatureProperty> properties = staticFeature.getProperties();
-							staticFeature = staticFeatureDao.createIfNotExists(staticFeature);
-
-							// create Static Feature properties.
-							if (properties != null) {
-								for (StaticFeatureProperty property : properties) {
-									property.setStaticFeature(staticFeature);
-									staticFeaturePropertyDao.create(property);
-								}
-							}
-						} catch (SQLException sqle) {
-							Log.e(LOG_NAME, "There was a problem creating the static feature: " + staticFeature + ".", sqle);
-							continue;
-							// TODO Throw exception?
+							insert(featureInsert, propertyInsert, geometryInsert, staticFeature, pLayer);
+						} catch (RuntimeException | IOException e) {
+							Log.e(LOG_NAME, "There was a problem creating the static feature: " + staticFeature + ".", e);
 						}
+						loaded++;
 					}
+					database.setTransactionSuccessful();
+				} finally {
+					database.endTransaction();
+				}
 
-					return null;
+				for (IStaticFeatureEventListener listener : listeners) {
+					if (listener instanceof IStaticFeatureLoadingListener) {
+						((IStaticFeatureLoadingListener) listener).onStaticFeaturesLoading(pLayer, loaded, total);
+					}
 				}
-			});
-			pLayer.setLoaded(true);
-			// fire the event
-			for (IStaticFeatureEventListener listener : listeners) {
-				listener.onStaticFeaturesCreated(pLayer);
 			}
-		} catch (SQLException sqle) {
+		} catch (android.database.SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem creating static features.", sqle);
+			throw new StaticFeatureException("There was a problem creating static features.", sqle);
+		} finally {
+			featureInsert.close();
+			propertyInsert.close();
+			geometryInsert.close();
+		}
+
+		// tiles cut while the layer was loading are missing features
+		deleteTiles(pLayer.getId());
+
+		pLayer.setLoaded(true);
+		// fire the event
+		for (IStaticFeatureEventListener listener : listeners) {
+			listener.onStaticFeaturesCreated(pLayer);
 		}
 
 		return pLayer;
 	}
 
+	private void insert(SQLiteStatement featureInsert, SQLiteStatement propertyInsert, SQLiteStatement geometryInsert, StaticFeature staticFeature, Layer layer) throws IOException {
+		if (staticFeature.getGeometry() == null) {
+			throw new android.database.SQLException("Static feature has no geometry");
+		}
+
+		featureInsert.clearBindings();
+		bind(featureInsert, 1, staticFeature.getRemoteId());
+		featureInsert.bindLong(2, layer.getId());
+		featureInsert.bindBlob(3, GeometryPersister.toBytes(staticFeature.getGeometry()));
+		Envelope envelope = staticFeature.getGeometry().getEnvelopeInternal();
+		if (!envelope.isNull()) {
+			featureInsert.bindDouble(4, envelope.getMinX());
+			featureInsert.bindDouble(5, envelope.getMaxX());
+			featureInsert.bindDouble(6, envelope.getMinY());
+			featureInsert.bindDouble(7, envelope.getMaxY());
+		}
+		bind(featureInsert, 8, staticFeature.getLocalPath());
+
+		long id = featureInsert.executeInsert();
+		if (id == -1) {
+			// ignored, the feature already exists
+			return;
+		}
+
+		try {
+			insertChildren(propertyInsert, geometryInsert, staticFeature, id);
+		} catch (RuntimeException | IOException e) {
+			// the batch transaction commits the features around this one, take back its rows
+			String[] arguments = {String.valueOf(id)};
+			SQLiteDatabase database = daoStore.getWritableDatabase();
+			database.delete("staticfeature_geometries", StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID + " = ?", arguments);
+			database.delete("staticfeature_properties", StaticFeatureProperty.STATIC_FEATURE_ID + " = ?", arguments);
+			database.delete("staticfeatures", StaticFeature.STATIC_FEATURE_ID + " = ?", arguments);
+			throw e;
+		}
+	}
+
+	private void insertChildren(SQLiteStatement propertyInsert, SQLiteStatement geometryInsert, StaticFeature staticFeature, long id) throws IOException {
+		// coarsest band first, once a band keeps every vertex finer bands do too
+		for (int maxZoom : StaticFeatureGeometry.MAX_ZOOMS) {
+			Geometry simplified = StaticFeatureGeometry.simplify(staticFeature.getGeometry(), maxZoom);
+			if (simplified == null) {
+				break;
+			}
+
+			geometryInsert.clearBindings();
+			geometryInsert.bindLong(1, id);
+			geometryInsert.bindLong(2, maxZoom);
+			geometryInsert.bindBlob(3, GeometryPersister.toBytes(simplified));
+			geometryInsert.executeInsert();
+		}
+
+		if (staticFeature.getProperties() == null) {
+			return;
+		}
+
+		for (StaticFeatureProperty property : staticFeature.getProperties()) {
+			propertyInsert.clearBindings();
+			propertyInsert.bindLong(1, id);
+			propertyInsert.bindString(2, property.getKey());
+			propertyInsert.bindString(3, property.getType().name());
+			bind(propertyInsert, 4, property.getStringValue());
+			if (property.getLongValue() != null) {
+				propertyInsert.bindLong(5, property.getLongValue());
+			}
+			if (property.getDoubleValue() != null) {
+				propertyInsert.bindDouble(6, property.getDoubleValue());
+			}
+			if (property.getSerializableValue() != null) {
+				propertyInsert.bindBlob(7, serialize(property.getSerializableValue()));
+			}
+			propertyInsert.executeInsert();
+		}
+	}
+
+	private static void bind(SQLiteStatement statement, int index, String value) {
+		if (value != null) {
+			statement.bindString(index, value);
+		}
+	}
+
+	/**
+	 * Java serialization, as ORMLite writes {@link com.j256.ormlite.field.DataType#SERIALIZABLE} columns.
+	 */
+	private static byte[] serialize(Serializable value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes);
+		try {
+			objectOutputStream.writeObject(value);
+		} finally {
+			objectOutputStream.close();
+		}
+		return bytes.toByteArray();
+	}
+
 	@Override
 	public StaticFeature read(Long id) throws StaticFeatureException {
 		try {
@@ -161,7 +337,7 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
     public StaticFeature read(String pRemoteId) throws StaticFeatureException {
         StaticFeature staticFeature = null;
         try {
-            List<StaticFeature> results = staticFeatureDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
+            List<StaticFeature> results = readByRemoteId.query(pRemoteId);
             if (results != null && results.size() > 0) {
                 staticFeature = results.get(0);
             }
@@ -176,7 +352,7 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
 	public List<StaticFeature> readAll(Long pLayerId) throws StaticFeatureException {
 		List<StaticFeature> staticFeatures = new ArrayList<StaticFeature>();
 		try {
-			List<StaticFeature> results = staticFeatureDao.queryBuilder().where().eq("layer_id", pLayerId).query();
+			List<StaticFeature> results = queries.byLayer(pLayerId).query();
 			if (results != null) {
 				staticFeatures.addAll(results);
 			}
@@ -188,7 +364,166 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
 		return staticFeatures;
 	}
 
+	/**
+	 * Reads the features in a layer whose geometry envelope intersects the given envelope.
+	 *
+	 * @param envelope envelope to query, i.e. the map viewport
+	 * @param pLayerId layer to query
+	 * @return features that intersect the envelope
+	 * @throws StaticFeatureException
+	 */
+	public List<StaticFeature> queryByEnvelope(Envelope envelope, Long pLayerId) throws StaticFeatureException {
+		try {
+			return queries.byEnvelope(envelope, pLayerId).query();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to query for features in envelope " + envelope + " with layer id = '" + pLayerId + "'", sqle);
+			throw new StaticFeatureException("Unable to query for features in envelope " + envelope + " with layer id = '" + pLayerId + "'", sqle);
+		}
+	}
+
+	/**
+	 * Reads the features in a layer whose geometry envelope intersects the given
+	 * envelope, with geometries simplified for the zoom level.  Features without
+	 * a simplified geometry for the zoom band keep their full geometry.  Only
+	 * the geometry picked in SQL is read and parsed, the features carry their
+	 * id and that geometry, no properties, and are for drawing only.
+	 *
+	 * @param envelope envelope to query, i.e. the map viewport
+	 * @param pLayerId layer to query
+	 * @param zoom map zoom level
+	 * @return features that intersect the envelope
+	 * @throws StaticFeatureException
+	 */
+	public List<StaticFeature> queryByEnvelope(Envelope envelope, Long pLayerId, int zoom) throws StaticFeatureException {
+		Integer maxZoom = StaticFeatureGeometry.maxZoom(zoom);
+
+		List<String> arguments = new ArrayList<>();
+		String sql = StaticFeatureQueries.geometriesByEnvelope(envelope, pLayerId, maxZoom, arguments);
+
+		try {
+			return staticFeatureDao.queryRaw(sql, new DataType[] { DataType.LONG, DataType.BYTE_ARRAY }, new RawRowObjectMapper<StaticFeature>() {
+				@Override
+				public StaticFeature mapRow(String[] columnNames, DataType[] dataTypes, Object[] columns) throws SQLException {
+					StaticFeature staticFeature = new StaticFeature();
+					staticFeature.setId((Long) columns[0]);
+					try {
+						staticFeature.setGeometry(GeometryPersister.toGeometry((byte[]) columns[1]));
+					} catch (IOException | ParseException | ClassNotFoundException e) {
+						throw new SQLException("Unable to read geometry of static feature " + columns[0], e);
+					}
+					return staticFeature;
+				}
+			}, arguments.toArray(new String[arguments.size()])).getResults();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to query for simplified features at zoom " + zoom + " with layer id = '" + pLayerId + "'", sqle);
+			throw new StaticFeatureException("Unable to query for simplified features at zoom " + zoom + " with layer id = '" + pLayerId + "'", sqle);
+		}
+	}
+
+	/**
+	 * Reads a web mercator tile of a layer from the tile cache.  On a miss the
+	 * tile is cut from the features simplified for its zoom, clipped to the
+	 * tile bounds and cached, empty tiles included.  Tiles of a layer that is
+	 * still loading are cut but not cached.
+	 *
+	 * @param pLayer layer of the tile
+	 * @param zoom tile zoom level
+	 * @param x tile column
+	 * @param y tile row, from the top
+	 * @return the tile
+	 * @throws StaticFeatureException
+	 */
+	public VectorTile getTile(Layer pLayer, int zoom, int x, int y) throws StaticFeatureException {
+		String tile = pLayer.getName() + " " + zoom + "/" + x + "/" + y;
+		try {
+			StaticFeatureTile cached = staticFeatureTileDao.queryBuilder().where()
+					.eq(StaticFeatureTile.COLUMN_NAME_LAYER_ID, pLayer.getId())
+					.and().eq(StaticFeatureTile.COLUMN_NAME_ZOOM, zoom)
+					.and().eq(StaticFeatureTile.COLUMN_NAME_X, x)
+					.and().eq(StaticFeatureTile.COLUMN_NAME_Y, y)
+					.queryForFirst();
+			if (cached != null) {
+				return VectorTile.decode(zoom, x, y, cached.getData());
+			}
+
+			VectorTile vectorTile = cutTile(pLayer, zoom, x, y);
+			if (!pLayer.isLoaded()) {
+				return vectorTile;
+			}
+
+			try {
+				staticFeatureTileDao.create(new StaticFeatureTile(pLayer.getId(), zoom, x, y, vectorTile.encode()));
+			} catch (SQLException sqle) {
+				// another thread cut the same tile
+				Log.w(LOG_NAME, "Unable to cache tile " + tile, sqle);
+			}
+			return vectorTile;
+		} catch (SQLException | IOException e) {
+			Log.e(LOG_NAME, "Unable to read tile " + tile, e);
+			throw new StaticFeatureException("Unable to read tile " + tile, e);
+		}
+	}
+
+	private VectorTile cutTile(Layer layer, int zoom, int x, int y) throws StaticFeatureException {
+		Envelope bounds = VectorTile.envelope(zoom, x, y);
+		bounds.expandBy(bounds.getWidth() * TILE_BUFFER_PIXELS / 256, bounds.getHeight() * TILE_BUFFER_PIXELS / 256);
+		Geometry clip = geometryFactory.toGeometry(bounds);
+
+		List<VectorTile.Feature> features = new ArrayList<>();
+		for (StaticFeature staticFeature : queryByEnvelope(bounds, layer.getId(), zoom)) {
+			Geometry geometry = staticFeature.getGeometry();
+			if (!bounds.contains(geometry.getEnvelopeInternal())) {
+				try {
+					geometry = geometry.intersection(clip);
+				} catch (RuntimeException e) {
+					// invalid geometries can fail to clip, draw them whole
+					Log.w(LOG_NAME, "Unable to clip static feature " + staticFeature.getId() + " to tile " + zoom + "/" + x + "/" + y, e);
+				}
+			}
+
+			if (!geometry.isEmpty()) {
+				features.add(new VectorTile.Feature(staticFeature.getId(), geometry));
+			}
+		}
+
+		return new VectorTile(zoom, x, y, features);
+	}
+
+	private void deleteTiles(Long layerId) throws StaticFeatureException {
+		try {
+			DeleteBuilder<StaticFeatureTile, Long> tileDeleteBuilder = staticFeatureTileDao.deleteBuilder();
+			tileDeleteBuilder.where().eq(StaticFeatureTile.COLUMN_NAME_LAYER_ID, layerId);
+			tileDeleteBuilder.delete();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete tiles with layer id = '" + layerId + "'", sqle);
+			throw new StaticFeatureException("Unable to delete tiles with layer id = '" + layerId + "'", sqle);
+		}
+	}
+
+	/**
+	 * Drops the oldest cached tiles of all layers, beyond a maximum number of tiles.
+	 *
+	 * @param maxTiles number of tiles to keep
+	 * @return number of tiles deleted
+	 * @throws StaticFeatureException
+	 */
+	public int trimTiles(int maxTiles) throws StaticFeatureException {
+		try {
+			QueryBuilder<StaticFeatureTile, Long> keep = staticFeatureTileDao.queryBuilder().selectColumns(StaticFeatureTile.COLUMN_NAME_ID);
+			keep.orderBy(StaticFeatureTile.COLUMN_NAME_ID, false).limit((long) maxTiles);
+
+			DeleteBuilder<StaticFeatureTile, Long> tileDeleteBuilder = staticFeatureTileDao.deleteBuilder();
+			tileDeleteBuilder.where().notIn(StaticFeatureTile.COLUMN_NAME_ID, keep);
+			return tileDeleteBuilder.delete();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to trim tiles to " + maxTiles, sqle);
+			throw new StaticFeatureException("Unable to trim tiles to " + maxTiles, sqle);
+		}
+	}
+
 	public void deleteAll(Long layerId) throws StaticFeatureException {
+		deleteTiles(layerId);
+
 		List<StaticFeature> features = readAll(layerId);
 		Collection<Long> ids = new ArrayList<>(features.size());
 		for (StaticFeature feature : features) {
@@ -196,7 +531,12 @@ public class StaticFeatureHelper extends DaoHelper<StaticFeature> implements IEv
 		}
 
 		try {
-			// Delete the properties (children)
+			// Delete the simplified geometries and properties (children)
+			DeleteBuilder<StaticFeatureGeometry, Long> geometryDeleteBuilder = staticFeatureGeometryDao.deleteBuilder();
+			geometryDeleteBuilder.where().in(StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID, ids);
+			geometryDeleteBuilder.delete();
+
+
 			DeleteBuilder propertyDeleteBuilder = staticFeaturePropertyDao.deleteBuilder();
 			propertyDeleteBuilder.where().in(StaticFeatureProperty.STATIC_FEATURE_ID, ids);
 			int propertiesDeleted = staticFeaturePropertyDao.delete(propertyDeleteBuilder.prepare());
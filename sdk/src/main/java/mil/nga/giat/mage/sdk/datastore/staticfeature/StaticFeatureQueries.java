@@ -0,0 +1,65 @@
+package mil.nga.giat.mage.sdk.datastore.staticfeature;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.vividsolutions.jts.geom.Envelope;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.mage.sdk.datastore.SpatialIndex;
+
+/**
+ * Builds the queries of the {@link StaticFeatureHelper}.  The helper runs them,
+ * the query plan tests explain them against the schema DaoStore creates.
+ * Raw SQL builders add their arguments to the list they are given.
+ */
+class StaticFeatureQueries {
+
+	private final Dao<StaticFeature, Long> staticFeatureDao;
+
+	StaticFeatureQueries(Dao<StaticFeature, Long> staticFeatureDao) {
+		this.staticFeatureDao = staticFeatureDao;
+	}
+
+	/**
+	 * @return features of the layer
+	 */
+	QueryBuilder<StaticFeature, Long> byLayer(Long layerId) throws SQLException {
+		QueryBuilder<StaticFeature, Long> queryBuilder = staticFeatureDao.queryBuilder();
+		queryBuilder.where().eq(StaticFeature.STATIC_FEATURE_LAYER_ID, layerId);
+		return queryBuilder;
+	}
+
+	/**
+	 * @return features of the layer whose geometry envelope intersects the envelope
+	 */
+	QueryBuilder<StaticFeature, Long> byEnvelope(Envelope envelope, Long layerId) throws SQLException {
+		QueryBuilder<StaticFeature, Long> queryBuilder = staticFeatureDao.queryBuilder();
+		SpatialIndex.intersects(queryBuilder.where(), "staticfeatures", StaticFeature.STATIC_FEATURE_ID, envelope).and().eq(StaticFeature.STATIC_FEATURE_LAYER_ID, layerId);
+		return queryBuilder;
+	}
+
+	/**
+	 * @param maxZoom zoom band of the simplified geometries, or null for full geometries
+	 * @return id and geometry of the features of the layer whose geometry envelope intersects the envelope
+	 */
+	static String geometriesByEnvelope(Envelope envelope, Long layerId, Integer maxZoom, List<String> arguments) {
+		StringBuilder sql = new StringBuilder("SELECT f.").append(StaticFeature.STATIC_FEATURE_ID).append(", ");
+		if (maxZoom != null) {
+			sql.append("COALESCE(g.").append(StaticFeatureGeometry.COLUMN_NAME_GEOMETRY).append(", f.geometry) FROM staticfeatures f ")
+					.append("LEFT JOIN staticfeature_geometries g ON g.").append(StaticFeatureGeometry.COLUMN_NAME_STATIC_FEATURE_ID).append(" = f.").append(StaticFeature.STATIC_FEATURE_ID)
+					.append(" AND g.").append(StaticFeatureGeometry.COLUMN_NAME_MAX_ZOOM).append(" = ? ");
+			arguments.add(String.valueOf(maxZoom));
+		} else {
+			sql.append("f.geometry FROM staticfeatures f ");
+		}
+		sql.append("WHERE f.").append(StaticFeature.STATIC_FEATURE_LAYER_ID).append(" = ? AND ")
+				.append(SpatialIndex.getIntersectsClause("staticfeatures", "f", StaticFeature.STATIC_FEATURE_ID));
+		arguments.add(String.valueOf(layerId));
+		arguments.addAll(Arrays.asList(SpatialIndex.getIntersectsArguments(envelope)));
+
+		return sql.toString();
+	}
+}
@@ -0,0 +1,76 @@
+package mil.nga.giat.mage.sdk.datastore.staticfeature;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * Cached vector tile of a static feature layer, keyed by layer and z/x/y.
+ * The data is a {@link VectorTile} encoding.  Tiles are cut on first read and
+ * dropped when the features of their layer are deleted or loaded again.  The
+ * retention job keeps the newest {@link StaticFeatureHelper#MAX_CACHED_TILES}.
+ */
+@DatabaseTable(tableName = "staticfeature_tiles")
+public class StaticFeatureTile {
+
+	public static final String COLUMN_NAME_ID = "id";
+	public static final String COLUMN_NAME_LAYER_ID = "layer_id";
+	public static final String COLUMN_NAME_ZOOM = "zoom";
+	public static final String COLUMN_NAME_X = "x";
+	public static final String COLUMN_NAME_Y = "y";
+	public static final String COLUMN_NAME_DATA = "data";
+
+	@DatabaseField(generatedId = true, columnName = COLUMN_NAME_ID)
+	private Long id;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_LAYER_ID)
+	private Long layerId;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_ZOOM)
+	private int zoom;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_X)
+	private int x;
+
+	@DatabaseField(canBeNull = false, uniqueCombo = true, columnName = COLUMN_NAME_Y)
+	private int y;
+
+	@DatabaseField(canBeNull = false, dataType = DataType.BYTE_ARRAY, columnName = COLUMN_NAME_DATA)
+	private byte[] data;
+
+	public StaticFeatureTile() {
+		// ORMLite needs a no-arg constructor
+	}
+
+	public StaticFeatureTile(Long layerId, int zoom, int x, int y, byte[] data) {
+		this.layerId = layerId;
+		this.zoom = zoom;
+		this.x = x;
+		this.y = y;
+		this.data = data;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getLayerId() {
+		return layerId;
+	}
+
+	public int getZoom() {
+		return zoom;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+}
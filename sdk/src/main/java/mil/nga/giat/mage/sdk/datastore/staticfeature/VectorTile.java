@@ -0,0 +1,130 @@
+package mil.nga.giat.mage.sdk.datastore.staticfeature;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKBReader;
+import com.vividsolutions.jts.io.WKBWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Features of one web mercator z/x/y tile, with geometries clipped to the tile
+ * and simplified for its zoom.  Feature ids can be used with
+ * {@link StaticFeatureHelper#read(Long)} to read the properties of a feature.
+ *
+ * Encoded as a feature count followed by the id, WKB length and WKB of each
+ * feature.
+ */
+public class VectorTile {
+
+	private final int zoom;
+	private final int x;
+	private final int y;
+	private final List<Feature> features;
+
+	public VectorTile(int zoom, int x, int y, List<Feature> features) {
+		this.zoom = zoom;
+		this.x = x;
+		this.y = y;
+		this.features = Collections.unmodifiableList(features);
+	}
+
+	public int getZoom() {
+		return zoom;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public List<Feature> getFeatures() {
+		return features;
+	}
+
+	/**
+	 * @return bounds of the tile, in degrees
+	 */
+	public static Envelope envelope(int zoom, int x, int y) {
+		double tiles = Math.pow(2, zoom);
+		return new Envelope(
+				x / tiles * 360.0 - 180.0,
+				(x + 1) / tiles * 360.0 - 180.0,
+				latitude(y + 1, tiles),
+				latitude(y, tiles));
+	}
+
+	private static double latitude(int y, double tiles) {
+		return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / tiles))));
+	}
+
+	public byte[] encode() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		WKBWriter writer = new WKBWriter();
+
+		out.writeInt(features.size());
+		for (Feature feature : features) {
+			byte[] wkb = writer.write(feature.getGeometry());
+			out.writeLong(feature.getId());
+			out.writeInt(wkb.length);
+			out.write(wkb);
+		}
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	public static VectorTile decode(int zoom, int x, int y, byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		WKBReader reader = new WKBReader(new GeometryFactory());
+
+		int count = in.readInt();
+		List<Feature> features = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			long id = in.readLong();
+			byte[] wkb = new byte[in.readInt()];
+			in.readFully(wkb);
+			try {
+				features.add(new Feature(id, reader.read(wkb)));
+			} catch (ParseException e) {
+				throw new IOException("Invalid geometry in tile " + zoom + "/" + x + "/" + y, e);
+			}
+		}
+
+		return new VectorTile(zoom, x, y, features);
+	}
+
+	/**
+	 * Static feature id and tile geometry.
+	 */
+	public static class Feature {
+		private final Long id;
+		private final Geometry geometry;
+
+		public Feature(Long id, Geometry geometry) {
+			this.id = id;
+			this.geometry = geometry;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public Geometry getGeometry() {
+			return geometry;
+		}
+	}
+}
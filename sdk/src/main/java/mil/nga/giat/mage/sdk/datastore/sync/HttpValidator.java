@@ -0,0 +1,65 @@
+package mil.nga.giat.mage.sdk.datastore.sync;
+
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+/**
+ * ETag and Last-Modified header of the last response of an endpoint whose
+ * content was saved.  They are sent back as If-None-Match and
+ * If-Modified-Since, so the server can answer 304 Not Modified when nothing
+ * changed.
+ */
+@DatabaseTable(tableName = "http_validators")
+public class HttpValidator {
+
+	public static final String COLUMN_NAME_NAME = "name";
+	public static final String COLUMN_NAME_ETAG = "etag";
+	public static final String COLUMN_NAME_LAST_MODIFIED = "last_modified";
+
+	@DatabaseField(generatedId = true)
+	private Long _id;
+
+	@DatabaseField(canBeNull = false, unique = true, columnName = COLUMN_NAME_NAME)
+	private String name;
+
+	@DatabaseField(columnName = COLUMN_NAME_ETAG)
+	private String etag;
+
+	@DatabaseField(columnName = COLUMN_NAME_LAST_MODIFIED)
+	private String lastModified;
+
+	public HttpValidator() {
+		// ORMLite needs a no-arg constructor
+	}
+
+	public HttpValidator(String name) {
+		this.name = name;
+	}
+
+	public Long getId() {
+		return _id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getETag() {
+		return etag;
+	}
+
+	public void setETag(String etag) {
+		this.etag = etag;
+	}
+
+	/**
+	 * @return Last-Modified header, as the server sent it
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+	}
+}
@@ -0,0 +1,120 @@
+package mil.nga.giat.mage.sdk.datastore.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.DeleteBuilder;
+
+import java.sql.SQLException;
+
+import mil.nga.giat.mage.sdk.datastore.DaoStore;
+
+/**
+ * Persists the HTTP validators of conditionally fetched endpoints, one per
+ * name.  A validator is only saved once the content of its response has been
+ * saved, and validators live in the database so they are dropped with that
+ * content.
+ */
+public class HttpValidatorHelper {
+
+	private static final String LOG_NAME = HttpValidatorHelper.class.getName();
+
+	private static HttpValidatorHelper httpValidatorHelper;
+
+	private final Dao<HttpValidator, Long> httpValidatorDao;
+
+	public static synchronized HttpValidatorHelper getInstance(Context context) {
+		if (httpValidatorHelper == null) {
+			httpValidatorHelper = new HttpValidatorHelper(context);
+		}
+		return httpValidatorHelper;
+	}
+
+	private HttpValidatorHelper(Context context) {
+		try {
+			httpValidatorDao = DaoStore.getInstance(context).getHttpValidatorDao();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to communicate with HttpValidator database.", sqle);
+
+			throw new IllegalStateException("Unable to communicate with HttpValidator database.", sqle);
+		}
+	}
+
+	/**
+	 * @param name name of the endpoint
+	 * @return the saved validator, or an empty one that makes the request unconditional
+	 */
+	public HttpValidator read(String name) {
+		try {
+			HttpValidator validator = httpValidatorDao.queryBuilder().where().eq(HttpValidator.COLUMN_NAME_NAME, name).queryForFirst();
+			if (validator != null) {
+				return validator;
+			}
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to read HTTP validator " + name + ", fetching unconditionally.", sqle);
+		}
+
+		return new HttpValidator(name);
+	}
+
+	/**
+	 * Saves a validator after the content of its response was saved.  Failing
+	 * to save only costs a full fetch next time, so failures are logged.
+	 *
+	 * @param validator validator updated from the response
+	 */
+	public void save(HttpValidator validator) {
+		try {
+			if (validator.getETag() == null && validator.getLastModified() == null) {
+				delete(validator.getName());
+			} else {
+				httpValidatorDao.createOrUpdate(validator);
+			}
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to save HTTP validator " + validator.getName() + ".", sqle);
+		}
+	}
+
+	/**
+	 * Forget every validator, i.e. when saved content was replaced locally.
+	 */
+	public void deleteAll() {
+		try {
+			httpValidatorDao.deleteBuilder().delete();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete HTTP validators.", sqle);
+		}
+	}
+
+	/**
+	 * Forget every validator with a name that starts with a prefix, i.e. when
+	 * the content of all endpoints of one kind was deleted locally.
+	 *
+	 * @param prefix prefix of the endpoint names
+	 */
+	public void deleteByPrefix(String prefix) {
+		try {
+			DeleteBuilder<HttpValidator, Long> deleteBuilder = httpValidatorDao.deleteBuilder();
+			deleteBuilder.where().like(HttpValidator.COLUMN_NAME_NAME, prefix + "%");
+			deleteBuilder.delete();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete HTTP validators " + prefix + ".", sqle);
+		}
+	}
+
+	/**
+	 * Forget a validator, i.e. when the content of its endpoint was deleted locally.
+	 *
+	 * @param name name of the endpoint
+	 */
+	public void delete(String name) {
+		try {
+			DeleteBuilder<HttpValidator, Long> deleteBuilder = httpValidatorDao.deleteBuilder();
+			deleteBuilder.where().eq(HttpValidator.COLUMN_NAME_NAME, name);
+			deleteBuilder.delete();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to delete HTTP validator " + name + ".", sqle);
+		}
+	}
+}
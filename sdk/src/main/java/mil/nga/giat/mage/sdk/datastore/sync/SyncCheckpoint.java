@@ -0,0 +1,58 @@
+package mil.nga.giat.mage.sdk.datastore.sync;
+
+import com.j256.ormlite.field.DataType;
+import com.j256.ormlite.field.DatabaseField;
+import com.j256.ormlite.table.DatabaseTable;
+
+import java.util.Date;
+
+/**
+ * Position of a paged sync, the last modified date and remote id of the last
+ * entity that was saved.  The next page starts at its date, so an interrupted
+ * sync resumes where it stopped.
+ */
+@DatabaseTable(tableName = "sync_checkpoints")
+public class SyncCheckpoint {
+
+	public static final String COLUMN_NAME_NAME = "name";
+	public static final String COLUMN_NAME_LAST_MODIFIED = "last_modified";
+	public static final String COLUMN_NAME_REMOTE_ID = "remote_id";
+
+	@DatabaseField(generatedId = true)
+	private Long _id;
+
+	@DatabaseField(canBeNull = false, unique = true, columnName = COLUMN_NAME_NAME)
+	private String name;
+
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_LAST_MODIFIED, dataType = DataType.DATE_LONG)
+	private Date lastModified;
+
+	@DatabaseField(canBeNull = false, columnName = COLUMN_NAME_REMOTE_ID)
+	private String remoteId;
+
+	public SyncCheckpoint() {
+		// ORMLite needs a no-arg constructor
+	}
+
+	public SyncCheckpoint(String name, Date lastModified, String remoteId) {
+		this.name = name;
+		this.lastModified = lastModified;
+		this.remoteId = remoteId;
+	}
+
+	public Long getId() {
+		return _id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Date getLastModified() {
+		return lastModified;
+	}
+
+	public String getRemoteId() {
+		return remoteId;
+	}
+}
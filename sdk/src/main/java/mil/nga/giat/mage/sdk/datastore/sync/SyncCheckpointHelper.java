@@ -0,0 +1,100 @@
+package mil.nga.giat.mage.sdk.datastore.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.DeleteBuilder;
+import com.j256.ormlite.stmt.UpdateBuilder;
+
+import java.sql.SQLException;
+import java.util.Date;
+
+import mil.nga.giat.mage.sdk.datastore.DaoStore;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * Persists the checkpoints of paged syncs, one per name.  Helpers that delete
+ * the data a checkpoint describes delete the checkpoint with it, so the next
+ * sync starts over instead of resuming past data that is gone.
+ */
+public class SyncCheckpointHelper {
+
+	private static final String LOG_NAME = SyncCheckpointHelper.class.getName();
+
+	private static final String OBSERVATIONS_PREFIX = "observations/";
+
+	private static SyncCheckpointHelper syncCheckpointHelper;
+
+	private final Dao<SyncCheckpoint, Long> syncCheckpointDao;
+
+	public static synchronized SyncCheckpointHelper getInstance(Context context) {
+		if (syncCheckpointHelper == null) {
+			syncCheckpointHelper = new SyncCheckpointHelper(context);
+		}
+		return syncCheckpointHelper;
+	}
+
+	private SyncCheckpointHelper(Context context) {
+		this(getSyncCheckpointDao(context));
+	}
+
+	public SyncCheckpointHelper(Dao<SyncCheckpoint, Long> syncCheckpointDao) {
+		this.syncCheckpointDao = syncCheckpointDao;
+	}
+
+	private static Dao<SyncCheckpoint, Long> getSyncCheckpointDao(Context context) {
+		try {
+			return DaoStore.getInstance(context).getSyncCheckpointDao();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "Unable to communicate with SyncCheckpoint database.", sqle);
+
+			throw new IllegalStateException("Unable to communicate with SyncCheckpoint database.", sqle);
+		}
+	}
+
+	/**
+	 * @param event event
+	 * @return name of the checkpoint of the observation sync of the event
+	 */
+	public static String getObservationsName(Event event) {
+		return OBSERVATIONS_PREFIX + event.getRemoteId();
+	}
+
+	/**
+	 * @param name name of the sync
+	 * @return the checkpoint, or null if the sync has not saved a page yet
+	 * @throws SQLException
+	 */
+	public SyncCheckpoint read(String name) throws SQLException {
+		return syncCheckpointDao.queryBuilder().where().eq(SyncCheckpoint.COLUMN_NAME_NAME, name).queryForFirst();
+	}
+
+	/**
+	 * Moves the checkpoint of a sync to the last entity of a saved page.
+	 *
+	 * @param name name of the sync
+	 * @param lastModified last modified date of the last saved entity
+	 * @param remoteId remote id of the last saved entity
+	 * @return the new checkpoint
+	 * @throws SQLException
+	 */
+	public synchronized SyncCheckpoint save(String name, Date lastModified, String remoteId) throws SQLException {
+		// move the checkpoint in place, there is no moment without one
+		UpdateBuilder<SyncCheckpoint, Long> updateBuilder = syncCheckpointDao.updateBuilder();
+		updateBuilder.updateColumnValue(SyncCheckpoint.COLUMN_NAME_LAST_MODIFIED, lastModified);
+		updateBuilder.updateColumnValue(SyncCheckpoint.COLUMN_NAME_REMOTE_ID, remoteId);
+		updateBuilder.where().eq(SyncCheckpoint.COLUMN_NAME_NAME, name);
+		SyncCheckpoint checkpoint = new SyncCheckpoint(name, lastModified, remoteId);
+		if (updateBuilder.update() == 0) {
+			syncCheckpointDao.create(checkpoint);
+		}
+		return checkpoint;
+	}
+
+	public void delete(String name) throws SQLException {
+		DeleteBuilder<SyncCheckpoint, Long> deleteBuilder = syncCheckpointDao.deleteBuilder();
+		deleteBuilder.where().eq(SyncCheckpoint.COLUMN_NAME_NAME, name);
+		deleteBuilder.delete();
+	}
+}
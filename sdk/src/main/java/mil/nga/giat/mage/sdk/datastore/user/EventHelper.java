@@ -15,6 +15,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
 import mil.nga.giat.mage.sdk.datastore.location.LocationHelper;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationHelper;
@@ -34,6 +35,7 @@ public class EventHelper extends DaoHelper<Event> {
     private static final String LOG_NAME = EventHelper.class.getName();
 
     private final Dao<Event, Long> eventDao;
+    private final CompiledQuery<Event, Long> readByRemoteId;
     private final Dao<TeamEvent, Long> teamEventDao;
 
     /**
@@ -66,6 +68,7 @@ public class EventHelper extends DaoHelper<Event> {
 
         try {
             eventDao = daoStore.getEventDao();
+            readByRemoteId = CompiledQuery.byRemoteId(eventDao);
             teamEventDao = daoStore.getTeamEventDao();
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to communicate with Event database.", sqle);
@@ -80,6 +83,7 @@ public class EventHelper extends DaoHelper<Event> {
         Event createdEvent;
         try {
             createdEvent = eventDao.createIfNotExists(pEvent);
+            UserHelper.getInstance(mApplicationContext).invalidateSessionContext();
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "There was a problem creating event: " + pEvent, sqle);
             throw new EventException("There was a problem creating event: " + pEvent, sqle);
@@ -112,10 +116,7 @@ public class EventHelper extends DaoHelper<Event> {
     public Event read(String pRemoteId) throws EventException {
         Event event = null;
         try {
-            List<Event> results = eventDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
-            if (results != null && results.size() > 0) {
-                event = results.get(0);
-            }
+            event = readByRemoteId.queryForFirst(pRemoteId);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
             throw new EventException("Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
@@ -126,6 +127,7 @@ public class EventHelper extends DaoHelper<Event> {
     public Event update(Event pEvent) throws EventException {
         try {
             eventDao.update(pEvent);
+            UserHelper.getInstance(mApplicationContext).invalidateSessionContext();
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "There was a problem creating event: " + pEvent);
             throw new EventException("There was a problem creating event: " + pEvent, sqle);
@@ -208,9 +210,9 @@ public class EventHelper extends DaoHelper<Event> {
     public Event getCurrentEvent() {
         Event event = null;
         try {
-            User user = UserHelper.getInstance(mApplicationContext).readCurrentUser();
-            if (user != null) {
-                event = user.getUserLocal().getCurrentEvent();
+            SessionContext sessionContext = UserHelper.getInstance(mApplicationContext).getSessionContext();
+            if (sessionContext.getUser() != null) {
+                event = sessionContext.getEvent();
             } else {
 				Log.d(LOG_NAME, "Current user is null.  Why?");
 			}
@@ -265,6 +267,8 @@ public class EventHelper extends DaoHelper<Event> {
             }
         } catch (Exception e) {
             Log.e(LOG_NAME, "Error deleting event ", e);
+        } finally {
+            UserHelper.getInstance(mApplicationContext).invalidateSessionContext();
         }
     }
 }
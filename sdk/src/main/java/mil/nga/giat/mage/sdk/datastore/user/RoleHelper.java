@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
 import mil.nga.giat.mage.sdk.exceptions.RoleException;
 
@@ -29,6 +30,7 @@ public class RoleHelper extends DaoHelper<Role> {
 	private static final String LOG_NAME = RoleHelper.class.getName();
 
 	private final Dao<Role, Long> roleDao;
+	private final CompiledQuery<Role, Long> readByRemoteId;
 
 	/**
 	 * Singleton.
@@ -60,6 +62,7 @@ public class RoleHelper extends DaoHelper<Role> {
 
 		try {
 			roleDao = daoStore.getRoleDao();
+			readByRemoteId = CompiledQuery.byRemoteId(roleDao);
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with Role database.", sqle);
 
@@ -147,7 +150,7 @@ public class RoleHelper extends DaoHelper<Role> {
     public Role read(String pRemoteId) throws RoleException {
         Role role = null;
         try {
-            List<Role> results = roleDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
+            List<Role> results = readByRemoteId.query(pRemoteId);
             if (results != null && results.size() > 0) {
                 role = results.get(0);
             }
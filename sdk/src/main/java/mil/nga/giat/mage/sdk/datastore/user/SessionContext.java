@@ -0,0 +1,68 @@
+package mil.nga.giat.mage.sdk.datastore.user;
+
+import java.util.Date;
+
+/**
+ * In memory snapshot of the current user, their {@link UserLocal} row and
+ * current event.  Read with {@link UserHelper#getSessionContext()}.
+ *
+ * The snapshot is replaced by {@link UserHelper#setCurrentUser},
+ * {@link UserHelper#setCurrentEvent} and {@link UserHelper#removeCurrentEvent},
+ * and dropped by every other write to users and events, so reads do not go to
+ * the database.
+ *
+ * The user and user local rows are copied on every read, so callers can change
+ * and save them without changing the snapshot.  The event and role are shared,
+ * treat them as read only.
+ */
+public class SessionContext {
+
+	private final User user;
+	private final UserLocal userLocal;
+	private final Event event;
+
+	SessionContext(User user) {
+		this.user = user;
+		this.userLocal = user != null ? user.getUserLocal() : null;
+		this.event = userLocal != null ? userLocal.getCurrentEvent() : null;
+	}
+
+	/**
+	 * @return a copy of the current user, or null if no user is logged in
+	 */
+	public User getUser() {
+		if (user == null) {
+			return null;
+		}
+
+		User copy = new User(user.getRemoteId(), user.getUsername(), user.getDisplayName(), user.getEmail(), user.getPrimaryPhone(), user.getAvatarUrl(), user.getIconUrl(), user.getRecentEventId(), user.getRole());
+		copy.setId(user.getId());
+		copy.setFetchedDate(user.getFetchedDate() != null ? new Date(user.getFetchedDate().getTime()) : null);
+		copy.setUserLocal(getUserLocal());
+		return copy;
+	}
+
+	/**
+	 * @return a copy of the user local row of the current user, or null
+	 */
+	public UserLocal getUserLocal() {
+		if (userLocal == null) {
+			return null;
+		}
+
+		UserLocal copy = new UserLocal();
+		copy.setId(userLocal.getId());
+		copy.setCurrentUser(userLocal.isCurrentUser());
+		copy.setCurrentEvent(userLocal.getCurrentEvent());
+		copy.setLocalAvatarPath(userLocal.getLocalAvatarPath());
+		copy.setLocalIconPath(userLocal.getLocalIconPath());
+		return copy;
+	}
+
+	/**
+	 * @return the current event of the current user, or null
+	 */
+	public Event getEvent() {
+		return event;
+	}
+}
@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
 import mil.nga.giat.mage.sdk.exceptions.EventException;
 import mil.nga.giat.mage.sdk.exceptions.TeamException;
@@ -30,6 +31,7 @@ public class TeamHelper extends DaoHelper<Team> {
     private static final String LOG_NAME = TeamHelper.class.getName();
 
     private final Dao<Team, Long> teamDao;
+    private final CompiledQuery<Team, Long> readByRemoteId;
     private final Dao<UserTeam, Long> userTeamDao;
     private final Dao<TeamEvent, Long> teamEventDao;
 
@@ -64,6 +66,7 @@ public class TeamHelper extends DaoHelper<Team> {
 
         try {
             teamDao = daoStore.getTeamDao();
+            readByRemoteId = CompiledQuery.byRemoteId(teamDao);
             userTeamDao = daoStore.getUserTeamDao();
             teamEventDao = daoStore.getTeamEventDao();
         } catch (SQLException sqle) {
@@ -112,10 +115,7 @@ public class TeamHelper extends DaoHelper<Team> {
     public Team read(String pRemoteId) throws TeamException {
         Team team = null;
         try {
-            List<Team> results = teamDao.queryBuilder().where().eq("remote_id", pRemoteId).query();
-            if (results != null && results.size() > 0) {
-                team = results.get(0);
-            }
+            team = readByRemoteId.queryForFirst(pRemoteId);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
             throw new TeamException("Unable to query for existence for remote_id = '" + pRemoteId + "'", sqle);
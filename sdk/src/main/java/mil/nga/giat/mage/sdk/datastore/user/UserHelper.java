@@ -5,17 +5,19 @@ import android.util.Log;
 
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.stmt.DeleteBuilder;
-import com.j256.ormlite.stmt.PreparedQuery;
 import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
 import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.stmt.Where;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
 import mil.nga.giat.mage.sdk.datastore.DaoHelper;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
 import mil.nga.giat.mage.sdk.event.IEventEventListener;
@@ -34,6 +36,8 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 	private static final String LOG_NAME = UserHelper.class.getName();
 
 	private final Dao<User, Long> userDao;
+	private final CompiledQuery<User, Long> readByRemoteId;
+	private final CompiledQuery<User, Long> readCurrentUser;
 	private final Dao<UserLocal, Long> userLocalDao;
 	private final Dao<UserTeam, Long> userTeamDao;
 
@@ -69,8 +73,19 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 
 		try {
 			userDao = daoStore.getUserDao();
+			readByRemoteId = CompiledQuery.byRemoteId(userDao);
 			userLocalDao = daoStore.getUserLocalDao();
             userTeamDao = daoStore.getUserTeamDao();
+			readCurrentUser = new CompiledQuery<>(userDao, 0, new CompiledQuery.Builder<User, Long>() {
+				@Override
+				public void build(QueryBuilder<User, Long> queryBuilder, SelectArg... args) throws SQLException {
+					QueryBuilder<UserLocal, Long> userLocalQuery = userLocalDao.queryBuilder();
+					userLocalQuery.selectColumns(UserLocal.COLUMN_NAME_ID);
+					userLocalQuery.where().eq(UserLocal.COLUMN_NAME_CURRENT_USER, Boolean.TRUE);
+
+					queryBuilder.where().in(User.COLUMN_NAME_USER_LOCAL_ID, userLocalQuery);
+				}
+			});
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to communicate with User database.", sqle);
 
@@ -86,6 +101,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			UserLocal userLocal = userLocalDao.createIfNotExists(new UserLocal());
 			user.setUserLocal(userLocal);
 			createdUser = userDao.createIfNotExists(user);
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem creating user: " + user, sqle);
 			throw new UserException("There was a problem creating user: " + user, sqle);
@@ -108,10 +124,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
     public User read(String remoteId) throws UserException {
         User user = null;
         try {
-            List<User> results = userDao.queryBuilder().where().eq("remote_id", remoteId).query();
-            if (results != null && results.size() > 0) {
-                user = results.get(0);
-            }
+            user = readByRemoteId.queryForFirst(remoteId);
         } catch (SQLException sqle) {
             Log.e(LOG_NAME, "Unable to query for existence for remote_id = '" + remoteId + "'", sqle);
             throw new UserException("Unable to query for existence for remote_id = '" + remoteId + "'", sqle);
@@ -129,25 +142,44 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 	}
 
 	public User readCurrentUser() throws UserException {
-		User user;
+		return getSessionContext().getUser();
+	}
 
-		try {
-			QueryBuilder<UserLocal, Long> userLocalQuery = userLocalDao.queryBuilder();
-			userLocalQuery.selectColumns(UserLocal.COLUMN_NAME_ID);
-			Where<UserLocal, Long> where = userLocalQuery.where();
-			where.eq(UserLocal.COLUMN_NAME_CURRENT_USER, Boolean.TRUE);
+	/**
+	 * The current user and event, cached in memory.
+	 *
+	 * @return the session context, with a null user if no user is logged in
+	 * @throws UserException
+	 */
+	public SessionContext getSessionContext() throws UserException {
+		SessionContext sessionContext = daoStore.getSessionContext();
+		if (sessionContext == null) {
+			sessionContext = refreshSessionContext();
+		}
+		return sessionContext;
+	}
 
-			QueryBuilder<User, Long> userQuery = userDao.queryBuilder();
-			userQuery.where().in(User.COLUMN_NAME_USER_LOCAL_ID, userLocalQuery);
+	private synchronized SessionContext refreshSessionContext() throws UserException {
+		User user;
 
-			PreparedQuery<User> preparedQuery = userQuery.prepare();
-			user = userDao.queryForFirst(preparedQuery);
+		try {
+			user = readCurrentUser.queryForFirst();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem reading active users.");
 			throw new UserException("There was a problem reading active users.", sqle);
 		}
 
-		return user;
+		SessionContext sessionContext = new SessionContext(user);
+		daoStore.setSessionContext(sessionContext);
+		return sessionContext;
+	}
+
+	/**
+	 * Drop the session context after any write to users or events, it is
+	 * loaded again on next read.
+	 */
+	synchronized void invalidateSessionContext() {
+		daoStore.setSessionContext(null);
 	}
 
 	public boolean isCurrentUserPartOfEvent(Event event) {
@@ -178,6 +210,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			User oldUser = read(user.getId());
 			user.setUserLocal(oldUser.getUserLocal());
 			userDao.update(user);
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem creating user: " + user);
 			throw new UserException("There was a problem creating user: " + user, sqle);
@@ -197,6 +230,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 				user.setId(oldUser.getId());
 				user.setUserLocal(oldUser.getUserLocal());
 				userDao.update(user);
+				invalidateSessionContext();
 				Log.d(LOG_NAME, "Updated user with remote_id " + user.getRemoteId());
 			}
 		} catch (Exception ue) {
@@ -205,6 +239,25 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 		return user;
 	}
 
+	/**
+	 * Marks every user as fetched in one update, i.e. when the server answered
+	 * that the users did not change.
+	 *
+	 * @param fetchedDate date the users were fetched
+	 * @throws UserException
+	 */
+	public void updateFetchedDate(Date fetchedDate) throws UserException {
+		try {
+			UpdateBuilder<User, Long> updateBuilder = userDao.updateBuilder();
+			updateBuilder.updateColumnValue("fetched_date", fetchedDate);
+			updateBuilder.update();
+			invalidateSessionContext();
+		} catch (SQLException sqle) {
+			Log.e(LOG_NAME, "There was a problem updating the fetched date of users", sqle);
+			throw new UserException("There was a problem updating the fetched date of users", sqle);
+		}
+	}
+
 	public User setCurrentUser(User user) throws UserException {
 		try {
 			clearCurrentUser();
@@ -215,6 +268,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			builder.update();
 
 			userDao.refresh(user);
+			refreshSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to update user '" + user.getDisplayName() + "' to current user" , sqle);
 			throw new UserException("Unable to update UserLocal table", sqle);
@@ -241,6 +295,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 
 				// run update before firing event to make sure update works.
 				builder.update();
+				refreshSessionContext();
 
 				if (oldEventRemoteId == null ^ newEventRemoteId == null) {
 					for (IEventEventListener listener : listeners) {
@@ -270,12 +325,22 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 		}
 
 		try {
+			UserLocal userLocal = user.getUserLocal();
+			boolean eventChanged = userLocal.isCurrentUser() && userLocal.getCurrentEvent() != null;
+
 			UpdateBuilder<UserLocal, Long> builder = userLocalDao.updateBuilder();
-			builder.where().idEq(user.getUserLocal().getId());
+			builder.where().idEq(userLocal.getId());
 			builder.updateColumnValue(UserLocal.COLUMN_NAME_CURRENT_EVENT, null);
 			builder.update();
 
 			userDao.refresh(user);
+			refreshSessionContext();
+
+			if (eventChanged) {
+				for (IEventEventListener listener : listeners) {
+					listener.onEventChanged();
+				}
+			}
 		} catch (SQLException e) {
 			Log.e(LOG_NAME, "Unable to clear current event for user '" + user.getDisplayName() + "'");
 			throw new UserException("Unable to update UserLocal table", e);
@@ -292,6 +357,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			builder.update();
 
 			userDao.refresh(user);
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to update users '" + user.getDisplayName() + "' avatar path" , sqle);
 			throw new UserException("Unable to update UserLocal table", sqle);
@@ -308,6 +374,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			builder.update();
 
 			userDao.refresh(user);
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "Unable to update users '" + user.getDisplayName() + "' icon path" , sqle);
 			throw new UserException("Unable to update UserLocal table", sqle);
@@ -321,6 +388,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			UpdateBuilder<UserLocal, Long> builder = userLocalDao.updateBuilder();
 			builder.updateColumnValue(UserLocal.COLUMN_NAME_CURRENT_USER, Boolean.FALSE);
 			builder.update();
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem deleting active userlocal.", sqle);
 			throw new UserException("There was a problem deleting active userlocal.", sqle);
@@ -338,6 +406,7 @@ public class UserHelper extends DaoHelper<User> implements IEventDispatcher<IEve
 			DeleteBuilder<UserLocal, Long> db = userLocalDao.deleteBuilder();
 			db.where().eq(UserLocal.COLUMN_NAME_CURRENT_USER, Boolean.TRUE);
 			db.delete();
+			invalidateSessionContext();
 		} catch (SQLException sqle) {
 			Log.e(LOG_NAME, "There was a problem deleting active userlocal.", sqle);
 			throw new UserException("There was a problem deleting active userlocal.", sqle);
@@ -0,0 +1,19 @@
+package mil.nga.giat.mage.sdk.event;
+
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * Location listener that is also told about set based deletes, which do not
+ * call {@link ILocationEventListener#onLocationDeleted} with the deleted
+ * locations.  Register it like any location listener.
+ */
+public interface ILocationPurgeListener extends ILocationEventListener {
+
+	/**
+	 * Locations in the event were deleted, all of them or those the
+	 * retention job pruned.
+	 *
+	 * @param event
+	 */
+	public void onLocationsDeleted(final Event event);
+}
@@ -0,0 +1,19 @@
+package mil.nga.giat.mage.sdk.event;
+
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * Observation listener that is also told about set based deletes, which do
+ * not call {@link IObservationEventListener#onObservationDeleted} for each
+ * observation.  Register it like any observation listener.
+ */
+public interface IObservationPurgeListener extends IObservationEventListener {
+
+	/**
+	 * Observations in the event were deleted, all of them or those the
+	 * retention job pruned.
+	 *
+	 * @param event
+	 */
+	public void onObservationsDeleted(final Event event);
+}
@@ -0,0 +1,19 @@
+package mil.nga.giat.mage.sdk.event;
+
+import mil.nga.giat.mage.sdk.datastore.layer.Layer;
+
+/**
+ * Static feature listener that is also told the progress of loading a layer.
+ * Register it like any static feature listener.
+ */
+public interface IStaticFeatureLoadingListener extends IStaticFeatureEventListener {
+
+	/**
+	 * Progress of loading the features of a layer, called after each batch.
+	 *
+	 * @param layer
+	 * @param loaded number of features loaded so far
+	 * @param total number of features to load
+	 */
+	public void onStaticFeaturesLoading(final Layer layer, int loaded, int total);
+}
@@ -20,6 +20,8 @@ import java.util.concurrent.TimeUnit;
 
 import mil.nga.giat.mage.sdk.ConnectivityAwareIntentService;
 import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidatorHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.EventHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Role;
@@ -39,6 +41,9 @@ import mil.nga.giat.mage.sdk.login.LoginTaskFactory;
 /**
  * This class will fetch events, roles, users and teams just once.
  *
+ * Each collection is fetched conditionally, a collection that did not change
+ * since it was last saved is neither parsed nor written.
+ *
  */
 public class InitialFetchIntentService extends ConnectivityAwareIntentService {
 	
@@ -52,6 +57,11 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
     private static final long retryTime = 4000;
     private static final long retryCount = 4;
 
+    private static final String ROLES_VALIDATOR = "roles";
+    private static final String USERS_VALIDATOR = "users";
+    private static final String TEAMS_VALIDATOR = "teams";
+    private static final String EVENTS_VALIDATOR = "events";
+
 	private DownloadImageTask avatarFetch;
 	private DownloadImageTask iconFetch;
 
@@ -80,12 +90,13 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
             Log.d(LOG_NAME, "Pulled and saved users in " + (end - start) / 1000 + " seconds");
 
             start = System.currentTimeMillis();
-            fetchAndSaveTeams();
+            boolean teamsModified = fetchAndSaveTeams();
             end = System.currentTimeMillis();
             Log.d(LOG_NAME, "Pulled and saved teams in " + (end - start) / 1000 + " seconds");
 
             start = System.currentTimeMillis();
-            fetchAndSaveEvents();
+            // team events reference teams, refetch them if the teams changed
+            fetchAndSaveEvents(!teamsModified);
             end = System.currentTimeMillis();
             Log.d(LOG_NAME, "Pulled and saved events in " + (end - start) / 1000 + " seconds");
 
@@ -132,17 +143,27 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
             Log.d(LOG_NAME, "Attempting to fetch roles...");
 
             RoleResource roleResource = new RoleResource(getApplicationContext());
+            HttpValidatorHelper httpValidatorHelper = HttpValidatorHelper.getInstance(getApplicationContext());
             try {
-                Collection<Role> roles = roleResource.getRoles();
-                Log.d(LOG_NAME, "Fetched " + roles.size() + " roles");
-
-                RoleHelper roleHelper = RoleHelper.getInstance(getApplicationContext());
-                for (Role role : roles) {
-                    if (isCanceled) {
-                        break;
+                HttpValidator validator = httpValidatorHelper.read(ROLES_VALIDATOR);
+                Collection<Role> roles = roleResource.getRoles(validator);
+                if (roles == null) {
+                    Log.d(LOG_NAME, "Roles not modified");
+                } else {
+                    Log.d(LOG_NAME, "Fetched " + roles.size() + " roles");
+
+                    RoleHelper roleHelper = RoleHelper.getInstance(getApplicationContext());
+                    for (Role role : roles) {
+                        if (isCanceled) {
+                            break;
+                        }
+                        if (role != null) {
+                            roleHelper.createOrUpdate(role);
+                        }
                     }
-                    if (role != null) {
-                        roleHelper.createOrUpdate(role);
+
+                    if (!isCanceled) {
+                        httpValidatorHelper.save(validator);
                     }
                 }
 
@@ -170,38 +191,53 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
 
         final UserResource userResource = new UserResource(getApplicationContext());
         final UserHelper userHelper = UserHelper.getInstance(getApplicationContext());
+        final HttpValidatorHelper httpValidatorHelper = HttpValidatorHelper.getInstance(getApplicationContext());
 
         while (!didFetchUsers && !isCanceled && attemptCount < retryCount) {
             Log.d(LOG_NAME, "Attempting to fetch users...");
 
             try {
-                Collection<User> users = userResource.getUsers();
-                Log.d(LOG_NAME, "Fetched " + users.size() + " users");
-
-                final ArrayList<User> avatarUsers = new ArrayList<>();
-                final ArrayList<User> iconUsers = new ArrayList<>();
-                for (User user : users) {
-                    if (isCanceled) {
-                        break;
-                    }
+                HttpValidator validator = httpValidatorHelper.read(USERS_VALIDATOR);
+                Collection<User> users = userResource.getUsers(validator);
+                if (users == null) {
+                    Log.d(LOG_NAME, "Users not modified");
+
+                    // the saved users are current, keep them from being fetched one at a time
+                    userHelper.updateFetchedDate(new Date());
+                } else {
+                    Log.d(LOG_NAME, "Fetched " + users.size() + " users");
+
+                    boolean saved = true;
+                    final ArrayList<User> avatarUsers = new ArrayList<>();
+                    final ArrayList<User> iconUsers = new ArrayList<>();
+                    for (User user : users) {
+                        if (isCanceled) {
+                            break;
+                        }
 
-                    try {
-                        user.setFetchedDate(new Date());
-                        user = userHelper.createOrUpdate(user);
+                        try {
+                            user.setFetchedDate(new Date());
+                            user = userHelper.createOrUpdate(user);
 
-                        if (user.getAvatarUrl() != null) {
-                            avatarUsers.add(user);
-                        }
-                        if (user.getIconUrl() != null) {
-                            iconUsers.add(user);
+                            if (user.getAvatarUrl() != null) {
+                                avatarUsers.add(user);
+                            }
+                            if (user.getIconUrl() != null) {
+                                iconUsers.add(user);
+                            }
+                        } catch (Exception e) {
+                            saved = false;
+                            Log.e(LOG_NAME, "There was a failure while performing an user fetch operation.", e);
                         }
-                    } catch (Exception e) {
-                        Log.e(LOG_NAME, "There was a failure while performing an user fetch operation.", e);
                     }
-                }
 
-                avatarFetch = new DownloadImageTask(getApplicationContext(), avatarUsers, DownloadImageTask.ImageType.AVATAR, true);
-                iconFetch = new DownloadImageTask(getApplicationContext(), iconUsers, DownloadImageTask.ImageType.ICON, true);
+                    avatarFetch = new DownloadImageTask(getApplicationContext(), avatarUsers, DownloadImageTask.ImageType.AVATAR, true);
+                    iconFetch = new DownloadImageTask(getApplicationContext(), iconUsers, DownloadImageTask.ImageType.ICON, true);
+
+                    if (saved && !isCanceled) {
+                        httpValidatorHelper.save(validator);
+                    }
+                }
 
                 didFetchUsers = Boolean.TRUE;
             } catch (Exception e) {
@@ -220,45 +256,62 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
 
     /**
      * Create teams
+     *
+     * @return true if the teams changed and were saved again
      */
-    private void fetchAndSaveTeams() {
+    private boolean fetchAndSaveTeams() {
         UserHelper userHelper = UserHelper.getInstance(getApplicationContext());
+        HttpValidatorHelper httpValidatorHelper = HttpValidatorHelper.getInstance(getApplicationContext());
 
         Boolean didFetchTeams = Boolean.FALSE;
+        boolean modified = false;
         int attemptCount = 0;
 
         TeamResource teamResource = new TeamResource(getApplicationContext());
         while(!didFetchTeams && !isCanceled && attemptCount < retryCount) {
-            userHelper.deleteUserTeams();
             Log.d(LOG_NAME, "Attempting to fetch teams...");
 
             try {
-                Map<Team, Collection<User>> teams = teamResource.getTeams();
-                Log.d(LOG_NAME, "Fetched " + teams.size() + " teams");
-
-                TeamHelper teamHelper = TeamHelper.getInstance(getApplicationContext());
-                for (Team team : teams.keySet()) {
-                    if (isCanceled) {
-                        break;
-                    }
-                    try {
-                        if (team != null) {
-                            team = teamHelper.createOrUpdate(team);
-
-                            for (User user : teams.get(team)) {
-                                if(userHelper.read(user.getRemoteId()) == null) {
-                                    user = userHelper.createOrUpdate(user);
+                HttpValidator validator = httpValidatorHelper.read(TEAMS_VALIDATOR);
+                Map<Team, Collection<User>> teams = teamResource.getTeams(validator);
+                if (teams == null) {
+                    Log.d(LOG_NAME, "Teams not modified");
+                } else {
+                    Log.d(LOG_NAME, "Fetched " + teams.size() + " teams");
+
+                    modified = true;
+                    userHelper.deleteUserTeams();
+
+                    boolean saved = true;
+                    TeamHelper teamHelper = TeamHelper.getInstance(getApplicationContext());
+                    for (Team team : teams.keySet()) {
+                        if (isCanceled) {
+                            break;
+                        }
+                        try {
+                            if (team != null) {
+                                team = teamHelper.createOrUpdate(team);
+
+                                for (User user : teams.get(team)) {
+                                    if(userHelper.read(user.getRemoteId()) == null) {
+                                        user = userHelper.createOrUpdate(user);
+                                    }
+                                    // populate the join table
+                                    userHelper.create(new UserTeam(user, team));
                                 }
-                                // populate the join table
-                                userHelper.create(new UserTeam(user, team));
                             }
+                        } catch (Exception e) {
+                            saved = false;
+                            Log.e(LOG_NAME, "There was a failure while performing a team fetch operation.", e);
                         }
-                    } catch (Exception e) {
-                        Log.e(LOG_NAME, "There was a failure while performing a team fetch operation.", e);
                     }
-                }
 
-                TeamHelper.getInstance(getApplicationContext()).syncTeams(teams.keySet());
+                    TeamHelper.getInstance(getApplicationContext()).syncTeams(teams.keySet());
+
+                    if (saved && !isCanceled) {
+                        httpValidatorHelper.save(validator);
+                    }
+                }
 
                 didFetchTeams = Boolean.TRUE;
             } catch (Exception e) {
@@ -273,50 +326,66 @@ public class InitialFetchIntentService extends ConnectivityAwareIntentService {
 
             attemptCount++;
         }
-    }
 
+        return modified;
+    }
 
     /**
      * Create events
      * TODO make sure events get deleted
+     *
+     * @param conditional false to fetch the events even if they did not change
      */
-    private void fetchAndSaveEvents() {
+    private void fetchAndSaveEvents(boolean conditional) {
         Boolean didFetchEvents = Boolean.FALSE;
         int attemptCount = 0;
         EventResource eventResource = new EventResource(getApplicationContext());
+        HttpValidatorHelper httpValidatorHelper = HttpValidatorHelper.getInstance(getApplicationContext());
         while(!didFetchEvents && !isCanceled && attemptCount < retryCount) {
             TeamHelper teamHelper = TeamHelper.getInstance(getApplicationContext());
-            teamHelper.deleteTeamEvents();
 
             Log.d(LOG_NAME, "Attempting to fetch events...");
 
             try {
-                Map<Event, Collection<Team>> events = eventResource.getEvents();
-                Log.d(LOG_NAME, "Fetched " + events.size() + " events");
-
-                EventHelper eventHelper = EventHelper.getInstance(getApplicationContext());
-                for (Event event : events.keySet()) {
-                    if (isCanceled) {
-                        break;
-                    }
-                    try {
-                        if (event != null) {
-                            event = eventHelper.createOrUpdate(event);
-
-                            for (Team team : events.get(event)) {
-                                if(teamHelper.read(team.getRemoteId()) == null) {
-                                    team = teamHelper.createOrUpdate(team);
+                HttpValidator validator = conditional ? httpValidatorHelper.read(EVENTS_VALIDATOR) : new HttpValidator(EVENTS_VALIDATOR);
+                Map<Event, Collection<Team>> events = eventResource.getEvents(validator);
+                if (events == null) {
+                    Log.d(LOG_NAME, "Events not modified");
+                } else {
+                    Log.d(LOG_NAME, "Fetched " + events.size() + " events");
+
+                    teamHelper.deleteTeamEvents();
+
+                    boolean saved = true;
+                    EventHelper eventHelper = EventHelper.getInstance(getApplicationContext());
+                    for (Event event : events.keySet()) {
+                        if (isCanceled) {
+                            break;
+                        }
+                        try {
+                            if (event != null) {
+                                event = eventHelper.createOrUpdate(event);
+
+                                for (Team team : events.get(event)) {
+                                    if(teamHelper.read(team.getRemoteId()) == null) {
+                                        team = teamHelper.createOrUpdate(team);
+                                    }
+                                    // populate the join table
+                                    teamHelper.create(new TeamEvent(team, event));
                                 }
-                                // populate the join table
-                                teamHelper.create(new TeamEvent(team, event));
                             }
+                        } catch (Exception e) {
+                            saved = false;
+                            Log.e(LOG_NAME, "There was a failure while performing an event fetch operation.", e);
                         }
-                    } catch (Exception e) {
-                        Log.e(LOG_NAME, "There was a failure while performing an event fetch operation.", e);
                     }
-                }
 
-                EventHelper.getInstance(getApplicationContext()).syncEvents(events.keySet());
+                    EventHelper.getInstance(getApplicationContext()).syncEvents(events.keySet());
+
+                    if (saved && !isCanceled) {
+                        httpValidatorHelper.save(validator);
+                    }
+                }
 
                 didFetchEvents = Boolean.TRUE;
             } catch (Exception e) {
@@ -9,6 +9,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidatorHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.http.resource.ObservationResource;
 import mil.nga.giat.mage.sdk.utils.ZipUtility;
@@ -23,12 +25,21 @@ public class ObservationBitmapFetch extends AbstractServerFetch {
 
 	public static final String OBSERVATION_ICON_PATH = "/icons/observations";
 
+	private static final String ICONS_VALIDATOR_PREFIX = "icons/";
+
 	public void fetch(Event event) {
 		ObservationResource observationResource = new ObservationResource(mContext);
 
 		try {
-			InputStream inputStream = observationResource.getObservationIcons(event);
 			File directory = new File(mContext.getFilesDir() + OBSERVATION_ICON_PATH);
+
+			// fetch unconditionally if the icons of a previous fetch are gone
+			HttpValidator validator = new File(directory, event.getRemoteId()).exists() ? HttpValidatorHelper.getInstance(mContext).read(ICONS_VALIDATOR_PREFIX + event.getRemoteId()) : new HttpValidator(ICONS_VALIDATOR_PREFIX + event.getRemoteId());
+			InputStream inputStream = observationResource.getObservationIcons(event, validator);
+			if (inputStream == null) {
+				return;
+			}
+
 			File zipFile = new File(directory, event.getRemoteId() + ".zip");
 			if (!zipFile.getParentFile().exists()) {
 				zipFile.getParentFile().mkdirs();
@@ -57,6 +68,8 @@ public class ObservationBitmapFetch extends AbstractServerFetch {
 
 			// delete the zip
 			zipFile.delete();
+
+			HttpValidatorHelper.getInstance(mContext).save(validator);
 		} catch (Exception e) {
 			Log.e(LOG_NAME, "There was a failure while retrieving the observation icons.", e);
 		}
@@ -0,0 +1,149 @@
+package mil.nga.giat.mage.sdk.fetch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.mage.sdk.datastore.observation.Observation;
+import mil.nga.giat.mage.sdk.exceptions.ObservationException;
+import mil.nga.giat.mage.sdk.jackson.deserializer.ObservationDeserializer;
+
+/**
+ * Pages through observations ordered by last modified date.  Each page starts
+ * at the last modified date of the page before it, inclusive, and skips the
+ * observations at that date that were already saved.  Observations with the
+ * same last modified date can come back in any order.
+ *
+ * A full page with nothing newer than its start date means more observations
+ * share that date than fit in a page.  That date is requested again with twice
+ * the limit until the page gets past it.
+ *
+ * Saving a page moves the start date past every observation before its last
+ * one, so a page is only saved, in part or in full, if the server returned it
+ * in order.  A server that ignores the sort can only return everything at once.
+ */
+abstract class ObservationPager {
+
+	private static final Comparator<Observation> LAST_MODIFIED = new Comparator<Observation>() {
+		@Override
+		public int compare(Observation o1, Observation o2) {
+			return o1.getLastModified().compareTo(o2.getLastModified());
+		}
+	};
+
+	private final int pageSize;
+
+	ObservationPager(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Request observations last modified at or after a date, ordered by last
+	 * modified date.
+	 *
+	 * @return number of observations handled
+	 * @throws IOException if the request fails, observations handled before
+	 * the failure are still saved
+	 */
+	protected abstract int fetchPage(Date startDate, int limit, ObservationDeserializer.ObservationHandler handler) throws IOException;
+
+	/**
+	 * Save a page, in last modified order.  The page is not requested again
+	 * once it was saved.
+	 */
+	protected abstract void savePage(List<Observation> page) throws ObservationException;
+
+	/**
+	 * @param startDate last modified date to start at, inclusive
+	 * @return number of observations saved
+	 */
+	public int fetch(Date startDate) throws IOException, ObservationException {
+		int saved = 0;
+
+		// observations saved at the start date, the next page returns them again
+		Set<String> savedAtStart = new HashSet<>();
+		int limit = pageSize;
+		while (true) {
+			PageHandler handler = new PageHandler(startDate, savedAtStart);
+			IOException failure = null;
+			int count = 0;
+			try {
+				count = fetchPage(startDate, limit, handler);
+			} catch (IOException e) {
+				// save what was handled before the failure
+				failure = e;
+			}
+
+			// anything but a full page is everything left
+			boolean last = failure == null && count != limit;
+			if (!handler.ordered) {
+				if (!last) {
+					// the last observation handled is not the latest one, saving up to it would skip older ones
+					throw new IOException("Observations were not ordered by last modified date", failure);
+				}
+				Collections.sort(handler.page, LAST_MODIFIED);
+			}
+
+			if (!handler.page.isEmpty()) {
+				savePage(handler.page);
+				saved += handler.page.size();
+
+				Date lastModified = handler.page.get(handler.page.size() - 1).getLastModified();
+				if (!lastModified.equals(startDate)) {
+					startDate = lastModified;
+					savedAtStart.clear();
+				}
+				for (Observation observation : handler.page) {
+					if (observation.getLastModified().equals(startDate)) {
+						savedAtStart.add(observation.getRemoteId());
+					}
+				}
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+
+			if (last) {
+				return saved;
+			}
+
+			limit = handler.newer ? pageSize : limit * 2;
+		}
+	}
+
+	private static class PageHandler implements ObservationDeserializer.ObservationHandler {
+		private final Date startDate;
+		private final Set<String> skip;
+		private final List<Observation> page = new ArrayList<>();
+		private boolean newer = false;
+		private boolean ordered = true;
+		private Date previous;
+
+		PageHandler(Date startDate, Set<String> skip) {
+			this.startDate = startDate;
+			this.skip = skip;
+		}
+
+		@Override
+		public void onObservation(Observation observation) {
+			if (previous != null && observation.getLastModified().before(previous)) {
+				ordered = false;
+			}
+			previous = observation.getLastModified();
+
+			if (observation.getLastModified().after(startDate)) {
+				newer = true;
+			} else if (skip.contains(observation.getRemoteId())) {
+				return;
+			}
+
+			page.add(observation);
+		}
+	}
+}
@@ -3,25 +3,42 @@ package mil.nga.giat.mage.sdk.fetch;
 import android.content.Context;
 import android.util.Log;
 
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import mil.nga.giat.mage.sdk.datastore.observation.Observation;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationHelper;
-import mil.nga.giat.mage.sdk.datastore.observation.State;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpoint;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpointHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.EventHelper;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
+import mil.nga.giat.mage.sdk.exceptions.ObservationException;
 import mil.nga.giat.mage.sdk.http.resource.ObservationResource;
+import mil.nga.giat.mage.sdk.jackson.deserializer.ObservationDeserializer;
 
 public class ObservationServerFetch extends AbstractServerFetch {
 
 	private static final String LOG_NAME = ObservationServerFetch.class.getName();
 
+	/**
+	 * Number of observations requested, and held before they are saved, at a time.
+	 */
+	private static final int PAGE_SIZE = 500;
+
 	private UserHelper userHelper;
 	private ObservationHelper observationHelper;
 	private ObservationResource observationResource;
+	private SyncCheckpointHelper syncCheckpointHelper;
 
 	public ObservationServerFetch(Context context) {
 		super(context);
@@ -29,42 +46,125 @@ public class ObservationServerFetch extends AbstractServerFetch {
 		userHelper = UserHelper.getInstance(context);
 		observationHelper = ObservationHelper.getInstance(context);
 		observationResource = new ObservationResource(context);
+		syncCheckpointHelper = SyncCheckpointHelper.getInstance(context);
 	}
 
+	/**
+	 * Fetches the new observations of the current event a page at a time,
+	 * ordered by last modified date.  Each page is streamed, saved and then
+	 * checkpointed, so an interrupted fetch resumes at the last saved
+	 * observation instead of starting over.  Without a checkpoint the fetch
+	 * starts at the latest clean observation.
+	 *
+	 * Observations last modified at the checkpoint date are fetched and saved
+	 * again on resume, the server does not order observations with the same
+	 * last modified date.
+	 *
+	 * @param sendNotifications passed along to listeners for created observations
+	 */
 	public void fetch(boolean sendNotifications) {
 		Event event = EventHelper.getInstance(mContext).getCurrentEvent();
 		Log.d(LOG_NAME, "The device is currently connected. Attempting to fetch Observations for event " + event.getName());
 
-		Collection<Observation> observations = observationResource.getObservations(event);
-		Log.d(LOG_NAME, "Fetched " + observations.size() + " new observations");
-		for (Observation observation : observations) {
+		EventPager pager = new EventPager(event, sendNotifications);
+		try {
+			SyncCheckpoint checkpoint = syncCheckpointHelper.read(pager.checkpointName);
+			pager.fetch(checkpoint != null ? checkpoint.getLastModified() : observationHelper.getLatestCleanLastModified(mContext, event));
+		} catch (Exception e) {
+			Log.e(LOG_NAME, "There was a failure while performing an Observation Fetch operation.", e);
+		}
+
+		Log.d(LOG_NAME, "Fetched " + pager.fetched + " new observations, saved " + pager.saved + " observations");
+	}
+
+	/**
+	 * Saves and checkpoints the pages of an event.
+	 */
+	private class EventPager extends ObservationPager {
+		private final Event event;
+		private final boolean sendNotifications;
+		private final String checkpointName;
+		private int fetched = 0;
+		private int saved = 0;
+
+		EventPager(Event event, boolean sendNotifications) {
+			super(PAGE_SIZE);
+
+			this.event = event;
+			this.sendNotifications = sendNotifications;
+			this.checkpointName = SyncCheckpointHelper.getObservationsName(event);
+		}
+
+		@Override
+		protected int fetchPage(Date startDate, int limit, ObservationDeserializer.ObservationHandler handler) throws IOException {
+			return observationResource.getObservations(event, startDate, limit, handler);
+		}
+
+		@Override
+		protected void savePage(List<Observation> page) throws ObservationException {
+			saved += save(page, event, sendNotifications);
+			fetched += page.size();
+
+			Observation last = page.get(page.size() - 1);
 			try {
-				String userId = observation.getUserId();
-				if (userId != null) {
-					User user = userHelper.read(userId);
-					// TODO : test the timer to make sure users are updated as needed!
-					final long sixHoursInMilliseconds = 6 * 60 * 60 * 1000;
-					if (user == null || (new Date()).after(new Date(user.getFetchedDate().getTime() + sixHoursInMilliseconds))) {
-						// get any users that were not recognized or expired
-						new UserServerFetch(mContext).fetch(userId);
-					}
-				}
+				syncCheckpointHelper.save(checkpointName, last.getLastModified(), last.getRemoteId());
+			} catch (SQLException e) {
+				throw new ObservationException("Unable to checkpoint observations of event " + event.getName(), e);
+			}
+		}
+	}
+
+	/**
+	 * @return number of observations created or updated
+	 * @throws ObservationException if the page was not saved, the checkpoint must not move past it
+	 */
+	private int save(Collection<Observation> observations, Event event, boolean sendNotifications) throws ObservationException {
+		fetchUsers(observations);
+
+		return observationHelper.ingest(observations, event, sendNotifications).size();
+	}
 
-				Observation oldObservation = observationHelper.read(observation.getRemoteId());
-				if (observation.getState().equals(State.ARCHIVE) && oldObservation != null) {
-					observationHelper.delete(oldObservation);
-					Log.d(LOG_NAME, "Deleted observation with remote_id " + observation.getRemoteId());
-				} else if (!observation.getState().equals(State.ARCHIVE) && oldObservation == null) {
-					observation = observationHelper.create(observation, sendNotifications);
-					Log.d(LOG_NAME, "Created observation with remote_id " + observation.getRemoteId());
-				} else if (!observation.getState().equals(State.ARCHIVE) && oldObservation != null && !oldObservation.isDirty()) { // TODO : conflict resolution
-					observation.setId(oldObservation.getId());
-					observation = observationHelper.update(observation);
-					Log.d(LOG_NAME, "Updated observation with remote_id " + observation.getRemoteId());
+	/**
+	 * Fetch any users that are not recognized or have expired for the given observations.
+	 * Users are read from the local data-store in one query.
+	 *
+	 * @param observations
+	 */
+	private void fetchUsers(Collection<Observation> observations) {
+		Set<String> userIds = new HashSet<>();
+		for (Observation observation : observations) {
+			String userId = observation.getUserId();
+			if (userId != null) {
+				userIds.add(userId);
+			}
+		}
+
+		if (userIds.isEmpty()) {
+			return;
+		}
+
+		try {
+			Map<String, User> users = new HashMap<>(userIds.size());
+			for (User user : userHelper.read(userIds)) {
+				users.put(user.getRemoteId(), user);
+			}
+
+			// TODO : test the timer to make sure users are updated as needed!
+			final long sixHoursInMilliseconds = 6 * 60 * 60 * 1000;
+			Collection<String> staleUserIds = new ArrayList<>();
+			for (String userId : userIds) {
+				User user = users.get(userId);
+				if (user == null || (new Date()).after(new Date(user.getFetchedDate().getTime() + sixHoursInMilliseconds))) {
+					staleUserIds.add(userId);
 				}
-			} catch (Exception e) {
-				Log.e(LOG_NAME, "There was a failure while performing an Observation Fetch operation.", e);
 			}
+
+			if (!staleUserIds.isEmpty()) {
+				// get any users that were not recognized or expired
+				new UserServerFetch(mContext).fetch(staleUserIds.toArray(new String[staleUserIds.size()]));
+			}
+		} catch (Exception e) {
+			Log.e(LOG_NAME, "There was a failure while fetching observation users.", e);
 		}
 	}
-}
\ No newline at end of file
+}
@@ -20,6 +20,8 @@ import mil.nga.giat.mage.sdk.datastore.layer.LayerHelper;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeature;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureHelper;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureProperty;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidatorHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.EventHelper;
 import mil.nga.giat.mage.sdk.exceptions.StaticFeatureException;
@@ -55,19 +57,29 @@ public class StaticFeatureServerFetch extends AbstractServerFetch {
 		Event event = EventHelper.getInstance(mContext).getCurrentEvent();
 		Log.d(LOG_NAME, "Pulling static layers for event " + event.getName());
 		try {
-			Collection<Layer> layers = layerResource.getLayers(event);
+			// deleted layers have to be fetched again even if they did not change
+			HttpValidatorHelper httpValidatorHelper = HttpValidatorHelper.getInstance(mContext);
+			String validatorName = LayerHelper.HTTP_VALIDATOR_PREFIX + event.getRemoteId();
+			HttpValidator validator = deleteLocal ? new HttpValidator(validatorName) : httpValidatorHelper.read(validatorName);
+			Collection<Layer> layers = layerResource.getLayers(event, validator);
 
 			if (deleteLocal) {
 				layerHelper.deleteAll();
 			}
 
-			// get local layers
-			Collection<Layer> localLayers = layerHelper.readAll();
+			if (layers == null) {
+				Log.d(LOG_NAME, "Static layers for event " + event.getName() + " not modified");
+			} else {
+				// get local layers
+				Collection<Layer> localLayers = layerHelper.readAll();
 
-			layers.removeAll(localLayers);
+				layers.removeAll(localLayers);
 
-			for(Layer layer : layers) {
-				layerHelper.create(layer);
+				for(Layer layer : layers) {
+					layerHelper.create(layer);
+				}
+
+				httpValidatorHelper.save(validator);
 			}
 
 			for (Layer layer : layerHelper.readAll()) {
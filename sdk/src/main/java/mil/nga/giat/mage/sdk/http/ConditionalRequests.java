@@ -0,0 +1,46 @@
+package mil.nga.giat.mage.sdk.http;
+
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
+import retrofit.Response;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+
+/**
+ * Conditional GET support for resources.  Services take the validator values
+ * as {@link #IF_NONE_MATCH} and {@link #IF_MODIFIED_SINCE} header parameters,
+ * Retrofit leaves out the headers of a validator that has no values.
+ */
+public final class ConditionalRequests {
+
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private ConditionalRequests() {
+    }
+
+    public static String etag(HttpValidator validator) {
+        return validator != null ? validator.getETag() : null;
+    }
+
+    public static String lastModified(HttpValidator validator) {
+        return validator != null ? validator.getLastModified() : null;
+    }
+
+    /**
+     * @return true if the server answered that nothing changed since the validator
+     */
+    public static boolean isNotModified(Response<?> response) {
+        return response.code() == HTTP_NOT_MODIFIED;
+    }
+
+    /**
+     * Copy the validators of a successful response.  The caller saves the
+     * validator once the content of the response has been saved.
+     */
+    public static void update(HttpValidator validator, Response<?> response) {
+        if (validator != null) {
+            validator.setETag(response.headers().get("ETag"));
+            validator.setLastModified(response.headers().get("Last-Modified"));
+        }
+    }
+}
@@ -4,14 +4,18 @@ import android.content.Context;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
+import com.squareup.okhttp.Cache;
+import com.squareup.okhttp.ConnectionPool;
 import com.squareup.okhttp.Interceptor;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
 import com.squareup.okhttp.Response;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.event.IEventDispatcher;
@@ -26,19 +30,36 @@ import static java.net.HttpURLConnection.HTTP_UNAUTHORIZED;
  * requests to the server. This class adds request and response interceptors to
  * pass things like a token and handle errors like 403 and 401.
  *
+ * All requests share one client, so they share its connection pool and its
+ * on-disk response cache, and kept-alive connections skip the TLS handshake.
+ * The token is held in memory, login and logout update it through
+ * {@link #setToken}.
+ *
  * @author newmanw
  */
 public class HttpClientManager implements IEventDispatcher<IUserEventListener> {
 
     private static final String LOG_NAME = HttpClientManager.class.getName();
 
+    private static final String CACHE_DIRECTORY = "http";
+    private static final long CACHE_SIZE = 20 * 1024 * 1024;
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_DURATION = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long CONNECT_TIMEOUT = 30;
+    private static final long READ_TIMEOUT = 60;
+    private static final long WRITE_TIMEOUT = 60;
+
     private static HttpClientManager httpClientManager;
     private String userAgent;
 
     private Context context;
+    private OkHttpClient client;
+    private volatile String token;
     private Collection<IUserEventListener> listeners = new CopyOnWriteArrayList<>();
 
-    public static HttpClientManager getInstance(final Context context) {
+    public static synchronized HttpClientManager getInstance(final Context context) {
         if (context == null) {
             return null;
         }
@@ -47,7 +68,7 @@ public class HttpClientManager implements IEventDispatcher<IUserEventListener> {
             String userAgent = System.getProperty("http.agent");
             userAgent = (userAgent == null) ? "" : userAgent;
 
-            httpClientManager = new HttpClientManager(context, userAgent);
+            httpClientManager = new HttpClientManager(context.getApplicationContext(), userAgent);
         }
 
         return httpClientManager;
@@ -56,18 +77,43 @@ public class HttpClientManager implements IEventDispatcher<IUserEventListener> {
     private HttpClientManager(Context context, String userAgent) {
         this.context = context;
         this.userAgent = userAgent;
+        this.token = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.tokenKey), null);
+    }
+
+    /**
+     * Sets the token sent with every request, null once the user logs out or
+     * the token expires.
+     *
+     * @param token bearer token
+     */
+    public void setToken(String token) {
+        this.token = token;
     }
 
-    public OkHttpClient httpClient() {
+    public synchronized OkHttpClient httpClient() {
+        if (client == null) {
+            client = createClient();
+        }
+
+        return client;
+    }
+
+    private OkHttpClient createClient() {
         OkHttpClient client = new OkHttpClient();
 
+        client.setConnectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION));
+        client.setCache(new Cache(new File(context.getCacheDir(), CACHE_DIRECTORY), CACHE_SIZE));
+        client.setConnectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS);
+        client.setReadTimeout(READ_TIMEOUT, TimeUnit.SECONDS);
+        client.setWriteTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS);
+
         client.interceptors().add(new Interceptor() {
             @Override
             public Response intercept(Chain chain) throws IOException {
                 Request.Builder builder = chain.request().newBuilder();
 
                 // add token
-                String token = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.tokenKey), null);
+                String token = HttpClientManager.this.token;
                 if (token != null && !token.trim().isEmpty()) {
                     builder.addHeader("Authorization", "Bearer " + token);
                 }
@@ -0,0 +1,97 @@
+package mil.nga.giat.mage.sdk.http;
+
+import android.content.Context;
+import android.preference.PreferenceManager;
+import android.util.LruCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import mil.nga.giat.mage.sdk.R;
+import retrofit.Converter;
+import retrofit.Retrofit;
+
+/**
+ * Builds each Retrofit service once per server URL, service interface and
+ * converter, and hands out the same proxy after that.  All services use the
+ * {@link HttpClientManager#httpClient}.  Services are dropped when the server
+ * URL changes, and the least recently used ones once there are more than
+ * {@link #MAX_SERVICES}, as event and layer bound services pile up over time.
+ */
+public class ServiceRegistry {
+
+    /**
+     * Creates the converter factory of a service.  Only called when the
+     * service is not cached yet, so building Gson and deserializers is
+     * skipped on a hit.
+     */
+    public interface ConverterFactorySupplier {
+        Converter.Factory get();
+    }
+
+    private static final int MAX_SERVICES = 32;
+
+    private static ServiceRegistry serviceRegistry;
+
+    private Context context;
+    private String baseUrl;
+    private LruCache<List<Object>, Object> services = new LruCache<>(MAX_SERVICES);
+
+    public static synchronized ServiceRegistry getInstance(final Context context) {
+        if (serviceRegistry == null) {
+            serviceRegistry = new ServiceRegistry(context.getApplicationContext());
+        }
+
+        return serviceRegistry;
+    }
+
+    private ServiceRegistry(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @param service service interface
+     * @return service without a converter, for raw response bodies
+     */
+    public <T> T getService(Class<T> service) {
+        return getService(service, null);
+    }
+
+    /**
+     * Services are cached per supplier class, so a supplier should be
+     * declared once per converter and reused by every call that wants that
+     * converter.  Converter factories are only created once per key, so the
+     * key has to identify everything the supplier creates the factory with,
+     * i.e. the event or layer it attaches to parsed entities.  Suppliers
+     * without arguments need no key.
+     *
+     * @param service service interface
+     * @param converterFactory converter, only called when the service is not cached yet
+     * @param converterKey what the converter factory is created with
+     * @return cached service
+     */
+    public synchronized <T> T getService(Class<T> service, ConverterFactorySupplier converterFactory, Object... converterKey) {
+        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
+        if (!baseUrl.equals(this.baseUrl)) {
+            services.evictAll();
+            this.baseUrl = baseUrl;
+        }
+
+        List<Object> key = Arrays.<Object>asList(service, converterFactory != null ? converterFactory.getClass() : null, Arrays.asList(converterKey));
+        T cached = service.cast(services.get(key));
+        if (cached != null) {
+            return cached;
+        }
+
+        Retrofit.Builder builder = new Retrofit.Builder()
+                .baseUrl(baseUrl)
+                .client(HttpClientManager.getInstance(context).httpClient());
+        if (converterFactory != null) {
+            builder.addConverterFactory(converterFactory.get());
+        }
+
+        T created = builder.build().create(service);
+        services.put(key, created);
+        return created;
+    }
+}
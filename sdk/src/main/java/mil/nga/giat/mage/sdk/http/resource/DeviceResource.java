@@ -1,19 +1,17 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import com.google.gson.JsonObject;
 
 import java.io.IOException;
 
-import mil.nga.giat.mage.sdk.R;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.Body;
 import retrofit.http.POST;
 
@@ -33,6 +31,13 @@ public class DeviceResource {
 
     private static final String LOG_NAME = DeviceResource.class.getName();
 
+    private static final ServiceRegistry.ConverterFactorySupplier GSON_CONVERTER = new ServiceRegistry.ConverterFactorySupplier() {
+        @Override
+        public Converter.Factory get() {
+            return GsonConverterFactory.create();
+        }
+    };
+
     private Context context;
 
     public DeviceResource(Context context) {
@@ -42,14 +47,7 @@ public class DeviceResource {
     public JsonObject createDevice(String username, String uid, String password) throws IOException {
         JsonObject device = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        DeviceService service = retrofit.create(DeviceService.class);
+        DeviceService service = ServiceRegistry.getInstance(context).getService(DeviceService.class, GSON_CONVERTER);
 
         JsonObject json = new JsonObject();
         json.addProperty("username", username);
@@ -1,7 +1,6 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import java.io.IOException;
@@ -9,16 +8,18 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
-import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.Team;
 import mil.nga.giat.mage.sdk.gson.deserializer.EventsDeserializer;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.GET;
+import retrofit.http.Header;
 
 /***
  * RESTful communication for events
@@ -30,7 +31,7 @@ public class EventResource {
 
     public interface EventService {
         @GET("/api/events")
-        Call<Map<Event, Collection<Team>>> getEvents();
+        Call<Map<Event, Collection<Team>>> getEvents(@Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
     }
 
     private static final String LOG_NAME = EventResource.class.getName();
@@ -41,21 +42,23 @@ public class EventResource {
         this.context = context;
     }
 
-    public Map<Event, Collection<Team>> getEvents() throws IOException {
+    /**
+     * @param validator validator of the saved events, updated from the response
+     * @return the events and their teams, or null if they did not change since the validator
+     */
+    public Map<Event, Collection<Team>> getEvents(HttpValidator validator) throws IOException {
         Map<Event, Collection<Team>> events = new HashMap<>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create(EventsDeserializer.getGsonBuilder(context)))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
+        EventService service = ServiceRegistry.getInstance(context).getService(EventService.class, eventsConverter());
+        Response<Map<Event, Collection<Team>>> response = service.getEvents(ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator)).execute();
 
-        EventService service = retrofit.create(EventService.class);
-        Response<Map<Event, Collection<Team>>> response = service.getEvents().execute();
+        if (ConditionalRequests.isNotModified(response)) {
+            return null;
+        }
 
         if (response.isSuccess()) {
             events = response.body();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -65,4 +68,13 @@ public class EventResource {
 
         return events;
     }
-}
\ No newline at end of file
+
+    private ServiceRegistry.ConverterFactorySupplier eventsConverter() {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return GsonConverterFactory.create(EventsDeserializer.getGsonBuilder(context));
+            }
+        };
+    }
+}
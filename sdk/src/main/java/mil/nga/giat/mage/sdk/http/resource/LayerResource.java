@@ -1,7 +1,6 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import com.squareup.okhttp.ResponseBody;
@@ -11,18 +10,20 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 
-import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.datastore.layer.Layer;
 import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeature;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.gson.deserializer.LayerDeserializer;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import mil.nga.giat.mage.sdk.http.converter.FeatureConverterFactory;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.GET;
+import retrofit.http.Header;
 import retrofit.http.Path;
 import retrofit.http.Query;
 import retrofit.http.Url;
@@ -38,7 +39,7 @@ public class LayerResource {
     public interface LayerService {
 
         @GET("/api/events/{eventId}/layers")
-        Call<Collection<Layer>> getLayers(@Path("eventId") String eventId, @Query("type") String type);
+        Call<Collection<Layer>> getLayers(@Path("eventId") String eventId, @Query("type") String type, @Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
 
         @GET("/api/events/{eventId}/layers/{layerId}/features")
         Call<Collection<StaticFeature>> getFeatures(@Path("eventId") String eventId, @Path("layerId") String layerId);
@@ -55,21 +56,24 @@ public class LayerResource {
         this.context = context;
     }
 
-    public Collection<Layer> getLayers(Event event) throws IOException {
+    /**
+     * @param event event of the layers
+     * @param validator validator of the saved layers, updated from the response
+     * @return the feature layers, or null if they did not change since the validator
+     */
+    public Collection<Layer> getLayers(Event event, HttpValidator validator) throws IOException {
         Collection<Layer> layers = new ArrayList<>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create(LayerDeserializer.getGsonBuilder(event)))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
+        LayerService service = ServiceRegistry.getInstance(context).getService(LayerService.class, layersConverter(event), event.getId(), event.getRemoteId());
+        Response<Collection<Layer>> response = service.getLayers(event.getRemoteId(), "Feature", ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator)).execute();
 
-        LayerService service = retrofit.create(LayerService.class);
-        Response<Collection<Layer>> response = service.getLayers(event.getRemoteId(), "Feature").execute();
+        if (ConditionalRequests.isNotModified(response)) {
+            return null;
+        }
 
         if (response.isSuccess()) {
             layers = response.body();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -83,14 +87,7 @@ public class LayerResource {
     public Collection<StaticFeature> getFeatures(Layer layer) throws IOException {
         Collection<StaticFeature> features = new ArrayList<>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(FeatureConverterFactory.create(layer))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        LayerService service = retrofit.create(LayerService.class);
+        LayerService service = ServiceRegistry.getInstance(context).getService(LayerService.class, featuresConverter(layer), layer.getId(), layer.getRemoteId());
         Response<Collection<StaticFeature>> response = service.getFeatures(layer.getEvent().getRemoteId(), layer.getRemoteId()).execute();
 
         if (response.isSuccess()) {
@@ -108,13 +105,7 @@ public class LayerResource {
     public InputStream getFeatureIcon(String url) throws IOException {
         InputStream inputStream = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        LayerService service = retrofit.create(LayerService.class);
+        LayerService service = ServiceRegistry.getInstance(context).getService(LayerService.class);
         Response<ResponseBody> response = service.getFeatureIcon(url).execute();
 
         if (response.isSuccess()) {
@@ -128,4 +119,22 @@ public class LayerResource {
 
         return inputStream;
     }
-}
\ No newline at end of file
+
+    private static ServiceRegistry.ConverterFactorySupplier layersConverter(final Event event) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return GsonConverterFactory.create(LayerDeserializer.getGsonBuilder(event));
+            }
+        };
+    }
+
+    private static ServiceRegistry.ConverterFactorySupplier featuresConverter(final Layer layer) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return FeatureConverterFactory.create(layer);
+            }
+        };
+    }
+}
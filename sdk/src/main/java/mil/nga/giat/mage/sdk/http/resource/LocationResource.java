@@ -1,24 +1,22 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
-import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.datastore.location.Location;
 import mil.nga.giat.mage.sdk.datastore.location.LocationHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import mil.nga.giat.mage.sdk.http.converter.LocationConverterFactory;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.Body;
 import retrofit.http.GET;
 import retrofit.http.POST;
@@ -51,15 +49,8 @@ public class LocationResource {
     public Collection<Location> getLocations(Event event) {
         Collection<Location> locations = new ArrayList<Location>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(LocationConverterFactory.create(event, true))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
         try {
-            LocationService service = retrofit.create(LocationService.class);
+            LocationService service = ServiceRegistry.getInstance(context).getService(LocationService.class, locationsConverter(event, true), event.getId(), event.getRemoteId(), true);
             Call<List<Location>> call = service.getLocations(event.getRemoteId());
             Response<List<Location>> response = call.execute();
 
@@ -89,14 +80,7 @@ public class LocationResource {
         LocationHelper locationHelper = LocationHelper.getInstance(context);
 
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(LocationConverterFactory.create(event, false))
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            LocationService service = retrofit.create(LocationService.class);
+            LocationService service = ServiceRegistry.getInstance(context).getService(LocationService.class, locationsConverter(event, false), event.getId(), event.getRemoteId(), false);
             Call<List<Location>> call = service.createLocations(event.getRemoteId(), locations);
             Response<List<Location>> response = call.execute();
 
@@ -129,4 +113,12 @@ public class LocationResource {
         return false;
     }
 
-}
\ No newline at end of file
+    private static ServiceRegistry.ConverterFactorySupplier locationsConverter(final Event event, final boolean groupByUser) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return LocationConverterFactory.create(event, groupByUser);
+            }
+        };
+    }
+}
@@ -1,7 +1,6 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import com.google.gson.JsonObject;
@@ -21,27 +20,30 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
-import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.datastore.DaoStore;
 import mil.nga.giat.mage.sdk.datastore.observation.Attachment;
 import mil.nga.giat.mage.sdk.datastore.observation.Observation;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationFavorite;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationHelper;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationImportant;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import mil.nga.giat.mage.sdk.http.converter.AttachmentConverterFactory;
 import mil.nga.giat.mage.sdk.http.converter.ObservationConverterFactory;
 import mil.nga.giat.mage.sdk.http.converter.ObservationImportantConverterFactory;
 import mil.nga.giat.mage.sdk.http.converter.ObservationsConverterFactory;
+import mil.nga.giat.mage.sdk.jackson.deserializer.ObservationDeserializer;
 import mil.nga.giat.mage.sdk.utils.ISO8601DateFormatFactory;
 import mil.nga.giat.mage.sdk.utils.MediaUtility;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.Body;
 import retrofit.http.DELETE;
 import retrofit.http.GET;
+import retrofit.http.Header;
 import retrofit.http.Multipart;
 import retrofit.http.POST;
 import retrofit.http.PUT;
@@ -61,6 +63,10 @@ public class ObservationResource {
         @GET("/api/events/{eventId}/observations")
         Call<Collection<Observation>> getObservations(@Path("eventId") String eventId, @Query("startDate") String startDate);
 
+        @Streaming
+        @GET("/api/events/{eventId}/observations")
+        Call<ResponseBody> streamObservations(@Path("eventId") String eventId, @Query("startDate") String startDate, @Query("sort") String sort, @Query("limit") Integer limit);
+
         @POST("/api/events/{eventId}/observations")
         Call<Observation> createObservation(@Path("eventId") String eventId , @Body Observation observation);
 
@@ -68,7 +74,7 @@ public class ObservationResource {
         Call<Observation> updateObservation(@Path("eventId") String eventId, @Path("observationId") String observationId, @Body Observation observation);
 
         @GET("/api/events/{eventId}/form/icons.zip")
-        Call<ResponseBody> getObservationIcons(@Path("eventId") String eventId);
+        Call<ResponseBody> getObservationIcons(@Path("eventId") String eventId, @Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
 
         @Streaming
         @GET("/api/events/{eventId}/observations/{observationId}/attachments/{attachmentId}")
@@ -93,6 +99,13 @@ public class ObservationResource {
 
     private static final String LOG_NAME = ObservationResource.class.getName();
 
+    private static final ServiceRegistry.ConverterFactorySupplier ATTACHMENT_CONVERTER = new ServiceRegistry.ConverterFactorySupplier() {
+        @Override
+        public Converter.Factory get() {
+            return AttachmentConverterFactory.create();
+        }
+    };
+
     private Context context;
 
     public ObservationResource(Context context) {
@@ -106,19 +119,12 @@ public class ObservationResource {
             return observations;
         }
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(ObservationsConverterFactory.create(event))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
         DateFormat iso8601Format = ISO8601DateFormatFactory.ISO8601();
         ObservationHelper observationHelper = ObservationHelper.getInstance(context);
         Date lastModifiedDate = observationHelper.getLatestCleanLastModified(context, event);
         Log.d(LOG_NAME, "Fetching all observations after: " + iso8601Format.format(lastModifiedDate));
 
-        ObservationService service = retrofit.create(ObservationService.class);
+        ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class, observationsConverter(event), event.getId(), event.getRemoteId());
         try {
             Response<Collection<Observation>> response = service.getObservations(event.getRemoteId(), iso8601Format.format(lastModifiedDate)).execute();
 
@@ -137,20 +143,48 @@ public class ObservationResource {
         return observations;
     }
 
+    /**
+     * Streams a page of observations, ordered by last modified date, to the
+     * handler as they are parsed, without holding the response or the parsed
+     * observations in memory.
+     *
+     * @param event event to fetch
+     * @param startDate earliest last modified date, inclusive
+     * @param limit maximum number of observations
+     * @param handler receives each observation
+     * @return number of observations handled
+     * @throws IOException if the request fails or the response cannot be read,
+     * observations handled before the failure stay handled
+     */
+    public int getObservations(Event event, Date startDate, int limit, ObservationDeserializer.ObservationHandler handler) throws IOException {
+        DateFormat iso8601Format = ISO8601DateFormatFactory.ISO8601();
+        Log.d(LOG_NAME, "Fetching " + limit + " observations after: " + iso8601Format.format(startDate));
+
+        ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class);
+        Response<ResponseBody> response = service.streamObservations(event.getRemoteId(), iso8601Format.format(startDate), "lastModified", limit).execute();
+
+        if (!response.isSuccess()) {
+            Log.e(LOG_NAME, "Bad request.");
+            if (response.errorBody() != null) {
+                Log.e(LOG_NAME, response.errorBody().string());
+            }
+            throw new IOException("Bad request fetching observations, status " + response.code());
+        }
+
+        ResponseBody body = response.body();
+        try {
+            return new ObservationDeserializer(event).parseObservations(body.byteStream(), handler);
+        } finally {
+            body.close();
+        }
+    }
 
     public Observation saveObservation(Observation observation) {
         ObservationHelper observationHelper = ObservationHelper.getInstance(context);
         Observation savedObservation = null;
 
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(ObservationConverterFactory.create(observation.getEvent()))
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            ObservationService service = retrofit.create(ObservationService.class);
+            ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class, observationConverter(observation.getEvent()), observation.getEvent().getId(), observation.getEvent().getRemoteId());
 
             Response<Observation> response;
             if (StringUtils.isEmpty(observation.getRemoteId())) {
@@ -177,19 +211,21 @@ public class ObservationResource {
         return savedObservation;
     }
 
-    public InputStream getObservationIcons(Event event) throws IOException {
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        ObservationService service = retrofit.create(ObservationService.class);
-        Response<ResponseBody> response = service.getObservationIcons(event.getRemoteId()).execute();
+    /**
+     * @param event event of the icons
+     * @param validator validator of the saved icons, updated from the response
+     * @return the icons zip, or null if they did not change since the validator or the request failed
+     */
+    public InputStream getObservationIcons(Event event, HttpValidator validator) throws IOException {
+        ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class);
+        Response<ResponseBody> response = service.getObservationIcons(event.getRemoteId(), ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator)).execute();
 
         InputStream inputStream = null;
-        if (response.isSuccess()) {
+        if (ConditionalRequests.isNotModified(response)) {
+            Log.d(LOG_NAME, "Observation icons of event " + event.getName() + " not modified.");
+        } else if (response.isSuccess()) {
             inputStream = response.body().byteStream();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -201,13 +237,7 @@ public class ObservationResource {
     }
 
     public ResponseBody getAttachment(Attachment attachment) throws IOException {
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        ObservationService service = retrofit.create(ObservationService.class);
+        ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class);
 
         String eventId = attachment.getObservation().getEvent().getRemoteId();
         String observationId = attachment.getObservation().getRemoteId();
@@ -228,14 +258,7 @@ public class ObservationResource {
 
     public Attachment createAttachment(Attachment attachment) {
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(AttachmentConverterFactory.create())
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            ObservationService service = retrofit.create(ObservationService.class);
+            ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class, ATTACHMENT_CONVERTER);
 
             String eventId = attachment.getObservation().getEvent().getRemoteId();
             String observationId = attachment.getObservation().getRemoteId();
@@ -278,14 +301,7 @@ public class ObservationResource {
         Observation savedObservation = null;
 
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(ObservationConverterFactory.create(observation.getEvent()))
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            ObservationService service = retrofit.create(ObservationService.class);
+            ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class, observationConverter(observation.getEvent()), observation.getEvent().getId(), observation.getEvent().getRemoteId());
 
             Response<Observation> response;
             if (favorite.isFavorite()) {
@@ -322,14 +338,7 @@ public class ObservationResource {
         Observation savedObservation = null;
 
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(ObservationImportantConverterFactory.create(observation.getEvent()))
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            ObservationService service = retrofit.create(ObservationService.class);
+            ObservationService service = ServiceRegistry.getInstance(context).getService(ObservationService.class, importantConverter(observation.getEvent()), observation.getEvent().getId(), observation.getEvent().getRemoteId());
 
             Response<Observation> response;
             if (important.isImportant()) {
@@ -358,4 +367,31 @@ public class ObservationResource {
 
         return savedObservation;
     }
-}
\ No newline at end of file
+
+    private static ServiceRegistry.ConverterFactorySupplier observationsConverter(final Event event) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return ObservationsConverterFactory.create(event);
+            }
+        };
+    }
+
+    private static ServiceRegistry.ConverterFactorySupplier observationConverter(final Event event) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return ObservationConverterFactory.create(event);
+            }
+        };
+    }
+
+    private static ServiceRegistry.ConverterFactorySupplier importantConverter(final Event event) {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return ObservationImportantConverterFactory.create(event);
+            }
+        };
+    }
+}
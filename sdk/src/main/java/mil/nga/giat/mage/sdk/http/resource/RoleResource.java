@@ -1,22 +1,23 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
-import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Role;
 import mil.nga.giat.mage.sdk.gson.deserializer.RolesDeserializer;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.GET;
+import retrofit.http.Header;
 
 /***
  * RESTful communication for roles
@@ -28,33 +29,42 @@ public class RoleResource {
 
     public interface RoleService {
         @GET("/api/roles")
-        Call<Collection<Role>> getRoles();
+        Call<Collection<Role>> getRoles(@Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
     }
 
     private static final String LOG_NAME = RoleResource.class.getName();
 
+    private static final ServiceRegistry.ConverterFactorySupplier ROLES_CONVERTER = new ServiceRegistry.ConverterFactorySupplier() {
+        @Override
+        public Converter.Factory get() {
+            return GsonConverterFactory.create(RolesDeserializer.getGsonBuilder());
+        }
+    };
+
     private Context context;
 
     public RoleResource(Context context) {
         this.context = context;
     }
 
-    public Collection<Role> getRoles() throws IOException {
+    /**
+     * @param validator validator of the saved roles, updated from the response
+     * @return the roles, or null if they did not change since the validator
+     */
+    public Collection<Role> getRoles(HttpValidator validator) throws IOException {
         Collection<Role> roles = new ArrayList<Role>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create(RolesDeserializer.getGsonBuilder()))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        RoleService service = retrofit.create(RoleService.class);
-        Call<Collection<Role>> call = service.getRoles();
+        RoleService service = ServiceRegistry.getInstance(context).getService(RoleService.class, ROLES_CONVERTER);
+        Call<Collection<Role>> call = service.getRoles(ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator));
         Response<Collection<Role>> response = call.execute();
 
+        if (ConditionalRequests.isNotModified(response)) {
+            return null;
+        }
+
         if (response.isSuccess()) {
             roles = response.body();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -1,7 +1,6 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import java.io.IOException;
@@ -9,16 +8,18 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
-import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Team;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.gson.deserializer.TeamsDeserializer;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.GET;
+import retrofit.http.Header;
 
 /***
  * RESTful communication for teams
@@ -30,7 +31,7 @@ public class TeamResource {
 
     public interface TeamService {
         @GET("/api/teams")
-        Call<Map<Team, Collection<User>>> getTeams();
+        Call<Map<Team, Collection<User>>> getTeams(@Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
     }
 
     private static final String LOG_NAME = TeamResource.class.getName();
@@ -41,21 +42,23 @@ public class TeamResource {
         this.context = context;
     }
 
-    public Map<Team, Collection<User>> getTeams() throws IOException {
+    /**
+     * @param validator validator of the saved teams, updated from the response
+     * @return the teams and their users, or null if they did not change since the validator
+     */
+    public Map<Team, Collection<User>> getTeams(HttpValidator validator) throws IOException {
         Map<Team, Collection<User>> teams = new HashMap<>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create(TeamsDeserializer.getGsonBuilder(context)))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
+        TeamService service = ServiceRegistry.getInstance(context).getService(TeamService.class, teamsConverter());
+        Response<Map<Team, Collection<User>>> response = service.getTeams(ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator)).execute();
 
-        TeamService service = retrofit.create(TeamService.class);
-        Response<Map<Team, Collection<User>>> response = service.getTeams().execute();
+        if (ConditionalRequests.isNotModified(response)) {
+            return null;
+        }
 
         if (response.isSuccess()) {
             teams = response.body();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -65,4 +68,13 @@ public class TeamResource {
 
         return teams;
     }
-}
\ No newline at end of file
+
+    private ServiceRegistry.ConverterFactorySupplier teamsConverter() {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return GsonConverterFactory.create(TeamsDeserializer.getGsonBuilder(context));
+            }
+        };
+    }
+}
@@ -1,7 +1,6 @@
 package mil.nga.giat.mage.sdk.http.resource;
 
 import android.content.Context;
-import android.preference.PreferenceManager;
 import android.util.Log;
 
 import com.google.gson.JsonObject;
@@ -19,20 +18,22 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
-import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidator;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
-import mil.nga.giat.mage.sdk.http.HttpClientManager;
+import mil.nga.giat.mage.sdk.http.ConditionalRequests;
+import mil.nga.giat.mage.sdk.http.ServiceRegistry;
 import mil.nga.giat.mage.sdk.http.converter.UserConverterFactory;
 import mil.nga.giat.mage.sdk.http.converter.UsersConverterFactory;
 import mil.nga.giat.mage.sdk.utils.MediaUtility;
 import retrofit.Call;
+import retrofit.Converter;
 import retrofit.GsonConverterFactory;
 import retrofit.Response;
-import retrofit.Retrofit;
 import retrofit.http.Body;
 import retrofit.http.GET;
+import retrofit.http.Header;
 import retrofit.http.Multipart;
 import retrofit.http.POST;
 import retrofit.http.PUT;
@@ -55,7 +56,7 @@ public class UserResource {
         Call<ResponseBody> logout();
 
         @GET("/api/users")
-        Call<Collection<User>> getUsers();
+        Call<Collection<User>> getUsers(@Header(ConditionalRequests.IF_NONE_MATCH) String etag, @Header(ConditionalRequests.IF_MODIFIED_SINCE) String lastModified);
 
         @POST("/api/users")
         Call<JsonObject> createUser(@Body JsonObject body);
@@ -79,6 +80,13 @@ public class UserResource {
 
     private static final String LOG_NAME = UserResource.class.getName();
 
+    private static final ServiceRegistry.ConverterFactorySupplier GSON_CONVERTER = new ServiceRegistry.ConverterFactorySupplier() {
+        @Override
+        public Converter.Factory get() {
+            return GsonConverterFactory.create();
+        }
+    };
+
     private Context context;
 
     public UserResource(Context context) {
@@ -88,16 +96,8 @@ public class UserResource {
     public JsonObject login(String username, String uid, String password, String appVersion) {
         JsonObject loginJson = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-
         try {
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            UserService service = retrofit.create(UserService.class);
+            UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, GSON_CONVERTER);
 
             JsonObject json = new JsonObject();
             json.addProperty("username", username);
@@ -127,16 +127,8 @@ public class UserResource {
     public boolean logout() {
         boolean status = false;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-
         try {
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            UserService service = retrofit.create(UserService.class);
+            UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, GSON_CONVERTER);
 
             Response<ResponseBody> response = service.logout().execute();
             if (response.isSuccess()) {
@@ -154,21 +146,23 @@ public class UserResource {
         return status;
     }
 
-    public Collection<User> getUsers() throws IOException {
+    /**
+     * @param validator validator of the saved users, updated from the response
+     * @return the users, or null if they did not change since the validator
+     */
+    public Collection<User> getUsers(HttpValidator validator) throws IOException {
         Collection<User> users = new ArrayList<>();
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(UsersConverterFactory.create(context))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, usersConverter());
+        Response<Collection<User>> response = service.getUsers(ConditionalRequests.etag(validator), ConditionalRequests.lastModified(validator)).execute();
 
-        UserService service = retrofit.create(UserService.class);
-        Response<Collection<User>> response = service.getUsers().execute();
+        if (ConditionalRequests.isNotModified(response)) {
+            return null;
+        }
 
         if (response.isSuccess()) {
             users = response.body();
+            ConditionalRequests.update(validator, response);
         } else {
             Log.e(LOG_NAME, "Bad request.");
             if (response.errorBody() != null) {
@@ -182,12 +176,6 @@ public class UserResource {
     public JsonObject createUser(String username, String displayname, String email, String uid, String password) throws Exception {
         JsonObject user = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
 
         JsonObject json = new JsonObject();
         json.addProperty("username", username);
@@ -197,7 +185,7 @@ public class UserResource {
         json.addProperty("password", password);
         json.addProperty("passwordconfirm", password);
 
-        UserService service = retrofit.create(UserService.class);
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, GSON_CONVERTER);
         Response<JsonObject> response = service.createUser(json).execute();
 
         if (response.isSuccess()) {
@@ -217,14 +205,7 @@ public class UserResource {
     public User getUser(String userId) throws IOException {
         User user = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(UserConverterFactory.create(context))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        UserService service = retrofit.create(UserService.class);
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, userConverter());
         Response<User> response = service.getUser(userId).execute();
 
         if (response.isSuccess()) {
@@ -242,13 +223,7 @@ public class UserResource {
     public InputStream getIcon(User user) throws IOException {
         InputStream inputStream = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        UserService service = retrofit.create(UserService.class);
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class);
         Response<ResponseBody> response = service.getIcon(user.getRemoteId()).execute();
 
         if (response.isSuccess()) {
@@ -266,13 +241,7 @@ public class UserResource {
     public InputStream getAvatar(User user) throws IOException {
         InputStream inputStream = null;
 
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        UserService service = retrofit.create(UserService.class);
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class);
         Response<ResponseBody> response = service.getAvatar(user.getRemoteId()).execute();
 
         if (response.isSuccess()) {
@@ -288,14 +257,7 @@ public class UserResource {
     }
 
     public User addRecentEvent(User user, Event event) throws IOException {
-        String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(baseUrl)
-                .addConverterFactory(UserConverterFactory.create(context))
-                .client(HttpClientManager.getInstance(context).httpClient())
-                .build();
-
-        UserService service = retrofit.create(UserService.class);
+        UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, userConverter());
         Response<User> response = service.addRecentEvent(user.getRemoteId(), event.getRemoteId()).execute();
 
         if (response.isSuccess()) {
@@ -312,15 +274,7 @@ public class UserResource {
 
     public User createAvatar(String avatarPath) {
         try {
-            String baseUrl = PreferenceManager.getDefaultSharedPreferences(context).getString(context.getString(R.string.serverURLKey), context.getString(R.string.serverURLDefaultValue));
-
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addConverterFactory(UserConverterFactory.create(context))
-                    .client(HttpClientManager.getInstance(context).httpClient())
-                    .build();
-
-            UserService service = retrofit.create(UserService.class);
+            UserService service = ServiceRegistry.getInstance(context).getService(UserService.class, userConverter());
 
             Map<String, RequestBody> parts = new HashMap<>();
             File avatar = new File(avatarPath);
@@ -355,4 +309,22 @@ public class UserResource {
 
         return null;
     }
-}
\ No newline at end of file
+
+    private ServiceRegistry.ConverterFactorySupplier usersConverter() {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return UsersConverterFactory.create(context);
+            }
+        };
+    }
+
+    private ServiceRegistry.ConverterFactorySupplier userConverter() {
+        return new ServiceRegistry.ConverterFactorySupplier() {
+            @Override
+            public Converter.Factory get() {
+                return UserConverterFactory.create(context);
+            }
+        };
+    }
+}
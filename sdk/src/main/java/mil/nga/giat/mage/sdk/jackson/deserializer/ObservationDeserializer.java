@@ -40,21 +40,52 @@ public class ObservationDeserializer extends Deserializer {
         this.event = event;
     }
 
+	/**
+	 * Receives observations one at a time while an array is parsed.
+	 */
+	public interface ObservationHandler {
+		void onObservation(Observation observation) throws IOException;
+	}
+
 	public List<Observation> parseObservations(InputStream is) throws JsonParseException, IOException {
-		List<Observation> observations = new ArrayList<>();
+		final List<Observation> observations = new ArrayList<>();
 
-		JsonParser parser = factory.createParser(is);
+		parseObservations(is, new ObservationHandler() {
+			@Override
+			public void onObservation(Observation observation) {
+				observations.add(observation);
+			}
+		});
 
-		if (parser.nextToken() != JsonToken.START_ARRAY) {
-            return observations;
-        }
+		return observations;
+	}
 
-        while (parser.nextToken() != JsonToken.END_ARRAY) {
-            observations.add(parseObservation(parser));
-        }
+	/**
+	 * Parses an array of observations, handing each one to the handler as soon
+	 * as it is parsed so that only one observation is held at a time.
+	 *
+	 * @param is observation array
+	 * @param handler receives each observation
+	 * @return number of observations parsed
+	 */
+	public int parseObservations(InputStream is, ObservationHandler handler) throws JsonParseException, IOException {
+		int count = 0;
 
-		parser.close();
-		return observations;
+		JsonParser parser = factory.createParser(is);
+		try {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				return count;
+			}
+
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				handler.onObservation(parseObservation(parser));
+				count++;
+			}
+		} finally {
+			parser.close();
+		}
+
+		return count;
 	}
 
 	public Observation parseObservation(InputStream is) throws JsonParseException, IOException {
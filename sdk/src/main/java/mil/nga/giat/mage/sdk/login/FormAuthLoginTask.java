@@ -20,6 +20,7 @@ import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.connectivity.ConnectivityUtility;
 import mil.nga.giat.mage.sdk.datastore.DaoStore;
 import mil.nga.giat.mage.sdk.datastore.user.User;
+import mil.nga.giat.mage.sdk.http.HttpClientManager;
 import mil.nga.giat.mage.sdk.http.resource.DeviceResource;
 import mil.nga.giat.mage.sdk.http.resource.UserResource;
 import mil.nga.giat.mage.sdk.jackson.deserializer.UserDeserializer;
@@ -168,7 +169,9 @@ public class FormAuthLoginTask extends AbstractAccountTask {
 					// put the token information in the shared preferences
 					Editor editor = sharedPreferences.edit();
 
-					editor.putString(mApplicationContext.getString(R.string.tokenKey), loginJson.get("token").getAsString().trim());
+					String token = loginJson.get("token").getAsString().trim();
+					editor.putString(mApplicationContext.getString(R.string.tokenKey), token);
+					HttpClientManager.getInstance(mApplicationContext).setToken(token);
 					Log.d(LOG_NAME, "Storing token: " + String.valueOf(sharedPreferences.getString(mApplicationContext.getString(R.string.tokenKey), null)));
 					try {
 						Date tokenExpiration = iso8601Format.parse(loginJson.get("expirationDate").getAsString().trim());
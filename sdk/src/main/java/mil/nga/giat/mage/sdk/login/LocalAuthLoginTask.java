@@ -14,6 +14,7 @@ import java.util.Date;
 
 import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.datastore.location.LocationHelper;
+import mil.nga.giat.mage.sdk.datastore.sync.HttpValidatorHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.EventHelper;
 import mil.nga.giat.mage.sdk.datastore.user.Role;
@@ -23,6 +24,7 @@ import mil.nga.giat.mage.sdk.datastore.user.TeamEvent;
 import mil.nga.giat.mage.sdk.datastore.user.TeamHelper;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserTeam;
+import mil.nga.giat.mage.sdk.http.HttpClientManager;
 import mil.nga.giat.mage.sdk.utils.ISO8601DateFormatFactory;
 import mil.nga.giat.mage.sdk.utils.PasswordUtility;
 
@@ -67,6 +69,7 @@ public class LocalAuthLoginTask extends AbstractAccountTask {
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(mApplicationContext);
         Editor editor = sharedPreferences.edit();
         editor.putString(mApplicationContext.getString(R.string.tokenKey), hashPassword).commit();
+        HttpClientManager.getInstance(mApplicationContext).setToken(hashPassword);
         // TODO : 8 hours from now?
         editor.putString(mApplicationContext.getString(R.string.tokenExpirationDateKey), iso8601Format.format(new Date(new Date().getTime() + 8 * 60 * 60 * 1000))).commit();
 
@@ -81,6 +84,9 @@ public class LocalAuthLoginTask extends AbstractAccountTask {
 			
 			// delete roles
 			roleHelper.deleteAll();
+
+			// the next server fetch has to replace the local roles, users, teams and events
+			HttpValidatorHelper.getInstance(mApplicationContext).deleteAll();
 			
 			// delete active user(s)
 			userHelper.deleteCurrentUser();
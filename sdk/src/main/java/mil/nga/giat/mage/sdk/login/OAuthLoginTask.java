@@ -17,6 +17,7 @@ import mil.nga.giat.mage.sdk.R;
 import mil.nga.giat.mage.sdk.datastore.DaoStore;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
+import mil.nga.giat.mage.sdk.http.HttpClientManager;
 import mil.nga.giat.mage.sdk.jackson.deserializer.UserDeserializer;
 import mil.nga.giat.mage.sdk.preferences.PreferenceHelper;
 import mil.nga.giat.mage.sdk.utils.ISO8601DateFormatFactory;
@@ -61,6 +62,7 @@ public class OAuthLoginTask extends AbstractAccountTask {
 				String token = jsonObject.get("token").getAsString();
 				Log.d(LOG_NAME, "Storing token: " + token);
 				editor.putString(mApplicationContext.getString(mil.nga.giat.mage.sdk.R.string.tokenKey), token.trim());
+				HttpClientManager.getInstance(mApplicationContext).setToken(token.trim());
 				try {
 					Date tokenExpiration = iso8601Format.parse(jsonObject.get("expirationDate").getAsString().trim());
 					long tokenExpirationLength = tokenExpiration.getTime() - (new Date()).getTime();
@@ -16,6 +16,8 @@ public class AttachmentPushAlarmReceiver extends BroadcastReceiver {
 	public static final int REQUEST_CODE = 93000;
 	private static final String LOG_NAME = AttachmentPushAlarmReceiver.class.getName();
 
+	private static final long BATCH_SIZE = 100;
+
 	@Override
 	public void onReceive(Context context, Intent intent) {
 		Log.i(LOG_NAME, "Alarm fired to push new attachments");
@@ -23,7 +25,7 @@ public class AttachmentPushAlarmReceiver extends BroadcastReceiver {
 			Log.d(LOG_NAME, "Not connected.  Will try later.");
 			return;
 		}
-		List<Attachment> attachments = AttachmentHelper.getInstance(context).getDirtyAttachments();
+		List<Attachment> attachments = AttachmentHelper.getInstance(context).getOutboxAttachments(BATCH_SIZE);
 		for (Attachment attachment : attachments) {
 
 			if (attachment.getObservation().getRemoteId() != null) {
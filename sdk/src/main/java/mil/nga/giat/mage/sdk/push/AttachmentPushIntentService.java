@@ -7,6 +7,8 @@ import android.util.Log;
 import mil.nga.giat.mage.sdk.connectivity.ConnectivityUtility;
 import mil.nga.giat.mage.sdk.datastore.observation.Attachment;
 import mil.nga.giat.mage.sdk.datastore.observation.AttachmentHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.exceptions.ObservationException;
 import mil.nga.giat.mage.sdk.login.LoginTaskFactory;
 import mil.nga.giat.mage.sdk.http.resource.ObservationResource;
@@ -38,6 +40,7 @@ public class AttachmentPushIntentService extends IntentService {
 
 			if (attachment.getUrl() != null) {
 				Log.i(LOG_NAME, "Already pushed attachment " + attachmentId + ", skipping.");
+				OutboxHelper.getInstance(getApplicationContext()).remove(OutboxType.ATTACHMENT, attachmentId);
 				return;
 			}
 
@@ -49,6 +52,9 @@ public class AttachmentPushIntentService extends IntentService {
 			attachment = observationResource.createAttachment(attachment);
 			if(attachment != null) {
 				Log.d(LOG_NAME, "Pushed attachment with remote_id: " + attachment.getRemoteId());
+				if (attachment.getUrl() != null) {
+					OutboxHelper.getInstance(getApplicationContext()).remove(OutboxType.ATTACHMENT, attachment.getId());
+				}
 			}
 			
 			Intent broadcastIntent = new Intent();
@@ -22,6 +22,8 @@ import mil.nga.giat.mage.sdk.connectivity.ConnectivityUtility;
 import mil.nga.giat.mage.sdk.datastore.DaoStore;
 import mil.nga.giat.mage.sdk.datastore.location.Location;
 import mil.nga.giat.mage.sdk.datastore.location.LocationHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.datastore.user.Event;
 import mil.nga.giat.mage.sdk.datastore.user.User;
 import mil.nga.giat.mage.sdk.datastore.user.UserHelper;
@@ -56,6 +58,7 @@ public class LocationPushIntentService extends ConnectivityAwareIntentService im
 			if (isConnected && !LoginTaskFactory.getInstance(getApplicationContext()).isLocalLogin()) {
 				pushFrequency = getLocationPushFrequency();
 				LocationHelper locationHelper = LocationHelper.getInstance(getApplicationContext());
+				OutboxHelper outboxHelper = OutboxHelper.getInstance(getApplicationContext());
 
 				long batchSize = 100;
 				int failedAttemptCount = 0;
@@ -67,7 +70,7 @@ public class LocationPushIntentService extends ConnectivityAwareIntentService im
 					e.printStackTrace();
 				}
 
-				List<Location> locations = locationHelper.getCurrentUserLocations(getApplicationContext(), batchSize, false);
+				List<Location> locations = locationHelper.getOutboxLocations(batchSize);
 				while (!locations.isEmpty() && failedAttemptCount < 3) {
 
 					// post locations by event
@@ -86,6 +89,14 @@ public class LocationPushIntentService extends ConnectivityAwareIntentService im
 					if (status) {
 						Log.d(LOG_NAME, "Pushed " + eventLocations.size() + " locations.");
 
+						try {
+							for (Location location : eventLocations) {
+								outboxHelper.remove(OutboxType.LOCATION, location.getId());
+							}
+						} catch (SQLException e) {
+							Log.e(LOG_NAME, "Problem removing pushed locations from the outbox.", e);
+						}
+
 						// Delete location where:
 						// the user is current user
 						// the remote id is set. (have been sent to server)
@@ -116,7 +127,7 @@ public class LocationPushIntentService extends ConnectivityAwareIntentService im
 						Log.e(LOG_NAME, "Failed to push locations.");
 						failedAttemptCount++;
 					}
-					locations = locationHelper.getCurrentUserLocations(getApplicationContext(), batchSize, false);
+					locations = locationHelper.getOutboxLocations(batchSize);
 				}
 			} else {
 				Log.d(LOG_NAME, "The device is currently disconnected. Can't push locations.");
@@ -4,8 +4,12 @@ import android.content.Intent;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import mil.nga.giat.mage.sdk.ConnectivityAwareIntentService;
@@ -15,6 +19,9 @@ import mil.nga.giat.mage.sdk.datastore.observation.Observation;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationFavorite;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationHelper;
 import mil.nga.giat.mage.sdk.datastore.observation.ObservationImportant;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxEntry;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxHelper;
+import mil.nga.giat.mage.sdk.datastore.outbox.OutboxType;
 import mil.nga.giat.mage.sdk.event.IObservationEventListener;
 import mil.nga.giat.mage.sdk.exceptions.ObservationException;
 import mil.nga.giat.mage.sdk.http.resource.ObservationResource;
@@ -24,6 +31,8 @@ public class ObservationPushIntentService extends ConnectivityAwareIntentService
 
 	private static final String LOG_NAME = ObservationPushIntentService.class.getName();
 
+	private static final long BATCH_SIZE = 100;
+
 	// in milliseconds
 	private long pushFrequency;
 
@@ -48,14 +57,8 @@ public class ObservationPushIntentService extends ConnectivityAwareIntentService
 			if (isConnected && !LoginTaskFactory.getInstance(getApplicationContext()).isLocalLogin()) {
 				pushFrequency = getObservationPushFrequency();
 
-				// push dirty observations
-				pushObservations(observationResource);
-
-				// push dirty observation favorites
-				pushImportant(observationResource);
-
-				// push dirty observation important
-				pushFavorite(observationResource);
+				// push observations, then important and favorite changes
+				pushOutbox(observationResource);
 
 			} else {
 				Log.d(LOG_NAME, "The device is currently disconnected. Can't push observations.");
@@ -139,45 +142,92 @@ public class ObservationPushIntentService extends ConnectivityAwareIntentService
 		return false;
 	}
 
-	private void pushObservations(ObservationResource observationResource) {
-		ObservationHelper observationHelper = ObservationHelper.getInstance(getApplicationContext());
-		for (Observation observation : observationHelper.getDirty()) {
-			if (isCanceled) {
-				break;
-			}
-			Log.d(LOG_NAME, "Pushing observation with id: " + observation.getId());
-			observation = observationResource.saveObservation(observation);
-			if (observation != null) {
-				Log.d(LOG_NAME, "Pushed observation with remote_id: " + observation.getRemoteId());
-			}
-		}
-	}
-
-	private void pushImportant(ObservationResource observationResource) {
+	/**
+	 * Drains the outbox.  Observations are read before their important and
+	 * favorite changes, which are left in the outbox until the observation has
+	 * a remote id.  Entries that are left or fail are read past for the rest
+	 * of the cycle, so they do not keep the entries behind them from being
+	 * pushed.
+	 */
+	private void pushOutbox(ObservationResource observationResource) {
 		ObservationHelper observationHelper = ObservationHelper.getInstance(getApplicationContext());
+		OutboxHelper outboxHelper = OutboxHelper.getInstance(getApplicationContext());
+		Set<Long> skipped = new HashSet<>();
 		try {
-			for (Observation observation : observationHelper.getDirtyImportant()) {
-				observationResource.toogleImporant(observation);
-				if (observation != null) {
-					Log.d(LOG_NAME, "Pushed observation important with remote_id: " + observation.getRemoteId());
-				}
-			}
-		} catch (ObservationException e) {
-			Log.e(LOG_NAME, "Error pushing observation important", e);
-		}
-	}
+			List<OutboxEntry> entries = outboxHelper.read(BATCH_SIZE, skipped, OutboxType.OBSERVATION, OutboxType.IMPORTANT, OutboxType.FAVORITE);
+			while (!entries.isEmpty() && !isCanceled) {
+				for (OutboxEntry entry : entries) {
+					if (isCanceled) {
+						break;
+					}
 
-	private void pushFavorite(ObservationResource observationResource) {
-		ObservationHelper observationHelper = ObservationHelper.getInstance(getApplicationContext());
-		try {
-			for (ObservationFavorite favorite : observationHelper.getDirtyFavorites()) {
-				Observation observation = observationResource.toogleFavorite(favorite);
-				if (observation != null) {
-					Log.d(LOG_NAME, "Pushed observation favorite with remote_id: " + observation.getRemoteId());
+					Observation observation;
+					switch (entry.getType()) {
+						case OBSERVATION:
+							observation = observationHelper.read(entry.getEntityId());
+							if (observation == null || !observation.isDirty()) {
+								outboxHelper.remove(entry);
+								continue;
+							}
+
+							Log.d(LOG_NAME, "Pushing observation with id: " + observation.getId());
+							observation = observationResource.saveObservation(observation);
+							if (observation != null) {
+								Log.d(LOG_NAME, "Pushed observation with remote_id: " + observation.getRemoteId());
+							}
+							break;
+						case IMPORTANT:
+							observation = observationHelper.read(entry.getEntityId());
+							if (observation == null || observation.getImportant() == null || !observation.getImportant().isDirty()) {
+								outboxHelper.remove(entry);
+								continue;
+							}
+							if (observation.getRemoteId() == null) {
+								skipped.add(entry.getId());
+								continue;
+							}
+
+							observation = observationResource.toogleImporant(observation);
+							if (observation != null) {
+								Log.d(LOG_NAME, "Pushed observation important with remote_id: " + observation.getRemoteId());
+							}
+							break;
+						case FAVORITE:
+							ObservationFavorite favorite = observationHelper.readFavorite(entry.getEntityId());
+							if (favorite == null || !favorite.isDirty()) {
+								outboxHelper.remove(entry);
+								continue;
+							}
+							if (favorite.getObservation().getRemoteId() == null) {
+								skipped.add(entry.getId());
+								continue;
+							}
+
+							observation = observationResource.toogleFavorite(favorite);
+							if (observation != null) {
+								Log.d(LOG_NAME, "Pushed observation favorite with remote_id: " + observation.getRemoteId());
+							}
+							break;
+						default:
+							skipped.add(entry.getId());
+							continue;
+					}
+
+					if (observation == null) {
+						outboxHelper.failed(entry);
+						skipped.add(entry.getId());
+					} else if (!outboxHelper.remove(entry)) {
+						// changed again while it was pushed, push it next cycle
+						skipped.add(entry.getId());
+					}
 				}
+
+				entries = outboxHelper.read(BATCH_SIZE, skipped, OutboxType.OBSERVATION, OutboxType.IMPORTANT, OutboxType.FAVORITE);
 			}
 		} catch (ObservationException e) {
-			Log.e(LOG_NAME, "Error pushing observation favorite", e);
+			Log.e(LOG_NAME, "Error pushing observations", e);
+		} catch (SQLException e) {
+			Log.e(LOG_NAME, "Error reading observation outbox", e);
 		}
 	}
 }
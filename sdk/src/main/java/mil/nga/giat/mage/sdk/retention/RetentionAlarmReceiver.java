@@ -0,0 +1,19 @@
+package mil.nga.giat.mage.sdk.retention;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+public class RetentionAlarmReceiver extends BroadcastReceiver {
+
+	public static final int REQUEST_CODE = 94000;
+	private static final String LOG_NAME = RetentionAlarmReceiver.class.getName();
+
+	@Override
+	public void onReceive(Context context, Intent intent) {
+		Log.i(LOG_NAME, "Alarm fired to prune observations and locations");
+		context.startService(new Intent(context, RetentionIntentService.class));
+	}
+
+}
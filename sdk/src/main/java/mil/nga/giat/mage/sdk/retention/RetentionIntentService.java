@@ -0,0 +1,125 @@
+package mil.nga.giat.mage.sdk.retention;
+
+import android.app.IntentService;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.datastore.DaoStore;
+import mil.nga.giat.mage.sdk.datastore.location.LocationHelper;
+import mil.nga.giat.mage.sdk.datastore.observation.ObservationHelper;
+import mil.nga.giat.mage.sdk.datastore.staticfeature.StaticFeatureHelper;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+import mil.nga.giat.mage.sdk.datastore.user.EventHelper;
+import mil.nga.giat.mage.sdk.exceptions.EventException;
+import mil.nga.giat.mage.sdk.exceptions.LocationException;
+import mil.nga.giat.mage.sdk.exceptions.ObservationException;
+import mil.nga.giat.mage.sdk.exceptions.StaticFeatureException;
+
+/**
+ * Prunes local observations, locations and cached tiles, in order:
+ *
+ * 1. Observations and locations older than the retention age.
+ * 2. All but the newest locations of each user.
+ * 3. All but the newest cached static feature tiles.
+ * 4. All cached tiles, then the oldest observations and locations, while the
+ *    database is over its maximum size.
+ *
+ * Observations with changes that have not been pushed, and locations that have
+ * not been pushed, are never pruned.  Free pages are returned to the file system
+ * afterwards.  A value of 0 for any preference turns that step off.
+ */
+public class RetentionIntentService extends IntentService {
+
+	private static final String LOG_NAME = RetentionIntentService.class.getName();
+
+	// rows deleted per table and event in each pass over the size limit
+	private static final int SIZE_BATCH_SIZE = 500;
+
+	public RetentionIntentService() {
+		super(LOG_NAME);
+	}
+
+	@Override
+	protected void onHandleIntent(Intent intent) {
+		SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getApplicationContext());
+		int retentionAge = preferences.getInt(getString(R.string.retentionAgeKey), getResources().getInteger(R.integer.retentionAgeDefaultValue));
+		int locationsPerUser = preferences.getInt(getString(R.string.retentionLocationsPerUserKey), getResources().getInteger(R.integer.retentionLocationsPerUserDefaultValue));
+		int databaseSize = preferences.getInt(getString(R.string.retentionDatabaseSizeKey), getResources().getInteger(R.integer.retentionDatabaseSizeDefaultValue));
+
+		ObservationHelper observationHelper = ObservationHelper.getInstance(getApplicationContext());
+		LocationHelper locationHelper = LocationHelper.getInstance(getApplicationContext());
+		StaticFeatureHelper staticFeatureHelper = StaticFeatureHelper.getInstance(getApplicationContext());
+		DaoStore daoStore = DaoStore.getInstance(getApplicationContext());
+
+		List<Event> events = Collections.emptyList();
+		try {
+			events = EventHelper.getInstance(getApplicationContext()).readAll();
+		} catch (EventException e) {
+			Log.e(LOG_NAME, "Unable to read events", e);
+		}
+
+		// each step runs even if a step before it failed
+		if (retentionAge > 0) {
+			Date date = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionAge));
+			for (Event event : events) {
+				try {
+					int observations = observationHelper.deleteOlderThan(event, date);
+					int locations = locationHelper.deleteOlderThan(event, date);
+					Log.i(LOG_NAME, "Deleted " + observations + " observations and " + locations + " locations older than " + date + " in event " + event.getName());
+				} catch (ObservationException | LocationException | RuntimeException e) {
+					Log.e(LOG_NAME, "Unable to delete observations and locations older than " + date + " in event " + event.getName(), e);
+				}
+			}
+		}
+
+		if (locationsPerUser > 0) {
+			for (Event event : events) {
+				try {
+					int locations = locationHelper.trimUserLocations(event, locationsPerUser);
+					Log.i(LOG_NAME, "Deleted " + locations + " locations over " + locationsPerUser + " per user in event " + event.getName());
+				} catch (LocationException | RuntimeException e) {
+					Log.e(LOG_NAME, "Unable to trim user locations in event " + event.getName(), e);
+				}
+			}
+		}
+
+		try {
+			int tiles = staticFeatureHelper.trimTiles(StaticFeatureHelper.MAX_CACHED_TILES);
+			Log.i(LOG_NAME, "Deleted " + tiles + " cached tiles over " + StaticFeatureHelper.MAX_CACHED_TILES);
+		} catch (StaticFeatureException | RuntimeException e) {
+			Log.e(LOG_NAME, "Unable to trim cached tiles", e);
+		}
+
+		if (databaseSize > 0) {
+			try {
+				long maxSize = databaseSize * 1024L * 1024L;
+				if (daoStore.getDatabaseSize() > maxSize) {
+					// tiles are cut again when they are read
+					staticFeatureHelper.trimTiles(0);
+				}
+
+				boolean deleted = true;
+				while (deleted && daoStore.getDatabaseSize() > maxSize) {
+					deleted = false;
+					for (Event event : events) {
+						deleted |= locationHelper.deleteOldest(event, SIZE_BATCH_SIZE) > 0;
+						deleted |= observationHelper.deleteOldest(event, SIZE_BATCH_SIZE) > 0;
+					}
+				}
+				Log.i(LOG_NAME, "Database size is " + daoStore.getDatabaseSize() + " bytes, maximum is " + maxSize + " bytes");
+			} catch (ObservationException | LocationException | StaticFeatureException | RuntimeException e) {
+				Log.e(LOG_NAME, "Unable to prune the database to its maximum size", e);
+			}
+		}
+
+		daoStore.vacuum();
+	}
+}
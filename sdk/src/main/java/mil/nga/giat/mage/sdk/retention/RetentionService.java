@@ -0,0 +1,48 @@
+package mil.nga.giat.mage.sdk.retention;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Schedules pruning of old observations and locations.  See
+ * {@link RetentionIntentService} for what is pruned.
+ *
+ * Applications must declare {@link RetentionAlarmReceiver} and
+ * {@link RetentionIntentService} in their manifest.
+ */
+public class RetentionService {
+
+	private static final long RETENTION_INTERVAL = AlarmManager.INTERVAL_HALF_DAY;
+
+	private Context mContext;
+	private AlarmManager alarm;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param context An application context used for reading in preferences.
+	 */
+	public RetentionService(Context context) {
+		mContext = context;
+	}
+
+	public void start() {
+		alarm = (AlarmManager) mContext.getSystemService(Context.ALARM_SERVICE);
+
+		Intent intent = new Intent(mContext, RetentionAlarmReceiver.class);
+		PendingIntent pendingIntent = PendingIntent.getBroadcast(mContext, RetentionAlarmReceiver.REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+		alarm.setInexactRepeating(AlarmManager.ELAPSED_REALTIME, RETENTION_INTERVAL, RETENTION_INTERVAL, pendingIntent);
+	}
+
+	public void stop() {
+		if (alarm == null) {
+			return;
+		}
+
+		Intent intent = new Intent(mContext, RetentionAlarmReceiver.class);
+		PendingIntent pendingIntent = PendingIntent.getBroadcast(mContext, RetentionAlarmReceiver.REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+		alarm.cancel(pendingIntent);
+	}
+}
@@ -11,6 +11,7 @@ import java.text.ParseException;
 import java.util.Date;
 
 import mil.nga.giat.mage.sdk.R;
+import mil.nga.giat.mage.sdk.http.HttpClientManager;
 
 /**
  * Utility that currently deals mostly with the user's token information.
@@ -63,5 +64,6 @@ public class UserUtility {
 		Editor editor = sharedPreferences.edit();
 		editor.remove(mContext.getString(R.string.tokenKey)).commit();
         editor.remove(mContext.getString(R.string.tokenExpirationDateKey)).commit();
+		HttpClientManager.getInstance(mContext).setToken(null);
 	}
 }
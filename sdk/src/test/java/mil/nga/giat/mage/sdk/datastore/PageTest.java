@@ -0,0 +1,162 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.Where;
+import com.j256.ormlite.table.TableUtils;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import mil.nga.giat.mage.sdk.datastore.location.Location;
+import mil.nga.giat.mage.sdk.datastore.location.LocationProperty;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+import mil.nga.giat.mage.sdk.datastore.user.Role;
+import mil.nga.giat.mage.sdk.datastore.user.User;
+import mil.nga.giat.mage.sdk.datastore.user.UserLocal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Keyset pagination against SQLite, with the same query the location and
+ * observation helpers build.
+ */
+public class PageTest {
+
+	private static final Page.Keys<Location> KEYS = new Page.Keys<Location>() {
+		@Override
+		public Date getTimestamp(Location location) {
+			return location.getTimestamp();
+		}
+
+		@Override
+		public Long getId(Location location) {
+			return location.getId();
+		}
+	};
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<Location, Long> locationDao;
+	private User user;
+	private Event event;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("page", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		for (Class<?> table : Arrays.asList(Role.class, UserLocal.class, User.class, Event.class, Location.class, LocationProperty.class)) {
+			TableUtils.createTable(connectionSource, table);
+		}
+
+		Role role = new Role("role", "role", null, null);
+		DaoManager.createDao(connectionSource, Role.class).create(role);
+		UserLocal userLocal = new UserLocal();
+		DaoManager.createDao(connectionSource, UserLocal.class).create(userLocal);
+		user = new User("user", "user", "User", null, null, null, null, null, role);
+		user.setUserLocal(userLocal);
+		DaoManager.createDao(connectionSource, User.class).create(user);
+		event = new Event("event", "Event", null, null);
+		DaoManager.createDao(connectionSource, Event.class).create(event);
+
+		locationDao = DaoManager.createDao(connectionSource, Location.class);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void readsEveryRowOnceNewestFirst() throws SQLException {
+		// ties on the timestamp across page boundaries
+		List<Long> expected = new ArrayList<>();
+		for (long timestamp : new long[] { 1000, 1000, 1000, 2000, 2000, 3000, 3000 }) {
+			expected.add(createLocation(timestamp).getId());
+		}
+		Collections.reverse(expected);
+
+		List<Long> read = new ArrayList<>();
+		int pages = 0;
+		String token = null;
+		do {
+			Page<Location> page = readPage(token, 3);
+			for (Location location : page.getItems()) {
+				read.add(location.getId());
+			}
+			token = page.getNextToken();
+			pages++;
+		} while (token != null);
+
+		assertEquals(3, pages);
+		assertEquals(expected, read);
+	}
+
+	@Test
+	public void lastPageHasNoToken() throws SQLException {
+		createLocation(1000);
+		createLocation(2000);
+
+		Page<Location> page = readPage(null, 2);
+		assertEquals(2, page.getItems().size());
+		assertFalse(page.hasNext());
+		assertNull(page.getNextToken());
+	}
+
+	@Test
+	public void skipsRowsOfOtherEvents() throws SQLException {
+		Event other = new Event("other", "Other", null, null);
+		DaoManager.createDao(connectionSource, Event.class).create(other);
+		for (int i = 0; i < 3; i++) {
+			createLocation(1000 + i);
+			Location location = new Location("Feature", user, Collections.<LocationProperty>emptyList(), new GeometryFactory().createPoint(new Coordinate(0, 0)), new Date(1000 + i), other);
+			locationDao.create(location);
+		}
+
+		Page<Location> first = readPage(null, 2);
+		assertTrue(first.hasNext());
+		Page<Location> second = readPage(first.getNextToken(), 2);
+		assertEquals(1, second.getItems().size());
+		assertEquals(event.getId(), second.getItems().get(0).getEvent().getId());
+	}
+
+	@Test(expected = SQLException.class)
+	public void rejectsInvalidToken() throws SQLException {
+		readPage("not a token", 2);
+	}
+
+	private Location createLocation(long timestamp) throws SQLException {
+		Location location = new Location("Feature", user, Collections.<LocationProperty>emptyList(), new GeometryFactory().createPoint(new Coordinate(0, 0)), new Date(timestamp), event);
+		locationDao.create(location);
+		return location;
+	}
+
+	private Page<Location> readPage(String token, int pageSize) throws SQLException {
+		QueryBuilder<Location, Long> queryBuilder = Page.orderAndLimit(locationDao.queryBuilder(), pageSize);
+		Where<Location, Long> where = queryBuilder.where();
+		where.eq("event_id", event.getId());
+		if (!Page.isFirst(token)) {
+			Page.after(where, token);
+			where.and(2);
+		}
+
+		return Page.of(queryBuilder.query(), pageSize, KEYS);
+	}
+}
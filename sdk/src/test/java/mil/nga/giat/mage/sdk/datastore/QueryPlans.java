@@ -0,0 +1,70 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.ArgumentHolder;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.StatementBuilder;
+import com.j256.ormlite.support.ConnectionSource;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.fail;
+
+/**
+ * EXPLAIN QUERY PLAN assertions for the query plan tests of the helpers.
+ */
+public final class QueryPlans {
+
+	// "SCAN TABLE observations" in older SQLite, "SCAN observations" in newer
+	private static final Pattern SCAN = Pattern.compile("^SCAN (?:TABLE )?(\\w+)");
+
+	private QueryPlans() {
+	}
+
+	/**
+	 * Creates the schema DaoStore creates on a device.
+	 */
+	public static void createSchema(ConnectionSource connectionSource) throws SQLException {
+		DaoStore.createTables(connectionSource);
+	}
+
+	/**
+	 * Fails if SQLite answers the query by scanning a whole table, binding the
+	 * arguments the query builder holds.
+	 */
+	public static void assertNoTableScan(Dao<?, ?> dao, QueryBuilder<?, ?> queryBuilder) throws SQLException {
+		StatementBuilder.StatementInfo statement = queryBuilder.prepareStatementInfo();
+		List<ArgumentHolder> holders = statement.getArgList();
+		String[] arguments = new String[holders.size()];
+		for (int i = 0; i < arguments.length; i++) {
+			arguments[i] = String.valueOf(holders.get(i).getSqlArgValue());
+		}
+
+		assertNoTableScan(dao, statement.getStatement(), arguments);
+	}
+
+	/**
+	 * Fails if SQLite answers the query by scanning a whole table rather than
+	 * searching it, or scanning it through an index or an R*Tree.
+	 */
+	public static void assertNoTableScan(Dao<?, ?> dao, String sql, String... arguments) throws SQLException {
+		StringBuilder plan = new StringBuilder();
+		String scanned = null;
+		for (String[] row : dao.queryRaw("EXPLAIN QUERY PLAN " + sql, arguments)) {
+			String detail = row[row.length - 1];
+			plan.append(detail).append('\n');
+
+			Matcher matcher = SCAN.matcher(detail);
+			if (matcher.find() && !"SUBQUERY".equals(matcher.group(1)) && !detail.contains(" USING ") && !detail.contains("VIRTUAL TABLE")) {
+				scanned = matcher.group(1);
+			}
+		}
+
+		if (scanned != null) {
+			fail(scanned + " scanned by " + sql + ":\n" + plan);
+		}
+	}
+}
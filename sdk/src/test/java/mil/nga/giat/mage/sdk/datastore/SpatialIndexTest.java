@@ -0,0 +1,175 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.dao.GenericRawResults;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.table.TableUtils;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import mil.nga.giat.mage.sdk.datastore.location.Location;
+import mil.nga.giat.mage.sdk.datastore.location.LocationProperty;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+import mil.nga.giat.mage.sdk.datastore.user.Role;
+import mil.nga.giat.mage.sdk.datastore.user.User;
+import mil.nga.giat.mage.sdk.datastore.user.UserLocal;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Envelope queries through the R*Tree of the locations table, and through the
+ * plain table used when SQLite has no R*Tree module.
+ */
+public class SpatialIndexTest {
+
+	private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<Location, Long> locationDao;
+	private User user;
+	private Event event;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("spatial", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		for (Class<?> table : Arrays.asList(Role.class, UserLocal.class, User.class, Event.class, Location.class, LocationProperty.class)) {
+			TableUtils.createTable(connectionSource, table);
+		}
+
+		Role role = new Role("role", "role", null, null);
+		DaoManager.createDao(connectionSource, Role.class).create(role);
+		UserLocal userLocal = new UserLocal();
+		DaoManager.createDao(connectionSource, UserLocal.class).create(userLocal);
+		user = new User("user", "user", "User", null, null, null, null, null, role);
+		user.setUserLocal(userLocal);
+		DaoManager.createDao(connectionSource, User.class).create(user);
+		event = new Event("event", "Event", null, null);
+		DaoManager.createDao(connectionSource, Event.class).create(event);
+
+		locationDao = DaoManager.createDao(connectionSource, Location.class);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void readsLocationsInEnvelope() throws SQLException {
+		createSpatialIndex(true);
+		Location inside = createLocation(1, 1);
+		Location edge = createLocation(10, 10);
+		createLocation(10.001, 10);
+		createLocation(50, 50);
+
+		assertEquals(ids(inside, edge), query(new Envelope(0, 10, 0, 10)));
+	}
+
+	@Test
+	public void indexesExistingRows() throws SQLException {
+		Location inside = createLocation(1, 1);
+		createLocation(50, 50);
+		createSpatialIndex(true);
+
+		assertEquals(ids(inside), query(new Envelope(0, 10, 0, 10)));
+	}
+
+	@Test
+	public void followsUpdatesAndDeletes() throws SQLException {
+		createSpatialIndex(true);
+		Location moved = createLocation(1, 1);
+		Location deleted = createLocation(2, 2);
+		Location kept = createLocation(3, 3);
+
+		moved.setGeometry(GEOMETRY_FACTORY.createPoint(new Coordinate(50, 50)));
+		locationDao.update(moved);
+		locationDao.delete(deleted);
+
+		assertEquals(ids(kept), query(new Envelope(0, 10, 0, 10)));
+		assertEquals(2, locationDao.queryRawValue("SELECT COUNT(*) FROM " + SpatialIndex.getTableName("locations")));
+	}
+
+	@Test
+	public void readsLocationsInEnvelopeWithoutRTree() throws SQLException {
+		createSpatialIndex(false);
+		Location inside = createLocation(1, 1);
+		Location moved = createLocation(2, 2);
+		createLocation(50, 50);
+
+		moved.setGeometry(GEOMETRY_FACTORY.createPoint(new Coordinate(60, 60)));
+		locationDao.update(moved);
+
+		assertEquals(ids(inside), query(new Envelope(0, 10, 0, 10)));
+	}
+
+	@Test
+	public void readsLocationsInEnvelopeWithRawQuery() throws SQLException {
+		createSpatialIndex(true);
+		Location inside = createLocation(1, 1);
+		createLocation(10.001, 10);
+		createLocation(-50, -50);
+
+		List<String> arguments = new ArrayList<>();
+		arguments.add(String.valueOf(event.getId()));
+		arguments.addAll(Arrays.asList(SpatialIndex.getIntersectsArguments(new Envelope(0, 10, 0, 10))));
+		GenericRawResults<String[]> results = locationDao.queryRaw("SELECT l._id FROM locations l WHERE l.event_id = ? AND "
+				+ SpatialIndex.getIntersectsClause("locations", "l", "_id"), arguments.toArray(new String[arguments.size()]));
+
+		Set<Long> ids = new HashSet<>();
+		for (String[] row : results) {
+			ids.add(Long.valueOf(row[0]));
+		}
+		assertEquals(ids(inside), ids);
+	}
+
+	private void createSpatialIndex(boolean virtual) throws SQLException {
+		for (String statement : SpatialIndex.getCreateStatements("locations", "_id", virtual)) {
+			locationDao.executeRawNoArgs(statement);
+		}
+	}
+
+	private Location createLocation(double x, double y) throws SQLException {
+		Location location = new Location("Feature", user, Collections.<LocationProperty>emptyList(), GEOMETRY_FACTORY.createPoint(new Coordinate(x, y)), new Date(), event);
+		locationDao.create(location);
+		return location;
+	}
+
+	private Set<Long> query(Envelope envelope) throws SQLException {
+		QueryBuilder<Location, Long> queryBuilder = locationDao.queryBuilder();
+		SpatialIndex.intersects(queryBuilder.where(), "locations", "_id", envelope).and().eq("event_id", event.getId());
+
+		Set<Long> ids = new HashSet<>();
+		for (Location location : queryBuilder.query()) {
+			ids.add(location.getId());
+		}
+		return ids;
+	}
+
+	private static Set<Long> ids(Location... locations) {
+		Set<Long> ids = new HashSet<>();
+		for (Location location : locations) {
+			ids.add(location.getId());
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,169 @@
+package mil.nga.giat.mage.sdk.datastore;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.misc.TransactionManager;
+import com.j256.ormlite.table.TableUtils;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import mil.nga.giat.mage.sdk.datastore.observation.Attachment;
+import mil.nga.giat.mage.sdk.datastore.observation.Observation;
+import mil.nga.giat.mage.sdk.datastore.observation.ObservationProperty;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reads on one connection while another connection runs a bulk ingest
+ * transaction, in write-ahead logging mode as DaoStore opens the database and
+ * with the rollback journal it used before.  The reader gives up on a lock
+ * after {@link #BUSY_TIMEOUT_MILLIS}, so a blocked read fails fast instead of
+ * waiting out the driver's default timeout.
+ *
+ * The ingest runs with a small page cache so it spills to the database file
+ * before it commits, as a large import does on a device.
+ */
+public class WriteAheadLogTest {
+
+	private static final int EXISTING = 1000;
+	private static final int INGEST = 20000;
+	private static final int BUSY_TIMEOUT_MILLIS = 500;
+
+	private File databaseFile;
+	private JdbcConnectionSource writerSource;
+	private JdbcConnectionSource readerSource;
+	private Event event;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("wal", ".db");
+		writerSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		for (Class<?> table : Arrays.asList(Event.class, Observation.class, ObservationProperty.class)) {
+			TableUtils.createTable(writerSource, table);
+		}
+
+		event = new Event("event", "Event", null, null);
+		DaoManager.createDao(writerSource, Event.class).create(event);
+		ingest(EXISTING);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		writerSource.close();
+		if (readerSource != null) {
+			readerSource.close();
+		}
+		for (String suffix : Arrays.asList("", "-wal", "-shm", "-journal")) {
+			new File(databaseFile.getAbsolutePath() + suffix).delete();
+		}
+	}
+
+	@Test
+	public void readsAreNotBlockedByIngestWithWriteAheadLog() throws Exception {
+		Latencies latencies = readDuringIngest("WAL");
+
+		assertEquals(0, latencies.failures);
+		assertFalse(latencies.counts.isEmpty());
+		assertTrue(latencies.getMaxMillis() < BUSY_TIMEOUT_MILLIS);
+		for (Long count : latencies.counts) {
+			// readers see the last commit, not the open ingest
+			assertEquals(Long.valueOf(EXISTING), count);
+		}
+	}
+
+	@Test
+	public void readsDuringIngestWithRollbackJournal() throws Exception {
+		Latencies latencies = readDuringIngest("DELETE");
+
+		// once the ingest spills to the database file, readers wait for the commit or time out
+		assertTrue(latencies.failures > 0 || latencies.getMaxMillis() >= BUSY_TIMEOUT_MILLIS);
+	}
+
+	private Latencies readDuringIngest(String journalMode) throws Exception {
+		Dao<Observation, Long> writerDao = DaoManager.createDao(writerSource, Observation.class);
+		assertEquals(journalMode.toLowerCase(), writerDao.queryRaw("PRAGMA journal_mode = " + journalMode).getFirstResult()[0].toLowerCase());
+		writerDao.executeRawNoArgs("PRAGMA cache_size = 16");
+
+		readerSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		final Dao<Observation, Long> readerDao = DaoManager.createDao(readerSource, Observation.class);
+		readerDao.queryRaw("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS).close();
+
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch ingested = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		Future<Void> ingest = executor.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				TransactionManager.callInTransaction(writerSource, new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						started.countDown();
+						ingest(INGEST);
+						ingested.countDown();
+						return null;
+					}
+				});
+				return null;
+			}
+		});
+
+		started.await();
+		Latencies latencies = new Latencies();
+		// stop reading before the ingest commits
+		while (ingested.getCount() > 0 && !ingest.isDone()) {
+			long readStart = System.nanoTime();
+			try {
+				latencies.counts.add(readerDao.queryBuilder().where().eq("event_id", event.getId()).countOf());
+				latencies.nanos.add(System.nanoTime() - readStart);
+			} catch (SQLException e) {
+				latencies.failures++;
+			}
+		}
+		ingest.get();
+		executor.shutdown();
+
+		return latencies;
+	}
+
+	private void ingest(int count) throws SQLException {
+		Dao<Observation, Long> observationDao = DaoManager.createDao(writerSource, Observation.class);
+		GeometryFactory geometryFactory = new GeometryFactory();
+		for (int i = 0; i < count; i++) {
+			Observation observation = new Observation(geometryFactory.createPoint(new Coordinate(i % 180, i % 90)),
+					Collections.<ObservationProperty>emptyList(), Collections.<Attachment>emptyList(), new Date(), event);
+			observation.setLastModified(new Date());
+			observationDao.create(observation);
+		}
+	}
+
+	private static class Latencies {
+		private final List<Long> counts = new ArrayList<>();
+		private final List<Long> nanos = new ArrayList<>();
+		private int failures = 0;
+
+		private long getMaxMillis() {
+			return nanos.isEmpty() ? 0 : Collections.max(nanos) / 1000000;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package mil.nga.giat.mage.sdk.datastore.location;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.vividsolutions.jts.geom.Envelope;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Date;
+
+import mil.nga.giat.mage.sdk.datastore.Page;
+import mil.nga.giat.mage.sdk.datastore.QueryPlans;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+/**
+ * EXPLAIN QUERY PLAN checks that the queries the {@link LocationHelper}
+ * builds search the schema DaoStore creates instead of scanning its tables.
+ */
+public class LocationQueryIndexTest {
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<Location, Long> locationDao;
+	private LocationQueries queries;
+	private Event event;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("indexes", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		QueryPlans.createSchema(connectionSource);
+
+		event = new Event("event", "Event", null, null);
+		DaoManager.createDao(connectionSource, Event.class).create(event);
+
+		locationDao = DaoManager.createDao(connectionSource, Location.class);
+		queries = new LocationQueries(locationDao);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void readsUserLocations() throws SQLException {
+		for (long limit : new long[] {0, 100}) {
+			for (boolean includeRemote : new boolean[] {true, false}) {
+				QueryBuilder<Location, Long> queryBuilder = locationDao.queryBuilder();
+				LocationQueries.userLocations(limit, includeRemote).build(queryBuilder, new SelectArg(1L));
+
+				assertNoTableScan(queryBuilder);
+			}
+		}
+	}
+
+	@Test
+	public void readsOutboxLocationsOfUser() throws SQLException {
+		assertNoTableScan(queries.userLocationIds(1L));
+	}
+
+	@Test
+	public void readsLocationsByEnvelope() throws SQLException {
+		assertNoTableScan(queries.byEnvelope(new Envelope(-10, 10, -10, 10), event));
+	}
+
+	@Test
+	public void readsPages() throws SQLException {
+		assertNoTableScan(queries.page(event, null, 50));
+		assertNoTableScan(queries.page(event, Page.token(new Date(), 100L), 50));
+	}
+
+	@Test
+	public void deletesOldest() throws SQLException {
+		assertNoTableScan(queries.oldestIds(event, 100));
+		assertNoTableScan(queries.olderThanIds(event, new Date()));
+	}
+
+	@Test
+	public void trimsUserLocations() throws SQLException {
+		Location last = new Location("Feature", null, Collections.<LocationProperty>emptyList(), null, new Date(), event);
+		last.setId(100L);
+
+		assertNoTableScan(queries.usersOver(event, 100));
+		assertNoTableScan(queries.oldestKept(1L, event, 100));
+		assertNoTableScan(queries.olderThanIds(1L, event, last));
+	}
+
+	private void assertNoTableScan(QueryBuilder<Location, Long> queryBuilder) throws SQLException {
+		QueryPlans.assertNoTableScan(locationDao, queryBuilder);
+	}
+}
@@ -0,0 +1,155 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.vividsolutions.jts.geom.Envelope;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import mil.nga.giat.mage.sdk.datastore.CompiledQuery;
+import mil.nga.giat.mage.sdk.datastore.Page;
+import mil.nga.giat.mage.sdk.datastore.QueryPlans;
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+import mil.nga.giat.mage.sdk.datastore.user.User;
+
+/**
+ * EXPLAIN QUERY PLAN checks that the queries the {@link ObservationHelper}
+ * builds search the schema DaoStore creates instead of scanning its tables.
+ */
+public class ObservationQueryIndexTest {
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<Observation, Long> observationDao;
+	private ObservationQueries queries;
+	private Event event;
+	private User user;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("indexes", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		QueryPlans.createSchema(connectionSource);
+
+		event = new Event("event", "Event", null, "{\"variantField\": \"severity\"}");
+		DaoManager.createDao(connectionSource, Event.class).create(event);
+		user = new User("user", "user", "User", null, null, null, null, null, null);
+
+		observationDao = DaoManager.createDao(connectionSource, Observation.class);
+		queries = new ObservationQueries(observationDao,
+				DaoManager.<Dao<ObservationProperty, Long>, ObservationProperty>createDao(connectionSource, ObservationProperty.class),
+				DaoManager.<Dao<ObservationImportant, Long>, ObservationImportant>createDao(connectionSource, ObservationImportant.class),
+				DaoManager.<Dao<ObservationFavorite, Long>, ObservationFavorite>createDao(connectionSource, ObservationFavorite.class),
+				DaoManager.<Dao<Attachment, Long>, Attachment>createDao(connectionSource, Attachment.class));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void readsDirtyObservations() throws SQLException {
+		assertNoTableScan(ObservationQueries.DIRTY);
+	}
+
+	@Test
+	public void readsLatestCleanObservation() throws SQLException {
+		assertNoTableScan(ObservationQueries.LATEST_CLEAN, user.getRemoteId(), event.getId());
+	}
+
+	@Test
+	public void readsObservationsByProperty() throws SQLException {
+		assertNoTableScan(queries.byProperty(event, "type", "fire"));
+	}
+
+	@Test
+	public void readsObservationsByEnvelope() throws SQLException {
+		assertNoTableScan(queries.byEnvelope(new Envelope(-10, 10, -10, 10), event));
+	}
+
+	@Test
+	public void readsPages() throws SQLException {
+		assertNoTableScan(queries.page(event, null, 50));
+		assertNoTableScan(queries.page(event, Page.token(new Date(), 100L), 50));
+	}
+
+	@Test
+	public void readsSummaries() throws SQLException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.summaries(event, user, arguments);
+
+		QueryPlans.assertNoTableScan(observationDao, sql, arguments.toArray(new String[arguments.size()]));
+	}
+
+	@Test
+	public void counts() throws SQLException {
+		for (ObservationGrouping grouping : ObservationGrouping.values()) {
+			List<String> arguments = new ArrayList<>();
+			String sql = ObservationQueries.count(event, grouping, TimeZone.getTimeZone("Asia/Kolkata"), new Date(0), new Date(), arguments);
+
+			QueryPlans.assertNoTableScan(observationDao, sql, arguments.toArray(new String[arguments.size()]));
+		}
+	}
+
+	@Test
+	public void countsImportantAndFavorites() throws SQLException {
+		List<String> arguments = new ArrayList<>();
+		String sql = ObservationQueries.countImportant(event, null, null, arguments);
+		QueryPlans.assertNoTableScan(observationDao, sql, arguments.toArray(new String[arguments.size()]));
+
+		arguments = new ArrayList<>();
+		sql = ObservationQueries.countFavorites(event, user, new Date(0), new Date(), arguments);
+		QueryPlans.assertNoTableScan(observationDao, sql, arguments.toArray(new String[arguments.size()]));
+	}
+
+	@Test
+	public void searches() throws SQLException {
+		QueryPlans.assertNoTableScan(observationDao, ObservationSearchIndex.SEARCH,
+				"fire", String.valueOf(event.getId()), String.valueOf(Long.MIN_VALUE), String.valueOf(Long.MAX_VALUE), "10");
+	}
+
+	@Test
+	public void deletesOldest() throws SQLException {
+		assertNoTableScan(queries.oldestIds(event, 100));
+		assertNoTableScan(queries.olderThanIds(event, new Date()));
+	}
+
+	@Test
+	public void readsAttachmentsOfObservation() throws SQLException {
+		// the shape of the query of the Observation attachments foreign collection
+		Dao<Attachment, Long> attachmentDao = DaoManager.createDao(connectionSource, Attachment.class);
+		QueryBuilder<Attachment, Long> queryBuilder = attachmentDao.queryBuilder();
+		queryBuilder.where().eq("observation_id", new SelectArg(1L));
+
+		QueryPlans.assertNoTableScan(attachmentDao, queryBuilder);
+	}
+
+	private void assertNoTableScan(QueryBuilder<Observation, Long> queryBuilder) throws SQLException {
+		QueryPlans.assertNoTableScan(observationDao, queryBuilder);
+	}
+
+	private void assertNoTableScan(CompiledQuery.Builder<Observation, Long> builder, Object... values) throws SQLException {
+		SelectArg[] args = new SelectArg[values.length];
+		for (int i = 0; i < args.length; i++) {
+			args[i] = new SelectArg(values[i]);
+		}
+		QueryBuilder<Observation, Long> queryBuilder = observationDao.queryBuilder();
+		builder.build(queryBuilder, args);
+
+		assertNoTableScan(queryBuilder);
+	}
+}
@@ -0,0 +1,106 @@
+package mil.nga.giat.mage.sdk.datastore.observation;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.table.TableUtils;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import mil.nga.giat.mage.sdk.datastore.user.Event;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Full text search over observation properties against SQLite FTS4.
+ */
+public class ObservationSearchIndexTest {
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<Observation, Long> observationDao;
+	private ObservationSearchIndex searchIndex;
+	private Event event;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("search", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		for (Class<?> table : Arrays.asList(Event.class, Observation.class, ObservationProperty.class)) {
+			TableUtils.createTable(connectionSource, table);
+		}
+
+		event = new Event("event", "Event", null, null);
+		DaoManager.createDao(connectionSource, Event.class).create(event);
+
+		observationDao = DaoManager.createDao(connectionSource, Observation.class);
+		observationDao.executeRawNoArgs(ObservationSearchIndex.CREATE_TABLE);
+		searchIndex = new ObservationSearchIndex(observationDao);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void ranksMostMatchesThenNewestFirst() throws SQLException {
+		Observation older = createObservation(1000, "fire");
+		Observation newer = createObservation(2000, "fire");
+		Observation most = createObservation(500, "fire fire truck");
+		createObservation(3000, "flood");
+
+		assertEquals(Arrays.asList(most.getId(), newer.getId(), older.getId()), searchIndex.search(event, "fire", null, null, 10));
+	}
+
+	@Test
+	public void limitsInQuery() throws SQLException {
+		createObservation(1000, "fire");
+		Observation newest = createObservation(2000, "fire");
+
+		assertEquals(Collections.singletonList(newest.getId()), searchIndex.search(event, "FIRE", null, null, 1));
+	}
+
+	@Test
+	public void matchesNonAsciiCaseInsensitively() throws SQLException {
+		Observation upper = createObservation(1000, "Überflutung");
+		Observation lower = createObservation(2000, "überflutung");
+
+		assertEquals(Arrays.asList(lower.getId(), upper.getId()), searchIndex.search(event, "über", null, null, 10));
+		assertEquals(Arrays.asList(lower.getId(), upper.getId()), searchIndex.search(event, "ÜBER", null, null, 10));
+	}
+
+	@Test
+	public void removesRowsOfSelectedObservations() throws SQLException {
+		Observation removed = createObservation(1000, "fire");
+		Observation kept = createObservation(2000, "fire");
+
+		QueryBuilder<Observation, Long> observationIds = observationDao.queryBuilder().selectColumns("_id");
+		observationIds.where().lt("timestamp", new Date(1500));
+		searchIndex.remove(observationIds);
+
+		assertEquals(Collections.singletonList(kept.getId()), searchIndex.search(event, "fire", null, null, 10));
+		assertEquals(1, observationDao.queryRawValue("SELECT COUNT(*) FROM observations WHERE _id = ?", removed.getId().toString()));
+	}
+
+	private Observation createObservation(long timestamp, String text) throws SQLException {
+		Observation observation = new Observation(new GeometryFactory().createPoint(new Coordinate(0, 0)),
+				Collections.singletonList(new ObservationProperty("description", text)), Collections.<Attachment>emptyList(), new Date(timestamp), event);
+		observation.setLastModified(new Date(timestamp));
+		observationDao.create(observation);
+		searchIndex.index(observation);
+		return observation;
+	}
+}
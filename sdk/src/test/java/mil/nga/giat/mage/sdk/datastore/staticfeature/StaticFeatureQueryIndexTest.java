@@ -0,0 +1,65 @@
+package mil.nga.giat.mage.sdk.datastore.staticfeature;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.vividsolutions.jts.geom.Envelope;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import mil.nga.giat.mage.sdk.datastore.QueryPlans;
+
+/**
+ * EXPLAIN QUERY PLAN checks that the queries the {@link StaticFeatureHelper}
+ * builds search the schema DaoStore creates instead of scanning its tables.
+ */
+public class StaticFeatureQueryIndexTest {
+
+	private File databaseFile;
+	private JdbcConnectionSource connectionSource;
+	private Dao<StaticFeature, Long> staticFeatureDao;
+	private StaticFeatureQueries queries;
+
+	@Before
+	public void setUp() throws Exception {
+		databaseFile = File.createTempFile("indexes", ".db");
+		connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		QueryPlans.createSchema(connectionSource);
+
+		staticFeatureDao = DaoManager.createDao(connectionSource, StaticFeature.class);
+		queries = new StaticFeatureQueries(staticFeatureDao);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		connectionSource.close();
+		databaseFile.delete();
+	}
+
+	@Test
+	public void readsFeaturesOfLayer() throws SQLException {
+		QueryPlans.assertNoTableScan(staticFeatureDao, queries.byLayer(1L));
+	}
+
+	@Test
+	public void readsFeaturesByEnvelope() throws SQLException {
+		QueryPlans.assertNoTableScan(staticFeatureDao, queries.byEnvelope(new Envelope(-10, 10, -10, 10), 1L));
+	}
+
+	@Test
+	public void readsGeometriesByEnvelope() throws SQLException {
+		for (Integer maxZoom : new Integer[] {null, 10}) {
+			List<String> arguments = new ArrayList<>();
+			String sql = StaticFeatureQueries.geometriesByEnvelope(new Envelope(-10, 10, -10, 10), 1L, maxZoom, arguments);
+
+			QueryPlans.assertNoTableScan(staticFeatureDao, sql, arguments.toArray(new String[arguments.size()]));
+		}
+	}
+}
@@ -0,0 +1,298 @@
+package mil.nga.giat.mage.sdk.fetch;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.table.TableUtils;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import mil.nga.giat.mage.sdk.datastore.observation.Observation;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpoint;
+import mil.nga.giat.mage.sdk.datastore.sync.SyncCheckpointHelper;
+import mil.nga.giat.mage.sdk.jackson.deserializer.ObservationDeserializer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pages against a mock server that answers like the observations endpoint,
+ * ordered by last modified date only, ties in a different order every time.
+ * The mock server can also ignore the sort, like a server that does not
+ * support it.
+ */
+public class ObservationPagerTest {
+
+	private static final int PAGE_SIZE = 500;
+	private static final String CHECKPOINT = "observations/event";
+
+	@Test
+	public void fetchesEveryObservation() throws Exception {
+		MockServer server = new MockServer();
+		for (int i = 0; i < 1200; i++) {
+			server.add(i);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		assertEquals(1200, pager.fetch(new Date(0)));
+
+		assertEquals(3, server.requests);
+		pager.assertSavedOnce(server);
+	}
+
+	@Test
+	public void pagesPastMoreTiesThanFitInAPage() throws Exception {
+		MockServer server = new MockServer();
+		for (int i = 0; i < 1300; i++) {
+			server.add(1000);
+		}
+		for (int i = 0; i < 10; i++) {
+			server.add(2000 + i);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		pager.fetch(new Date(0));
+
+		pager.assertSavedOnce(server);
+	}
+
+	@Test
+	public void pagesPastTiesAcrossPageBoundaries() throws Exception {
+		MockServer server = new MockServer();
+		for (int i = 0; i < 2000; i++) {
+			server.add(i / 7);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		assertEquals(2000, pager.fetch(new Date(0)));
+
+		pager.assertSavedOnce(server);
+	}
+
+	@Test
+	public void resumesAtTheLastSavedObservation() throws Exception {
+		MockServer server = new MockServer();
+		for (int i = 0; i < 1200; i++) {
+			server.add(i / 3);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		server.failAfter = 700;
+		try {
+			pager.fetch(new Date(0));
+			fail("Expected the response to fail");
+		} catch (IOException expected) {
+		}
+		// the first page and what was parsed of the second page before the failure
+		assertTrue(pager.saved.size() > PAGE_SIZE);
+
+		// a new fetch starts at the checkpoint, the last saved observation
+		server.failAfter = -1;
+		Date checkpoint = pager.saved.get(pager.saved.size() - 1).getLastModified();
+		RecordingPager resumed = new RecordingPager(server);
+		resumed.fetch(checkpoint);
+
+		List<Observation> saved = new ArrayList<>(pager.saved);
+		saved.addAll(resumed.saved);
+		Map<String, Integer> counts = count(saved);
+		assertEquals(server.observations.size(), counts.size());
+		for (Observation observation : resumed.saved) {
+			if (!observation.getLastModified().equals(checkpoint)) {
+				assertEquals(observation.getRemoteId(), Integer.valueOf(1), counts.get(observation.getRemoteId()));
+			}
+		}
+	}
+
+	@Test
+	public void savesNothingOfAnUnorderedPage() throws Exception {
+		MockServer server = new MockServer();
+		server.sorted = false;
+		for (int i = 0; i < 1200; i++) {
+			server.add(i);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		try {
+			pager.fetch(new Date(0));
+			fail("Expected the unordered page to fail");
+		} catch (IOException expected) {
+		}
+		assertTrue(pager.saved.isEmpty());
+	}
+
+	@Test
+	public void savesAnUnorderedLastPageInOrder() throws Exception {
+		MockServer server = new MockServer();
+		server.sorted = false;
+		for (int i = 0; i < 300; i++) {
+			server.add(i);
+		}
+
+		RecordingPager pager = new RecordingPager(server);
+		assertEquals(300, pager.fetch(new Date(0)));
+		pager.assertSavedOnce(server);
+	}
+
+	@Test
+	public void refetchesEverythingAfterPurge() throws Exception {
+		MockServer server = new MockServer();
+		for (int i = 0; i < 1200; i++) {
+			server.add(i);
+		}
+
+		File databaseFile = File.createTempFile("checkpoint", ".db");
+		JdbcConnectionSource connectionSource = new JdbcConnectionSource("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+		try {
+			TableUtils.createTable(connectionSource, SyncCheckpoint.class);
+			Dao<SyncCheckpoint, Long> syncCheckpointDao = DaoManager.createDao(connectionSource, SyncCheckpoint.class);
+			SyncCheckpointHelper syncCheckpointHelper = new SyncCheckpointHelper(syncCheckpointDao);
+
+			CheckpointingPager pager = new CheckpointingPager(server, syncCheckpointHelper);
+			pager.fetch(pager.getStartDate());
+			assertEquals(1, syncCheckpointDao.countOf());
+			assertEquals(new Date(1199), syncCheckpointHelper.read(CHECKPOINT).getLastModified());
+
+			// purging the observations of the event deletes its checkpoint with them
+			syncCheckpointHelper.delete(CHECKPOINT);
+
+			CheckpointingPager refetch = new CheckpointingPager(server, syncCheckpointHelper);
+			assertEquals(1200, refetch.fetch(refetch.getStartDate()));
+			refetch.assertSavedOnce(server);
+		} finally {
+			connectionSource.close();
+			databaseFile.delete();
+		}
+	}
+
+	private static Map<String, Integer> count(List<Observation> observations) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (Observation observation : observations) {
+			Integer count = counts.get(observation.getRemoteId());
+			counts.put(observation.getRemoteId(), count == null ? 1 : count + 1);
+		}
+		return counts;
+	}
+
+	private static class MockServer {
+		private final List<Observation> observations = new ArrayList<>();
+		private final Random random = new Random(17);
+		private int requests = 0;
+		private int handled = 0;
+		private int failAfter = -1;
+		private boolean sorted = true;
+
+		void add(long lastModified) {
+			Observation observation = new Observation();
+			observation.setRemoteId(String.valueOf(observations.size()));
+			observation.setLastModified(new Date(lastModified));
+			observations.add(observation);
+		}
+
+		int getObservations(Date startDate, int limit, ObservationDeserializer.ObservationHandler handler) throws IOException {
+			requests++;
+
+			List<Observation> matches = new ArrayList<>();
+			for (Observation observation : observations) {
+				if (!observation.getLastModified().before(startDate)) {
+					matches.add(observation);
+				}
+			}
+			Collections.shuffle(matches, random);
+			if (sorted) {
+				Collections.sort(matches, new Comparator<Observation>() {
+					@Override
+					public int compare(Observation o1, Observation o2) {
+						return o1.getLastModified().compareTo(o2.getLastModified());
+					}
+				});
+			}
+
+			int count = 0;
+			for (Observation observation : matches.subList(0, Math.min(limit, matches.size()))) {
+				if (handled == failAfter) {
+					throw new IOException("Connection reset");
+				}
+				handler.onObservation(observation);
+				handled++;
+				count++;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Checkpoints saved pages like the observation fetch.  Without a checkpoint
+	 * it starts at the latest saved observation, none after a purge.
+	 */
+	private static class CheckpointingPager extends RecordingPager {
+		private final SyncCheckpointHelper syncCheckpointHelper;
+
+		CheckpointingPager(MockServer server, SyncCheckpointHelper syncCheckpointHelper) {
+			super(server);
+			this.syncCheckpointHelper = syncCheckpointHelper;
+		}
+
+		Date getStartDate() throws SQLException {
+			SyncCheckpoint checkpoint = syncCheckpointHelper.read(CHECKPOINT);
+			return checkpoint != null ? checkpoint.getLastModified() : new Date(0);
+		}
+
+		@Override
+		protected void savePage(List<Observation> page) {
+			super.savePage(page);
+
+			Observation last = page.get(page.size() - 1);
+			try {
+				syncCheckpointHelper.save(CHECKPOINT, last.getLastModified(), last.getRemoteId());
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static class RecordingPager extends ObservationPager {
+		private final MockServer server;
+		private final List<Observation> saved = new ArrayList<>();
+
+		RecordingPager(MockServer server) {
+			super(PAGE_SIZE);
+			this.server = server;
+		}
+
+		@Override
+		protected int fetchPage(Date startDate, int limit, ObservationDeserializer.ObservationHandler handler) throws IOException {
+			return server.getObservations(startDate, limit, handler);
+		}
+
+		@Override
+		protected void savePage(List<Observation> page) {
+			Date previous = saved.isEmpty() ? new Date(0) : saved.get(saved.size() - 1).getLastModified();
+			for (Observation observation : page) {
+				assertEquals("Pages are saved in last modified order", false, observation.getLastModified().before(previous));
+				previous = observation.getLastModified();
+			}
+			saved.addAll(page);
+		}
+
+		void assertSavedOnce(MockServer server) {
+			Map<String, Integer> counts = count(saved);
+			assertEquals(server.observations.size(), counts.size());
+			for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+				assertEquals(entry.getKey(), Integer.valueOf(1), entry.getValue());
+			}
+		}
+	}
+}